@@ -0,0 +1,103 @@
+package team.brown.sharding.master.hash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки кольца: построение, поиск владельца хеша, диапазоны узла и копирование.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int nodeCount;
+
+    @Param({"1", "16", "256", "1024"})
+    public int virtualNodes;
+
+    @Param({"md5", "murmur3"})
+    public String hashFunction;
+
+    private List<ServerNode> nodes;
+    private ConsistentHashRing<ServerNode> ring;
+    private int[] probes;
+    private int probeIdx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        nodes = nodes(nodeCount);
+        ring = new ConsistentHashRing<>(HashFunctionType.fromName(hashFunction).create(), nodes, virtualNodes);
+        SplittableRandom random = new SplittableRandom(1);
+        probes = new int[1 << 16];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextInt();
+        }
+    }
+
+    static List<ServerNode> nodes(int count) {
+        List<ServerNode> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            nodes.add(new ServerNode("10.0." + (i >> 8) + "." + (i & 0xFF) + ":8080"));
+        }
+        return nodes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public ConsistentHashRing<ServerNode> construct() {
+        // Копии узлов, чтобы соли прошлых итераций не влияли на построение
+        List<ServerNode> fresh = new ArrayList<>(nodes.size());
+        for (ServerNode node : nodes) {
+            fresh.add(new ServerNode(node.getAddress()));
+        }
+        return new ConsistentHashRing<>(HashFunctionType.fromName(hashFunction).create(), fresh, virtualNodes);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ServerNode getNodeForHash() {
+        int hash = probes[probeIdx++ & (probes.length - 1)];
+        return ring.getNodeForHash(hash);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void getHashRanges(Blackhole blackhole) {
+        ServerNode node = nodes.get(probeIdx++ % nodes.size());
+        List<HashRange> ranges = ring.getHashRanges(node);
+        blackhole.consume(ranges);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ConsistentHashRing<ServerNode> cloneRing() {
+        return ring.clone();
+    }
+}
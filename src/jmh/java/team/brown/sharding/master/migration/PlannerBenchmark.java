@@ -0,0 +1,76 @@
+package team.brown.sharding.master.migration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки планировщика миграции для добавления узла, удаления узла и смены числа виртуальных узлов.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlannerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int nodeCount;
+
+    @Param({"1", "16", "256"})
+    public int virtualNodes;
+
+    @Param({"add", "remove", "resize"})
+    public String scenario;
+
+    private ConsistentHashRing<ServerNode> oldRing;
+    private ConsistentHashRing<ServerNode> newRing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var hashFunction = new ConsistentHashRing.MD5HashFunction();
+        List<ServerNode> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new ServerNode("10.0." + (i >> 8) + "." + (i & 0xFF) + ":8080"));
+        }
+        oldRing = new ConsistentHashRing<>(hashFunction, nodes, virtualNodes);
+        switch (scenario) {
+            case "add" -> {
+                newRing = oldRing.clone();
+                newRing.addNode(new ServerNode("10.1.0.1:8080"));
+            }
+            case "remove" -> {
+                newRing = oldRing.clone();
+                newRing.removeNode(nodes.get(nodeCount / 2));
+            }
+            case "resize" -> newRing = new ConsistentHashRing<>(hashFunction, nodes, virtualNodes * 2);
+            default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+    }
+
+    @Benchmark
+    public List<MigrationPlanner.OwnershipChange> diff() {
+        return MigrationPlanner.diff(oldRing, newRing);
+    }
+
+    @Benchmark
+    public List<MigrationTask> planAndBatch() {
+        return MigrationPlanner.plan(oldRing, newRing).toTasks();
+    }
+}
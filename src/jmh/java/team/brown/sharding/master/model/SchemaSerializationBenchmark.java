@@ -0,0 +1,66 @@
+package team.brown.sharding.master.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.hash.RingBinaryCodec;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк рендеринга схемы: JSON-ответ GET /scheme и бинарное кольцо GET /scheme/ring.
+ * Оба выполняются один раз на версию, бенчмарк показывает цену первого запроса после публикации.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchemaSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int nodeCount;
+
+    @Param({"16", "256"})
+    public int virtualNodes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SchemaSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ServerNode> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new ServerNode("10.0." + (i >> 8) + "." + (i & 0xFF) + ":8080"));
+        }
+        var ring = new ConsistentHashRing<>(new ConsistentHashRing.MD5HashFunction(), nodes, virtualNodes);
+        snapshot = new SchemaSnapshot(ring.getNodes(), ring, 1);
+    }
+
+    @Benchmark
+    public byte[] serializeSchema() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(SchemaResponse.from(snapshot));
+    }
+
+    @Benchmark
+    public byte[] encodeRing() {
+        return RingBinaryCodec.encode(snapshot.getRing(), snapshot.getVersion());
+    }
+}
@@ -0,0 +1,47 @@
+package team.brown.sharding.master.placement;
+
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.List;
+
+/**
+ * Jump consistent hash (Lamping, Veach) по слотам: слот назначается одному из узлов, упорядоченных по адресу.
+ * Почти идеальный баланс без памяти на виртуальные узлы, но минимальное перемещение данных гарантируется,
+ * только когда узлы добавляются в конец списка. Удаление узла из середины сдвигает номера остальных
+ * и переносит большую часть слотов. Веса не учитываются, кроме нулевого.
+ * <p>
+ * Мастер хранит узлы упорядоченными по адресу, а не по порядку подключения, поэтому в кластере
+ * эта стратегия не выбирается и используется только для сравнения в {@link PlacementBenchmark}.
+ */
+public class JumpHashPlacement extends SlotPlacement {
+
+    public JumpHashPlacement(int slots) {
+        super(slots);
+    }
+
+    @Override
+    public String name() {
+        return "jump";
+    }
+
+    @Override
+    protected int[] assign(ConsistentHashRing.HashFunction hashFunction, List<ServerNode> nodes, int virtualNodes) {
+        int[] table = new int[getSlots()];
+        for (int slot = 0; slot < table.length; slot++) {
+            table[slot] = jump(mix(slot + 0x9E3779B97F4A7C15L), nodes.size());
+        }
+        return table;
+    }
+
+    static int jump(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
@@ -0,0 +1,161 @@
+package team.brown.sharding.master.placement;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.migration.MigrationPlanner;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение стратегий размещения: построение, поиск владельца хеша и изменение состава.
+ * <p>
+ * Баланс (наибольшая доля узла относительно средней) и доля пространства хешей, переезжающая
+ * при добавлении и удалении узла, не зависят от времени и выводятся счётчиками {@link Quality}
+ * бенчмарка {@link #quality(Quality)}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PlacementBenchmark {
+    private static final double SPACE = 1L << 32;
+
+    @Param({"ring", "bounded-load", "maglev", "rendezvous", "jump"})
+    public String strategy;
+
+    @Param({"10", "100"})
+    public int nodeCount;
+
+    @Param({"64"})
+    public int virtualNodes;
+
+    @Param({"16381"})
+    public int slots;
+
+    private final ConsistentHashRing.HashFunction hashFunction = new ConsistentHashRing.MD5HashFunction();
+    private PlacementStrategy placement;
+    private List<ServerNode> nodes;
+    private ConsistentHashRing<ServerNode> table;
+    private int[] probes;
+    private int probeIdx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        placement = "jump".equals(strategy)
+                ? new JumpHashPlacement(slots)
+                : PlacementType.fromName(strategy).create(slots, 0.25);
+        nodes = nodes(nodeCount);
+        table = placement.build(hashFunction, nodes, virtualNodes);
+        SplittableRandom random = new SplittableRandom(1);
+        probes = new int[1 << 16];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextInt();
+        }
+    }
+
+    /**
+     * Качество размещения. Значения пересчитываются каждую итерацию целиком, поэтому
+     * бенчмарк {@link #quality(Quality)} выполняет ровно одну итерацию.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Quality {
+        /** Наибольшая доля узла относительно средней. */
+        public double maxShareToMean;
+        /** Доля пространства хешей, переезжающая при добавлении узла. */
+        public double movedOnAdd;
+        /** Доля пространства хешей, переезжающая при удалении узла. */
+        public double movedOnRemove;
+        /** Наименьшая возможная доля переезда при добавлении узла. */
+        public double idealMove;
+    }
+
+    static List<ServerNode> nodes(int count) {
+        List<ServerNode> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            nodes.add(new ServerNode("10.0." + (i >> 8) + "." + (i & 0xFF) + ":8080"));
+        }
+        return nodes;
+    }
+
+    private static double maxShare(ConsistentHashRing<ServerNode> ring) {
+        double max = 0;
+        for (ServerNode node : ring.getNodeTable()) {
+            double width = 0;
+            for (HashRange range : ring.getHashRanges(node)) {
+                long size = (long) range.getEnd() - range.getStart();
+                width += (size >= 0 ? size : size + (1L << 32)) + 1;
+            }
+            max = Math.max(max, width / SPACE);
+        }
+        return max;
+    }
+
+    private static double moved(ConsistentHashRing<ServerNode> before, ConsistentHashRing<ServerNode> after) {
+        return MigrationPlanner.diff(before, after).stream()
+                .mapToDouble(change -> (double) change.range().getEnd() - change.range().getStart() + 1)
+                .sum() / SPACE;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public ConsistentHashRing<ServerNode> build() {
+        // Копии узлов, чтобы соли прошлых итераций не влияли на построение
+        List<ServerNode> fresh = new ArrayList<>(nodes.size());
+        for (ServerNode node : nodes) {
+            fresh.add(new ServerNode(node.getAddress()));
+        }
+        return placement.build(hashFunction, fresh, virtualNodes);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public ConsistentHashRing<ServerNode> addNode() {
+        return placement.withNode(table, new ServerNode("10.1.0." + (probeIdx++ & 0xFF) + ":8080"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void quality(Quality quality) {
+        var added = placement.withNode(table, new ServerNode("10.1.0.0:8080"));
+        var removed = placement.withoutNode(table, nodes.get(nodes.size() / 2));
+        quality.maxShareToMean = maxShare(table) * nodeCount;
+        quality.movedOnAdd = moved(table, added);
+        quality.movedOnRemove = moved(table, removed);
+        quality.idealMove = 1.0 / (nodeCount + 1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ServerNode getNodeForHash() {
+        int hash = probes[probeIdx++ & (probes.length - 1)];
+        return table.getNodeForHash(hash);
+    }
+}
@@ -0,0 +1,20 @@
+package team.brown.sharding.master.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.hash.HashFunctionType;
+
+/**
+ * Выбор хеш-функции для размещения виртуальных узлов.
+ * Существующие кластеры должны оставаться на md5, иначе изменится всё размещение.
+ */
+@Configuration
+public class HashFunctionConfig {
+
+    @Bean
+    public ConsistentHashRing.HashFunction hashFunction(@Value("${ring.hash-function:md5}") String name) {
+        return HashFunctionType.fromName(name).create();
+    }
+}
@@ -0,0 +1,22 @@
+package team.brown.sharding.master.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import team.brown.sharding.master.placement.PlacementStrategy;
+import team.brown.sharding.master.placement.PlacementType;
+
+/**
+ * Выбор стратегии размещения кластера.
+ * Существующие кластеры должны оставаться на ring, иначе изменится всё размещение.
+ */
+@Configuration
+public class PlacementConfig {
+
+    @Bean
+    public PlacementStrategy placementStrategy(@Value("${placement.strategy:ring}") String name,
+                                               @Value("${placement.slots:16381}") int slots,
+                                               @Value("${placement.bounded-load.epsilon:0.25}") double epsilon) {
+        return PlacementType.fromName(name).create(slots, epsilon);
+    }
+}
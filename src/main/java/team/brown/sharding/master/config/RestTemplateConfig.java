@@ -1,14 +1,46 @@
 package team.brown.sharding.master.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP-клиент для обращений к узлам хранения и ведущему мастеру.
+ * <p>
+ * Один {@link HttpClient} на процесс держит постоянные соединения к каждому узлу и переиспользует их;
+ * с {@code http.client.version=HTTP_2} узлы, поддерживающие HTTP/2, обслуживают все запросы
+ * одним мультиплексированным соединением, остальные отвечают по HTTP/1.1.
+ */
 @Configuration
 public class RestTemplateConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpClient httpClient(@Value("${http.client.version:HTTP_2}") HttpClient.Version version,
+                                 @Value("${http.client.connect-timeout-ms:2000}") long connectTimeoutMillis) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(HttpClient httpClient,
+                                     @Value("${http.client.read-timeout-ms:60000}") long readTimeoutMillis,
+                                     @Value("${master.replication.poll-timeout-ms:30000}") long pollTimeoutMillis) {
+        // Long-poll репликации держит запрос до poll-timeout-ms, таймаут чтения не должен его обрывать
+        if (readTimeoutMillis <= pollTimeoutMillis) {
+            throw new IllegalArgumentException("http.client.read-timeout-ms (" + readTimeoutMillis
+                    + ") must exceed master.replication.poll-timeout-ms (" + pollTimeoutMillis + ")");
+        }
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        return new RestTemplate(requestFactory);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package team.brown.sharding.master.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import team.brown.sharding.master.migration.MigrationJobStore;
+import team.brown.sharding.master.state.FileMigrationJobStore;
+import team.brown.sharding.master.state.FileSchemaStore;
+import team.brown.sharding.master.state.SchemaStore;
+
+import java.nio.file.Path;
+
+/**
+ * Хранилище схемы и заданий миграции мастер-узла.
+ * Без master.state.dir схема живёт только в памяти и после рестарта начинается с версии 1,
+ * а незавершённая миграция не продолжается.
+ */
+@Configuration
+public class SchemaStoreConfig {
+
+    @Bean
+    public SchemaStore schemaStore(@Value("${master.state.dir:}") String directory,
+                                   @Value("${master.state.snapshot-every:100}") int snapshotEvery,
+                                   @Value("${master.state.fsync:true}") boolean fsync) {
+        if (directory.isBlank()) {
+            return SchemaStore.NONE;
+        }
+        return new FileSchemaStore(Path.of(directory), snapshotEvery, fsync);
+    }
+
+    @Bean
+    public MigrationJobStore migrationJobStore(@Value("${master.state.dir:}") String directory,
+                                               @Value("${master.state.fsync:true}") boolean fsync) {
+        if (directory.isBlank()) {
+            return MigrationJobStore.NONE;
+        }
+        return new FileMigrationJobStore(Path.of(directory), fsync);
+    }
+}
@@ -0,0 +1,34 @@
+package team.brown.sharding.master.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import team.brown.sharding.master.journal.EventJournal;
+import team.brown.sharding.master.model.JournalResponse;
+
+/**
+ * Контроллер для выгрузки журнала событий горячего пути.
+ */
+@RestController
+@Tag(name = "admin", description = "API диагностики")
+@RequiredArgsConstructor
+public class JournalController {
+
+    private final EventJournal journal;
+
+    /**
+     * Возвращает последние события журнала.
+     *
+     * @param limit максимальное количество событий
+     * @return события журнала
+     */
+    @Operation(summary = "Журнал событий", description = "Получить последние выборочно сохранённые события горячего пути")
+    @GetMapping("/admin/journal")
+    public JournalResponse journal(@RequestParam(defaultValue = "1000") int limit) {
+        return new JournalResponse(journal.getCapacity(), journal.getSampleEvery(), journal.getRecorded(),
+                journal.dump(limit));
+    }
+}
@@ -0,0 +1,91 @@
+package team.brown.sharding.master.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import team.brown.sharding.master.load.LoadMap;
+import team.brown.sharding.master.load.Rebalancer;
+import team.brown.sharding.master.model.CommonResponse;
+import team.brown.sharding.master.model.LoadReport;
+import team.brown.sharding.master.model.LoadResponse;
+import team.brown.sharding.master.model.RebalanceResponse;
+import team.brown.sharding.master.node.SchemaVersionConflictException;
+
+/**
+ * Контроллер нагрузки узлов хранения и ребалансировки по ней.
+ */
+@Slf4j
+@RestController
+@Tag(name = "load", description = "Нагрузка и ребалансировка")
+@RequiredArgsConstructor
+public class LoadController {
+
+    private final LoadMap loadMap;
+    private final Rebalancer rebalancer;
+
+    /**
+     * Принимает отчёт узла хранения о нагрузке его диапазонов.
+     *
+     * @param report отчёт о нагрузке
+     * @return ответ с сообщением
+     */
+    @Operation(summary = "Отчёт о нагрузке", description = "Принять статистику диапазонов от узла хранения")
+    @PostMapping("/load")
+    public CommonResponse report(@RequestBody @Valid LoadReport report) {
+        loadMap.report(report);
+        return new CommonResponse("done");
+    }
+
+    /**
+     * Возвращает сводную нагрузку узлов.
+     *
+     * @return нагрузка по узлам
+     */
+    @Operation(summary = "Нагрузка узлов", description = "Получить нагрузку узлов по последним отчётам")
+    @GetMapping("/load")
+    public LoadResponse load() {
+        return new LoadResponse(loadMap.nodeLoads());
+    }
+
+    /**
+     * Предлагает изменения весов, не применяя их.
+     *
+     * @return план ребалансировки
+     */
+    @Operation(summary = "План ребалансировки", description = "Предложить веса узлов по текущей нагрузке")
+    @GetMapping("/rebalance/plan")
+    public RebalanceResponse plan() {
+        return RebalanceResponse.from(rebalancer.propose());
+    }
+
+    /**
+     * Применяет план ребалансировки.
+     *
+     * @return применённый план
+     */
+    @Operation(summary = "Ребалансировать", description = "Изменить веса узлов по текущей нагрузке")
+    @PostMapping("/rebalance")
+    public RebalanceResponse rebalance() {
+        log.info("Rebalance requested");
+        return RebalanceResponse.from(rebalancer.rebalance());
+    }
+
+    /**
+     * Схема изменилась, пока строился план: 409, план нужно построить заново.
+     */
+    @ExceptionHandler(SchemaVersionConflictException.class)
+    public ResponseEntity<CommonResponse> conflict(SchemaVersionConflictException e) {
+        log.info("Reject stale rebalance plan: expectedVersion={}, actualVersion={}",
+                e.getExpectedVersion(), e.getActualVersion());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new CommonResponse(e.getMessage()));
+    }
+}
@@ -1,22 +1,34 @@
 package team.brown.sharding.master.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import team.brown.sharding.master.model.ChangeShardRequest;
 import team.brown.sharding.master.model.CommonResponse;
 import team.brown.sharding.master.model.NodeRequest;
+import team.brown.sharding.master.model.SchemaBatchRequest;
+import team.brown.sharding.master.model.SchemaDeltaResponse;
 import team.brown.sharding.master.model.SchemaResponse;
+import team.brown.sharding.master.model.WeightRequest;
 import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaEncoder;
+import team.brown.sharding.master.node.SchemaSnapshot;
 import team.brown.sharding.master.node.ServerNode;
 
 import java.util.List;
@@ -33,18 +45,113 @@ public class MasterController {
 
     // Экземпляр мастер-узла, управляющего шардированием
     private final MasterNode masterNode;
+    /**
+     * Заголовок ответа с кольцом, пока идёт миграция к нему: стабильная версия схемы
+     */
+    static final String MIGRATING_HEADER = "X-Schema-Migrating-From";
+
+    // Закешированные по версиям представления схемы
+    private final SchemaEncoder schemaEncoder;
 
     /**
      * Возвращает схему узлов (адреса) в порядке хеширования.
+     * Поддерживает условный запрос: если If-None-Match совпадает с версией схемы, отвечает 304.
+     * Во время миграции тег включает и число подтверждённых переносов, чтобы клиенты видели,
+     * какие диапазоны уже читаются с новых владельцев.
+     * Тело отдаётся готовыми байтами, отрендеренными один раз на версию.
      *
-     * @return схема узлов
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return схема узлов ({@link SchemaResponse} в JSON)
      */
     @Operation(summary = "Обновить схему", description = "Получить схему узлов")
-    @GetMapping("/scheme")
-    public SchemaResponse refreshSchema() {
-        log.info("Refresh schema");
-        var nodes = masterNode.getNodes();
-        return new SchemaResponse(nodes, masterNode.getVirtualNodes(), masterNode.getVersion());
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = SchemaResponse.class)))
+    @GetMapping(value = "/scheme", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> refreshSchema(WebRequest request) {
+        log.debug("Refresh schema");
+        var snapshot = masterNode.getSnapshot();
+        String eTag = eTag(snapshot);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(schemaEncoder.json(snapshot));
+    }
+
+    /**
+     * Возвращает изменения схемы начиная с версии клиента.
+     *
+     * @param sinceVersion версия схемы, известная клиенту
+     * @param request      текущий запрос (для проверки If-None-Match)
+     * @return добавленные, удалённые и изменённые узлы
+     */
+    @Operation(summary = "Изменения схемы", description = "Получить изменения схемы с указанной версии")
+    @GetMapping(value = "/scheme", params = "sinceVersion")
+    public ResponseEntity<SchemaDeltaResponse> schemaDelta(@RequestParam("sinceVersion") int sinceVersion,
+                                                           WebRequest request) {
+        log.debug("Schema delta: sinceVersion={}", sinceVersion);
+        var delta = masterNode.getDelta(sinceVersion);
+        var snapshot = delta.snapshot();
+        String eTag = eTag(snapshot);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        var response = new SchemaDeltaResponse(
+                delta.fromVersion(),
+                snapshot.getVersion(),
+                delta.reset(),
+                delta.added(),
+                delta.removed().stream().map(ServerNode::getAddress).collect(Collectors.toSet()),
+                delta.updated(),
+                snapshot.getVirtualNodes(),
+                snapshot.getHashFunction(),
+                snapshot.getPlacement(),
+                SchemaResponse.Migration.of(snapshot)
+        );
+        return ResponseEntity.ok().eTag(eTag).body(response);
+    }
+
+    /**
+     * Возвращает кольцо текущей версии в компактном бинарном формате
+     * ({@link team.brown.sharding.master.hash.RingBinaryCodec}).
+     * Клиент маршрутизирует по нему бинарным поиском, не восстанавливая кольцо сам.
+     * <p>
+     * Во время миграции это новое кольцо, данные которого ещё не на местах: ответ несёт заголовок
+     * {@value #MIGRATING_HEADER} со стабильной версией, а переносимые диапазоны нужно брать
+     * из GET /scheme/migration и читать их с прежних владельцев.
+     *
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return бинарное представление кольца
+     */
+    @Operation(summary = "Кольцо схемы", description = "Получить кольцо текущей версии в бинарном формате")
+    @GetMapping(value = "/scheme/ring", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> ring(WebRequest request) {
+        log.debug("Export ring");
+        var snapshot = masterNode.getSnapshot();
+        String eTag = eTag(snapshot);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        var response = ResponseEntity.ok().eTag(eTag);
+        if (snapshot.isMigrating()) {
+            response.header(MIGRATING_HEADER, String.valueOf(snapshot.getHandoff().getStableVersion()));
+        }
+        return response.body(schemaEncoder.ring(snapshot));
+    }
+
+    /**
+     * Возвращает текущее состояние миграции: диапазоны, которые ещё читаются с прежних владельцев.
+     * Дополняет бинарное кольцо, в котором состояния миграции нет.
+     *
+     * @return состояние миграции или 204, если данные уже на местах
+     */
+    @Operation(summary = "Состояние миграции схемы",
+            description = "Получить переносимые диапазоны текущей версии; 204, если миграции нет")
+    @GetMapping("/scheme/migration")
+    public ResponseEntity<SchemaResponse.Migration> migration() {
+        var migration = SchemaResponse.Migration.of(masterNode.getSnapshot());
+        return migration == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(migration);
     }
 
     /**
@@ -57,11 +164,31 @@ public class MasterController {
     @PostMapping("/scheme")
     public CommonResponse addNode(@RequestBody @Valid NodeRequest request) {
         log.info("Add node: request={}", request);
-        ServerNode node = new ServerNode(request.address());
+        ServerNode node = new ServerNode(request.address(),
+                request.weight() == null ? ServerNode.DEFAULT_WEIGHT : request.weight());
         boolean added = masterNode.addServer(node);
         return new CommonResponse(added ? "done" : "node already exists");
     }
 
+    /**
+     * Применяет несколько изменений состава одной версией схемы: кольцо перестраивается один раз,
+     * данные переносятся одним планом от старого кольца к итоговому.
+     *
+     * @param request удаляемые и добавляемые узлы и новое количество шардов
+     * @return ответ с сообщением
+     */
+    @Operation(summary = "Пакет изменений", description = "Добавить и удалить несколько узлов за одну перестройку кольца")
+    @PostMapping("/scheme/batch")
+    public CommonResponse applyBatch(@RequestBody @Valid SchemaBatchRequest request) {
+        log.info("Apply batch: request={}", request);
+        List<ServerNode> added = request.add().stream()
+                .map(node -> new ServerNode(node.address(),
+                        node.weight() == null ? ServerNode.DEFAULT_WEIGHT : node.weight()))
+                .toList();
+        boolean changed = masterNode.applyBatch(added, request.remove(), request.shardCount());
+        return new CommonResponse(changed ? "done" : "no changes");
+    }
+
     /**
      * Удаляет узел из пула по его адресу.
      *
@@ -77,6 +204,23 @@ public class MasterController {
         return new CommonResponse(removed ? "done" : "node not found");
     }
 
+    /**
+     * Меняет вес узла: число его виртуальных узлов становится пропорционально весу,
+     * переносятся только диапазоны добавленных или удалённых виртуальных узлов.
+     *
+     * @param server  адрес узла
+     * @param request новый вес
+     * @return ответ с сообщением
+     */
+    @Operation(summary = "Изменить вес узла", description = "Изменить ёмкость узла и его долю виртуальных узлов")
+    @PutMapping("/scheme/{server}/weight")
+    public CommonResponse updateWeight(@PathVariable("server") String server,
+                                       @RequestBody @Valid WeightRequest request) {
+        log.info("Update weight: server={}, request={}", server, request);
+        boolean updated = masterNode.updateWeight(server, request.weight());
+        return new CommonResponse(updated ? "done" : "node not found or weight unchanged");
+    }
+
     /**
      * Обновляет число шардов (виртуальных узлов) в кластере.
      * @param request запрос с новым количеством шардов
@@ -89,4 +233,18 @@ public class MasterController {
         masterNode.updateShardCount(request.shardCount());
         return new CommonResponse("done");
     }
+
+    /**
+     * Тег содержимого схемы, общий для всех её представлений: версия, а во время миграции
+     * ещё и число подтверждённых переносов, от которого зависит список переносимых диапазонов.
+     *
+     * @param snapshot снимок схемы
+     * @return значение заголовка ETag
+     */
+    static String eTag(SchemaSnapshot snapshot) {
+        if (!snapshot.isMigrating()) {
+            return "\"" + snapshot.getVersion() + "\"";
+        }
+        return "\"" + snapshot.getVersion() + "-" + snapshot.getHandoff().getConfirmed() + "\"";
+    }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package team.brown.sharding.master.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import team.brown.sharding.master.migration.MigrationExecutor;
+import team.brown.sharding.master.migration.MigrationJob;
+import team.brown.sharding.master.migration.MigrationLimits;
+import team.brown.sharding.master.model.CommonResponse;
+import team.brown.sharding.master.model.MigrationProgressResponse;
+import team.brown.sharding.master.node.MasterNode;
+
+import java.util.List;
+
+/**
+ * Контроллер для наблюдения за миграцией данных между узлами.
+ */
+@RestController
+@Tag(name = "migration", description = "API миграции данных")
+@RequiredArgsConstructor
+public class MigrationController {
+
+    private final MigrationExecutor migrationExecutor;
+    private final MasterNode masterNode;
+
+    /**
+     * Возвращает прогресс последней миграции по каждому узлу.
+     *
+     * @return прогресс миграции
+     */
+    @Operation(summary = "Прогресс миграции", description = "Получить прогресс миграции по узлам")
+    @GetMapping("/migration/progress")
+    public MigrationProgressResponse progress() {
+        var progress = migrationExecutor.getProgress();
+        return new MigrationProgressResponse(progress.getVersion(), progress.snapshot());
+    }
+
+    /**
+     * Возвращает действующие ограничения скорости миграции.
+     *
+     * @return ограничения скорости
+     */
+    @Operation(summary = "Ограничения скорости миграции", description = "Получить ограничения скорости миграции")
+    @GetMapping("/migration/limits")
+    public MigrationLimits limits() {
+        return migrationExecutor.getThrottle().getLimits();
+    }
+
+    /**
+     * Меняет ограничения скорости миграции, в том числе для выполняющейся миграции.
+     *
+     * @param limits новые ограничения; 0 - без ограничения
+     * @return действующие ограничения скорости
+     */
+    @Operation(summary = "Изменить ограничения скорости миграции",
+            description = "Задать ограничения скорости миграции; действуют и на выполняющуюся миграцию")
+    @PutMapping("/migration/limits")
+    public MigrationLimits setLimits(@Valid @RequestBody MigrationLimits limits) {
+        migrationExecutor.getThrottle().setLimits(limits);
+        return migrationExecutor.getThrottle().getLimits();
+    }
+
+    /**
+     * Возвращает незавершённые задания миграции.
+     *
+     * @return сводки заданий по возрастанию версий
+     */
+    @Operation(summary = "Незавершённые задания миграции",
+            description = "Получить задания миграции, которые ещё не выполнены полностью")
+    @GetMapping("/migration/jobs")
+    public List<MigrationJob.Summary> jobs() {
+        return migrationExecutor.getJobs();
+    }
+
+    /**
+     * Продолжает незавершённые задания миграции и дожидается их выполнения.
+     *
+     * @return результат
+     */
+    @Operation(summary = "Продолжить миграцию",
+            description = "Повторить невыполненные переносы незавершённых заданий миграции")
+    @PostMapping("/migration/jobs/resume")
+    public CommonResponse resume() {
+        masterNode.resumeMigrations();
+        return new CommonResponse("done");
+    }
+}
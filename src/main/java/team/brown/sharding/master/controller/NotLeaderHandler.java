@@ -0,0 +1,26 @@
+package team.brown.sharding.master.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import team.brown.sharding.master.model.CommonResponse;
+import team.brown.sharding.master.node.NotLeaderException;
+
+/**
+ * Ответ на изменение схемы, отправленное ведомому мастеру: 409 с адресом ведущего.
+ */
+@Slf4j
+@RestControllerAdvice
+public class NotLeaderHandler {
+
+    @ExceptionHandler(NotLeaderException.class)
+    public ResponseEntity<CommonResponse> notLeader(NotLeaderException e) {
+        log.info("Reject schema change on follower: leaderUrl={}", e.getLeaderUrl());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.LOCATION, e.getLeaderUrl())
+                .body(new CommonResponse("not a leader, send schema changes to " + e.getLeaderUrl()));
+    }
+}
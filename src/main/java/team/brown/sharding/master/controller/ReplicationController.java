@@ -0,0 +1,48 @@
+package team.brown.sharding.master.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import team.brown.sharding.master.model.ReplicationResponse;
+import team.brown.sharding.master.replication.ReplicationService;
+
+/**
+ * Журнал изменений схемы для ведомых мастеров (long-poll).
+ */
+@RestController
+@Tag(name = "replication", description = "Репликация схемы между мастерами")
+@RequiredArgsConstructor
+public class ReplicationController {
+    private static final long MAX_TIMEOUT_MS = 120_000;
+
+    private final ReplicationService replicationService;
+
+    /**
+     * Ожидает изменения схемы после версии ведомого.
+     *
+     * @param sinceVersion версия ведомого (0 - полная синхронизация)
+     * @param timeoutMs    сколько ждать, мс (не больше 120 секунд)
+     * @return изменения или полный снимок; 304, если за время ожидания схема не изменилась
+     */
+    @Operation(summary = "Журнал схемы", description = "Получить изменения схемы после версии ведомого мастера")
+    @GetMapping("/replication/log")
+    public DeferredResult<ResponseEntity<ReplicationResponse>> changes(
+            @RequestParam("sinceVersion") int sinceVersion,
+            @RequestParam(value = "timeoutMs", defaultValue = "30000") long timeoutMs) {
+        long timeout = Math.max(1, Math.min(timeoutMs, MAX_TIMEOUT_MS));
+        DeferredResult<ResponseEntity<ReplicationResponse>> result = new DeferredResult<>(
+                timeout,
+                () -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).build()
+        );
+        var future = replicationService.changesSince(sinceVersion);
+        future.thenAccept(response -> result.setResult(ResponseEntity.ok(response)));
+        result.onCompletion(() -> future.cancel(false));
+        return result;
+    }
+}
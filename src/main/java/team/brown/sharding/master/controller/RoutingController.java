@@ -0,0 +1,38 @@
+package team.brown.sharding.master.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import team.brown.sharding.master.model.RouteRequest;
+import team.brown.sharding.master.model.RouteResponse;
+import team.brown.sharding.master.routing.RoutingService;
+
+/**
+ * Контроллер маршрутизации ключей для клиентов без собственного кольца.
+ */
+@Slf4j
+@RestController
+@Tag(name = "routing", description = "Маршрутизация ключей")
+@RequiredArgsConstructor
+public class RoutingController {
+
+    private final RoutingService routingService;
+
+    /**
+     * Находит узлы-владельцы для пачки ключей.
+     *
+     * @param request ключи и способ группировки
+     * @return версия схемы и адреса узлов
+     */
+    @Operation(summary = "Маршрутизировать ключи", description = "Найти узлы-владельцы для пачки ключей")
+    @PostMapping("/route")
+    public RouteResponse route(@RequestBody @Valid RouteRequest request) {
+        log.debug("Route keys: count={}", request.keys().size());
+        return routingService.route(request.keys(), Boolean.TRUE.equals(request.groupByNode()));
+    }
+}
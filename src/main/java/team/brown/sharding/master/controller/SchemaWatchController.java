@@ -0,0 +1,68 @@
+package team.brown.sharding.master.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import team.brown.sharding.master.model.SchemaResponse;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaEncoder;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.SchemaWatchService;
+
+/**
+ * Long-poll наблюдение за схемой: запрос висит асинхронно, не занимая поток сервлета,
+ * пока не будет опубликована версия новее известной клиенту или не истечёт таймаут.
+ */
+@RestController
+@Tag(name = "main", description = "API мастер-узла")
+@RequiredArgsConstructor
+public class SchemaWatchController {
+    private static final long MAX_TIMEOUT_MS = 120_000;
+
+    private final SchemaWatchService schemaWatchService;
+    private final MasterNode masterNode;
+    private final SchemaEncoder schemaEncoder;
+
+    /**
+     * Ожидает новую версию схемы.
+     *
+     * @param knownVersion версия, известная клиенту
+     * @param timeoutMs    сколько ждать, мс (не больше 120 секунд)
+     * @return новая схема ({@link SchemaResponse} в JSON) или 304, если за время ожидания она не изменилась
+     */
+    @Operation(summary = "Ожидать схему", description = "Дождаться версии схемы новее известной клиенту")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = SchemaResponse.class)))
+    @GetMapping(value = "/scheme/watch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<ResponseEntity<byte[]>> watch(
+            @RequestParam("knownVersion") int knownVersion,
+            @RequestParam(value = "timeoutMs", defaultValue = "30000") long timeoutMs) {
+        long timeout = Math.max(1, Math.min(timeoutMs, MAX_TIMEOUT_MS));
+        DeferredResult<ResponseEntity<byte[]>> result = new DeferredResult<>(timeout, () -> {
+            SchemaSnapshot current = masterNode.getSnapshot();
+            return current.getVersion() > knownVersion
+                    ? schema(current)
+                    : ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(MasterController.eTag(current)).build();
+        });
+        var future = schemaWatchService.watch(knownVersion);
+        future.thenAccept(snapshot -> result.setResult(schema(snapshot)));
+        result.onCompletion(() -> future.cancel(false));
+        return result;
+    }
+
+    private ResponseEntity<byte[]> schema(SchemaSnapshot snapshot) {
+        return ResponseEntity.ok()
+                .eTag(MasterController.eTag(snapshot))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(schemaEncoder.json(snapshot));
+    }
+}
@@ -0,0 +1,18 @@
+package team.brown.sharding.master.grpc;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.node.MasterNode;
+
+/**
+ * Закрывает каналы {@link GrpcMigrationClient} к узлам, покинувшим схему.
+ * Отдельный компонент, потому что мастер сам зависит от клиента миграции через исполнителя.
+ */
+@Component
+@ConditionalOnProperty(name = "migration.transport", havingValue = "grpc")
+public class GrpcChannelReleaser {
+
+    public GrpcChannelReleaser(MasterNode masterNode, GrpcMigrationClient client) {
+        masterNode.addSchemaListener(client::releaseRemovedNodes);
+    }
+}
@@ -0,0 +1,289 @@
+package team.brown.sharding.master.grpc;
+
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.grpc.proto.MigrationAck;
+import team.brown.sharding.master.grpc.proto.MigrationBatch;
+import team.brown.sharding.master.grpc.proto.Range;
+import team.brown.sharding.master.grpc.proto.StorageMigrationGrpc;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * gRPC-клиент миграции: команды отправляются узлу-источнику потоком пакетов диапазонов
+ * по долгоживущему HTTP/2 каналу, подтверждения приходят встречным потоком.
+ * <p>
+ * Если узел не поддерживает сервис миграции или недоступен по gRPC,
+ * команда повторяется через JSON-клиент {@link RestClientImpl}, и дальше этот узел получает команды
+ * сразу по REST, пока не покинет схему.
+ * <p>
+ * Канал к узлу закрывается, когда узел выходит из схемы и миграция с него завершена.
+ * <p>
+ * Таймауты те же, что у JSON-клиента: каждое следующее подтверждение должно прийти
+ * за {@code http.client.storage-timeout-ms}, весь поток - за {@code http.client.deadline-ms}.
+ * Иначе вызов отменяется, и перенос повторяется исполнителем миграции.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "migration.transport", havingValue = "grpc")
+public class GrpcMigrationClient implements RestClient, DisposableBean {
+    private static final Set<Status.Code> FALLBACK_CODES = Set.of(Status.Code.UNIMPLEMENTED, Status.Code.UNAVAILABLE);
+
+    private final Function<String, ManagedChannel> channelFactory;
+    private final RestClient fallback;
+    private final int batchSize;
+    private final long ackTimeoutMillis;
+    private final long deadlineMillis;
+    // Один канал на узел хранения, переиспользуется всеми миграциями
+    private final Map<String, ManagedChannel> channels = new ConcurrentHashMap<>();
+    // Узлы без сервиса миграции по gRPC: команды им сразу идут по REST
+    private final Set<String> restOnly = ConcurrentHashMap.newKeySet();
+    private final AtomicLong batchIds = new AtomicLong();
+
+    @Autowired
+    public GrpcMigrationClient(RestClientImpl fallback,
+                               @Value("${migration.grpc.port-offset:-1000}") int portOffset,
+                               @Value("${migration.grpc.batch-size:1024}") int batchSize,
+                               @Value("${http.client.storage-timeout-ms:10000}") long ackTimeoutMillis,
+                               @Value("${http.client.deadline-ms:30000}") long deadlineMillis) {
+        this(address -> ManagedChannelBuilder.forTarget(grpcTarget(address, portOffset))
+                        .usePlaintext()
+                        .keepAliveTime(30, TimeUnit.SECONDS)
+                        .build(),
+                fallback, batchSize, ackTimeoutMillis, deadlineMillis);
+    }
+
+    GrpcMigrationClient(Function<String, ManagedChannel> channelFactory,
+                        RestClient fallback,
+                        int batchSize,
+                        long ackTimeoutMillis,
+                        long deadlineMillis) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("gRPC migration batch size must be positive");
+        }
+        if (ackTimeoutMillis <= 0 || deadlineMillis <= 0) {
+            throw new IllegalArgumentException("gRPC migration timeouts must be positive");
+        }
+        this.channelFactory = channelFactory;
+        this.fallback = fallback;
+        this.batchSize = batchSize;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Адрес gRPC-сервера узла: тот же хост, порт REST со смещением.
+     *
+     * @param address    адрес узла (host:port или http://host:port)
+     * @param portOffset смещение порта gRPC относительно порта REST
+     * @return цель для ManagedChannelBuilder
+     */
+    static String grpcTarget(String address, int portOffset) {
+        URI uri = URI.create(address.contains("://") ? address : "http://" + address);
+        int port = uri.getPort() == -1 ? 80 : uri.getPort();
+        return uri.getHost() + ":" + (port + portOffset);
+    }
+
+    @Override
+    public void migrateRangeDirectly(ServerNode sourceNode, ServerNode targetNode, int start, int end, int version) {
+        migrateRangesDirectly(sourceNode, targetNode, List.of(new HashRange(start, end)), version);
+    }
+
+    @Override
+    public void migrateRangesDirectly(ServerNode sourceNode,
+                                      ServerNode targetNode,
+                                      List<HashRange> ranges,
+                                      int version) {
+        if (restOnly.contains(sourceNode.getAddress())) {
+            fallback.migrateRangesDirectly(sourceNode, targetNode, ranges, version);
+            return;
+        }
+        log.info("Migrate ranges via gRPC: sourceNode={}, targetNode={}, ranges={}",
+                sourceNode, targetNode, ranges.size());
+        try {
+            stream(sourceNode, targetNode, ranges, version);
+        } catch (StatusRuntimeException e) {
+            if (!FALLBACK_CODES.contains(e.getStatus().getCode())) {
+                throw e;
+            }
+            log.warn("gRPC migration is not available on {} ({}), using REST for this node",
+                    sourceNode, e.getStatus().getCode());
+            restOnly.add(sourceNode.getAddress());
+            close(sourceNode.getAddress());
+            fallback.migrateRangesDirectly(sourceNode, targetNode, ranges, version);
+        }
+    }
+
+    private void stream(ServerNode sourceNode, ServerNode targetNode, List<HashRange> ranges, int version) {
+        int batches = (ranges.size() + batchSize - 1) / batchSize;
+        AckObserver acks = new AckObserver(batches);
+        var stub = StorageMigrationGrpc.newStub(channel(sourceNode))
+                .withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS);
+        StreamObserver<MigrationBatch> requests = stub.migrate(acks);
+        try {
+            for (int from = 0; from < ranges.size(); from += batchSize) {
+                MigrationBatch.Builder batch = MigrationBatch.newBuilder()
+                        .setBatchId(batchIds.incrementAndGet())
+                        .setTargetAddress(targetNode.getAddress())
+                        .setVersion(version);
+                for (HashRange range : ranges.subList(from, Math.min(from + batchSize, ranges.size()))) {
+                    batch.addRanges(Range.newBuilder().setStart(range.getStart()).setEnd(range.getEnd()));
+                }
+                requests.onNext(batch.build());
+            }
+            requests.onCompleted();
+        } catch (RuntimeException e) {
+            requests.onError(e);
+            throw e;
+        }
+        try {
+            acks.await(ackTimeoutMillis, deadlineMillis);
+        } catch (StatusRuntimeException e) {
+            // Зависший узел не должен держать поток до дедлайна канала
+            requests.onError(e);
+            throw e;
+        }
+    }
+
+    private ManagedChannel channel(ServerNode node) {
+        return channels.computeIfAbsent(node.getAddress(), channelFactory);
+    }
+
+    /**
+     * Закрывает каналы узлов, покинувших схему. Пока идёт миграция, ушедший узел ещё отдаёт данные,
+     * поэтому каналы закрываются только в стабильной схеме.
+     *
+     * @param snapshot опубликованный снимок
+     * @see GrpcChannelReleaser
+     */
+    void releaseRemovedNodes(SchemaSnapshot snapshot) {
+        if (snapshot.isMigrating()) {
+            return;
+        }
+        Set<String> addresses = snapshot.getNodes().stream().map(ServerNode::getAddress).collect(Collectors.toSet());
+        channels.keySet().stream().filter(address -> !addresses.contains(address)).toList().forEach(this::close);
+        // Узел, вернувшийся в схему, снова пробуется по gRPC
+        restOnly.retainAll(addresses);
+    }
+
+    /**
+     * @return количество открытых каналов
+     */
+    int getChannelCount() {
+        return channels.size();
+    }
+
+    private void close(String address) {
+        ManagedChannel channel = channels.remove(address);
+        if (channel != null) {
+            channel.shutdown();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        channels.values().forEach(ManagedChannel::shutdown);
+        channels.clear();
+    }
+
+    /**
+     * Собирает подтверждения пакетов и завершается, когда подтверждены все пакеты.
+     */
+    private static final class AckObserver implements StreamObserver<MigrationAck> {
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final int expected;
+        private int acknowledged;
+
+        AckObserver(int expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        public synchronized void onNext(MigrationAck ack) {
+            if (!ack.getSuccess()) {
+                done.completeExceptionally(new IllegalStateException(
+                        "Migration batch " + ack.getBatchId() + " rejected: " + ack.getError()));
+                return;
+            }
+            acknowledged++;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            done.completeExceptionally(t);
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            if (acknowledged < expected) {
+                done.completeExceptionally(new IllegalStateException(
+                        "Stream closed after " + acknowledged + " of " + expected + " acknowledgements"));
+            } else {
+                done.complete(null);
+            }
+        }
+
+        private synchronized int acknowledged() {
+            return acknowledged;
+        }
+
+        /**
+         * Ждёт все подтверждения.
+         *
+         * @param idleMillis     сколько ждать следующего подтверждения
+         * @param deadlineMillis сколько ждать всех подтверждений
+         * @throws StatusRuntimeException DEADLINE_EXCEEDED, если подтверждения не пришли вовремя
+         */
+        void await(long idleMillis, long deadlineMillis) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+            int seen = acknowledged();
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                try {
+                    done.get(Math.min(TimeUnit.MILLISECONDS.toNanos(idleMillis), remaining), TimeUnit.NANOSECONDS);
+                    return;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw new IllegalStateException(e.getCause());
+                } catch (TimeoutException e) {
+                    int progress = acknowledged();
+                    if (progress == seen || deadline - System.nanoTime() <= 0) {
+                        throw Status.DEADLINE_EXCEEDED
+                                .withDescription("Acknowledged " + progress + " of " + expected + " batches in time")
+                                .asRuntimeException();
+                    }
+                    seen = progress;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for acknowledgements", e);
+                }
+            }
+        }
+    }
+}
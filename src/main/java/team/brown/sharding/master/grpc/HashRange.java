@@ -3,6 +3,10 @@ package team.brown.sharding.master.grpc;
 import lombok.Builder;
 import lombok.experimental.Accessors;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -54,6 +58,25 @@ public class HashRange implements Comparable<HashRange> {
         return this.start <= other.end && this.end >= other.start;
     }
 
+    /**
+     * Проверяет, примыкает ли другой диапазон вплотную к этому (без зазора и без пересечения).
+     *
+     * @param other другой диапазон
+     * @return true если один диапазон начинается сразу после конца другого
+     */
+    public boolean isAdjacent(HashRange other) {
+        return (long) this.end + 1 == other.start || (long) other.end + 1 == this.start;
+    }
+
+    /**
+     * Проверяет, переходит ли диапазон через конец кольца (start > end).
+     *
+     * @return true если диапазон "заворачивается" через Integer.MAX_VALUE
+     */
+    public boolean isWrapped() {
+        return start > end;
+    }
+
     /**
      * Сравнивает диапазоны по начальному значению.
      * Используется для сортировки.
@@ -87,12 +110,49 @@ public class HashRange implements Comparable<HashRange> {
      * @param a первый диапазон
      * @param b второй диапазон
      * @return новый объединенный диапазон
-     * @throws IllegalArgumentException если диапазоны не пересекаются
+     * @throws IllegalArgumentException если диапазоны не пересекаются и не примыкают друг к другу
      */
     public static HashRange merge(HashRange a, HashRange b) {
-        if (!a.overlaps(b)) {
+        if (!a.overlaps(b) && !a.isAdjacent(b)) {
             throw new IllegalArgumentException("Ranges do not overlap");
         }
         return new HashRange(Math.min(a.start, b.start), Math.max(a.end, b.end));
     }
+
+    /**
+     * Нормализует набор диапазонов: разворачивает диапазоны через конец кольца,
+     * убирает дубликаты и сливает пересекающиеся и соседние диапазоны.
+     *
+     * @param ranges исходные диапазоны
+     * @return непересекающиеся диапазоны, отсортированные по началу
+     */
+    public static List<HashRange> coalesce(Collection<HashRange> ranges) {
+        List<HashRange> sorted = new ArrayList<>(ranges.size() + 1);
+        for (HashRange range : ranges) {
+            if (range.isWrapped()) {
+                sorted.add(new HashRange(range.start, Integer.MAX_VALUE));
+                sorted.add(new HashRange(Integer.MIN_VALUE, range.end));
+            } else {
+                sorted.add(range);
+            }
+        }
+        Collections.sort(sorted);
+
+        List<HashRange> result = new ArrayList<>();
+        HashRange current = null;
+        for (HashRange range : sorted) {
+            if (current == null) {
+                current = range;
+            } else if (current.overlaps(range) || current.isAdjacent(range)) {
+                current = merge(current, range);
+            } else {
+                result.add(current);
+                current = range;
+            }
+        }
+        if (current != null) {
+            result.add(current);
+        }
+        return result;
+    }
 }
\ No newline at end of file
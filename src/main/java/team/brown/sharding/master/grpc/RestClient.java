@@ -2,6 +2,23 @@ package team.brown.sharding.master.grpc;
 
 import team.brown.sharding.master.node.ServerNode;
 
+import java.util.List;
+
 public interface RestClient {
     void migrateRangeDirectly(ServerNode sourceNode, ServerNode targetNode, int start, int end, int version);
-}
\ No newline at end of file
+
+    /**
+     * Переносит несколько диапазонов с одного узла на другой.
+     * По умолчанию отправляет по одной команде на диапазон.
+     *
+     * @param sourceNode узел-источник
+     * @param targetNode узел-получатель
+     * @param ranges     непересекающиеся диапазоны
+     * @param version    версия схемы
+     */
+    default void migrateRangesDirectly(ServerNode sourceNode, ServerNode targetNode, List<HashRange> ranges, int version) {
+        for (HashRange range : ranges) {
+            migrateRangeDirectly(sourceNode, targetNode, range.getStart(), range.getEnd(), version);
+        }
+    }
+}
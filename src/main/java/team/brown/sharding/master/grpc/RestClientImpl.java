@@ -1,22 +1,66 @@
 package team.brown.sharding.master.grpc;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import team.brown.sharding.master.journal.EventJournal;
+import team.brown.sharding.master.model.BatchMigrationRequest;
 import team.brown.sharding.master.model.MigrationRequest;
 import team.brown.sharding.master.node.ServerNode;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * JSON-клиент миграции поверх {@link HttpClient}: постоянные соединения к узлам, HTTP/2,
+ * асинхронные вызовы.
+ * <p>
+ * Узел должен начать отвечать за {@code http.client.storage-timeout-ms}, а ответ целиком должен прийти
+ * за {@code http.client.deadline-ms} от отправки. Обмен, не уложившийся в срок, отменяется вместе
+ * с соединением, поэтому зависший узел хранения не держит миграцию (и блокировку схемы) дольше срока.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class RestClientImpl implements RestClient {
-    private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    // Отправлять все диапазоны пары (источник, получатель) одним запросом
+    private final boolean batchRequests;
+    private final Duration responseTimeout;
+    private final Duration deadline;
+    private final EventJournal journal;
     private final String migrationEndpoint = "/storage/direct";
+    private final String batchMigrationEndpoint = "/storage/direct/batch";
+
+    @Autowired
+    public RestClientImpl(HttpClient httpClient,
+                          ObjectMapper objectMapper,
+                          @Value("${migration.batch-requests:true}") boolean batchRequests,
+                          @Value("${http.client.storage-timeout-ms:10000}") long responseTimeoutMillis,
+                          @Value("${http.client.deadline-ms:30000}") long deadlineMillis,
+                          EventJournal journal) {
+        if (responseTimeoutMillis < 1 || deadlineMillis < 1) {
+            throw new IllegalArgumentException("http.client.storage-timeout-ms and http.client.deadline-ms must be positive");
+        }
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.batchRequests = batchRequests;
+        this.responseTimeout = Duration.ofMillis(Math.min(responseTimeoutMillis, deadlineMillis));
+        this.deadline = Duration.ofMillis(deadlineMillis);
+        this.journal = journal;
+    }
 
     @Override
     public void migrateRangeDirectly(ServerNode sourceNode,
@@ -24,12 +68,30 @@ public class RestClientImpl implements RestClient {
                                      int startHash,
                                      int endHash,
                                      int version) {
-        log.info("Migrate range: sourceNode={}, targetNode={}, startHash={}, endHash={}",
-            sourceNode, targetNode, startHash, endHash);
-        String url = buildMigrationUrl(sourceNode);
+        await(migrateRangeDirectlyAsync(sourceNode, targetNode, startHash, endHash, version));
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+    @Override
+    public void migrateRangesDirectly(ServerNode sourceNode,
+                                      ServerNode targetNode,
+                                      List<HashRange> ranges,
+                                      int version) {
+        await(migrateRangesDirectlyAsync(sourceNode, targetNode, ranges, version));
+    }
+
+    /**
+     * Асинхронно переносит диапазон с одного узла на другой.
+     *
+     * @return future, завершающееся ответом узла-источника или ошибкой
+     */
+    public CompletableFuture<Void> migrateRangeDirectlyAsync(ServerNode sourceNode,
+                                                             ServerNode targetNode,
+                                                             int startHash,
+                                                             int endHash,
+                                                             int version) {
+        // Вызывается на каждый диапазон, поэтому пишется в журнал, а не в лог
+        journal.sample("migrate.range", sourceNode.getAddress(), startHash, endHash);
+        String url = buildMigrationUrl(sourceNode, migrationEndpoint);
 
         MigrationRequest request = new MigrationRequest(
                 targetNode.getAddress(),
@@ -38,21 +100,91 @@ public class RestClientImpl implements RestClient {
                 version
         );
 
-        HttpEntity<MigrationRequest> entity = new HttpEntity<>(request, headers);
+        return post(url, request);
+    }
 
-        restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                entity,
-                Void.class
+    /**
+     * Асинхронно переносит несколько диапазонов с одного узла на другой.
+     *
+     * @return future, завершающееся после ответов на все команды или первой ошибкой
+     */
+    public CompletableFuture<Void> migrateRangesDirectlyAsync(ServerNode sourceNode,
+                                                              ServerNode targetNode,
+                                                              List<HashRange> ranges,
+                                                              int version) {
+        if (!batchRequests || ranges.size() == 1) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            // Команды по одному диапазону идут последовательно, как и раньше
+            for (HashRange range : ranges) {
+                chain = chain.thenCompose(ignored -> migrateRangeDirectlyAsync(
+                        sourceNode, targetNode, range.getStart(), range.getEnd(), version));
+            }
+            return chain;
+        }
+        log.info("Migrate ranges: sourceNode={}, targetNode={}, ranges={}",
+            sourceNode, targetNode, ranges.size());
+        String url = buildMigrationUrl(sourceNode, batchMigrationEndpoint);
+
+        BatchMigrationRequest request = new BatchMigrationRequest(
+                targetNode.getAddress(),
+                ranges.stream()
+                        .map(range -> new BatchMigrationRequest.Range((long) range.getStart(), (long) range.getEnd()))
+                        .toList(),
+                version
         );
+
+        return post(url, request);
     }
 
+    private <B> CompletableFuture<Void> post(String url, B body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Failed to encode request to " + url, e));
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                // Ограничивает ожидание начала ответа
+                .timeout(responseTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+                .build();
+        CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        // Срок ограничивает весь обмен; по его истечении обмен отменяется, а не остаётся висеть
+        CompletableFuture<HttpResponse<String>> bounded = exchange.copy().orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        bounded.whenComplete((response, error) -> {
+            if (error != null) {
+                exchange.cancel(true);
+            }
+        });
+        return bounded.thenAccept(response -> {
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Migration request to " + url + " failed: status="
+                        + response.statusCode() + ", body=" + response.body());
+            }
+        });
+    }
+
+    private void await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+                throw new IllegalStateException("Migration request timed out: storageTimeout="
+                        + responseTimeout.toMillis() + " ms, deadline=" + deadline.toMillis() + " ms", cause);
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Migration request failed", cause);
+        }
+    }
 
-    private String buildMigrationUrl(ServerNode node) {
+    private String buildMigrationUrl(ServerNode node, String endpoint) {
         return String.format("http://%s%s",
                 node.getAddress(),
-                migrationEndpoint);
+                endpoint);
     }
 
-}
\ No newline at end of file
+}
@@ -4,9 +4,14 @@ import lombok.extern.slf4j.Slf4j;
 import team.brown.sharding.master.grpc.HashRange;
 import team.brown.sharding.master.node.ServerNode;
 
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -16,27 +21,213 @@ import java.util.TreeMap;
 
 /**
  * Кольцо консистентного хеширования с поддержкой виртуальных узлов.
+ * <p>
+ * Кольцо хранится в виде отсортированного массива хешей виртуальных узлов {@code hashes}
+ * и параллельного массива индексов владельцев {@code owners} в таблице узлов {@code nodeTable}.
+ * Поиск владельца хеша выполняется бинарным поиском без аллокаций, копирование кольца
+ * сводится к копированию двух примитивных массивов.
+ * <p>
+ * Число виртуальных узлов сервера пропорционально его весу ({@link ServerNode#getWeight()}):
+ * сервер стандартного веса получает {@code virtualNodes} виртуальных узлов.
+ * <p>
+ * Тот же формат описывает и табличные стратегии размещения ({@link #fromSlots}): пространство хешей
+ * делится на {@code slots} равных слотов, и границы слотов со сменой владельца играют роль виртуальных
+ * узлов. Для таких таблиц владелец хеша находится по номеру слота за O(1), а миграция, экспорт
+ * и сохранение работают с ними так же, как с кольцом. Менять такую таблицу на месте нельзя:
+ * стратегия строит новую.
  */
 @Slf4j
 public class ConsistentHashRing<T extends ServerNode> implements Cloneable{
 
-    private SortedMap<Integer, T> circle = new TreeMap<>();
+    /**
+     * Имя стратегии размещения виртуальными узлами на кольце.
+     */
+    public static final String RING_PLACEMENT = "ring";
+    private static final int[] EMPTY = new int[0];
+
+    // Отсортированные по возрастанию хеши виртуальных узлов
+    private int[] hashes = EMPTY;
+    // owners[i] - индекс в nodeTable владельца виртуального узла hashes[i]
+    private int[] owners = EMPTY;
+    // Количество занятых ячеек в hashes/owners
+    private int size;
+    // Таблица физических узлов и обратный индекс узел -> позиция в таблице
+    private List<T> nodeTable = new ArrayList<>();
+    private Map<T, Integer> nodeIndex = new HashMap<>();
+
     private final HashFunction hashFunction;
     private final int virtualNodes;
+    // Стратегия, которой построено размещение
+    private final String placement;
+    // Количество слотов табличной стратегии; 0 для кольца виртуальных узлов
+    private final int slots;
+    // slotOwners[s] - индекс в nodeTable владельца слота s; null для кольца и пустой таблицы.
+    // После построения не меняется, поэтому копии таблицы разделяют массив.
+    private int[] slotOwners;
 
     /**
      * Конструктор.
      *
      * @param hashFunction хеш-функция
      * @param nodes        исходные узлы
-     * @param virtualNodes количество виртуальных узлов на каждый сервер
+     * @param virtualNodes количество виртуальных узлов на сервер стандартного веса
      */
     public ConsistentHashRing(HashFunction hashFunction, Collection<T> nodes, int virtualNodes) {
+        this(hashFunction, RING_PLACEMENT, 0, virtualNodes);
+        mergeNodes(nodes);
+    }
+
+    private ConsistentHashRing(HashFunction hashFunction, String placement, int slots, int virtualNodes) {
         this.hashFunction = hashFunction;
+        this.placement = placement;
+        this.slots = slots;
         this.virtualNodes = virtualNodes;
-        for (T node : nodes) {
-            addNode(node);
+    }
+
+    /**
+     * Строит таблицу табличной стратегии размещения по владельцам слотов.
+     * Соседние слоты одного владельца объединяются в один диапазон.
+     *
+     * @param hashFunction хеш-функция ключей
+     * @param placement    имя стратегии размещения
+     * @param virtualNodes количество виртуальных узлов из схемы (сохраняется для клиентов)
+     * @param nodeTable    таблица узлов
+     * @param slotOwners   индекс владельца в таблице узлов для каждого слота; null или пустой массив - пустая таблица
+     * @return таблица размещения
+     * @throws IllegalArgumentException если индекс владельца вне таблицы узлов
+     */
+    public static <T extends ServerNode> ConsistentHashRing<T> fromSlots(HashFunction hashFunction,
+                                                                        String placement,
+                                                                        int virtualNodes,
+                                                                        List<T> nodeTable,
+                                                                        int[] slotOwners) {
+        int slotCount = slotOwners == null ? 0 : slotOwners.length;
+        ConsistentHashRing<T> ring = new ConsistentHashRing<>(hashFunction, placement, slotCount, virtualNodes);
+        for (T node : nodeTable) {
+            ring.nodeIndex.put(node, ring.nodeTable.size());
+            ring.nodeTable.add(node);
         }
+        if (slotCount == 0) {
+            return ring;
+        }
+        int ranges = 0;
+        for (int s = 0; s < slotCount; s++) {
+            if (slotOwners[s] < 0 || slotOwners[s] >= nodeTable.size()) {
+                throw new IllegalArgumentException("Slot owner index out of range at " + s);
+            }
+            if (s == slotCount - 1 || slotOwners[s] != slotOwners[s + 1]) {
+                ranges++;
+            }
+        }
+        ring.hashes = new int[ranges];
+        ring.owners = new int[ranges];
+        for (int s = 0; s < slotCount; s++) {
+            if (s == slotCount - 1 || slotOwners[s] != slotOwners[s + 1]) {
+                ring.hashes[ring.size] = slotEnd(s, slotCount);
+                ring.owners[ring.size++] = slotOwners[s];
+            }
+        }
+        ring.slotOwners = slotOwners.clone();
+        return ring;
+    }
+
+    /**
+     * Номер слота, в который попадает хеш, при делении пространства хешей на {@code slots} равных слотов.
+     *
+     * @param hash  хеш
+     * @param slots количество слотов
+     * @return номер слота от 0 до slots - 1
+     */
+    public static int slotOf(int hash, int slots) {
+        return (int) ((((long) hash - Integer.MIN_VALUE) * slots) >>> 32);
+    }
+
+    /**
+     * Последний хеш слота (включительно); последний слот заканчивается на {@link Integer#MAX_VALUE}.
+     *
+     * @param slot  номер слота
+     * @param slots количество слотов
+     * @return наибольший хеш, для которого {@link #slotOf} равен slot
+     */
+    public static int slotEnd(int slot, int slots) {
+        long next = (((long) slot + 1 << 32) + slots - 1) / slots;
+        return (int) (next - 1 + Integer.MIN_VALUE);
+    }
+
+    /**
+     * Восстанавливает кольцо из сохранённых массивов без повторного хеширования виртуальных узлов.
+     *
+     * @param hashFunction хеш-функция, которой построено кольцо
+     * @param virtualNodes количество виртуальных узлов на каждый сервер
+     * @param nodeTable    таблица узлов
+     * @param hashes       хеши виртуальных узлов по возрастанию
+     * @param owners       индексы владельцев в таблице узлов
+     * @return кольцо
+     * @throws IllegalArgumentException если массивы не согласованы
+     */
+    public static <T extends ServerNode> ConsistentHashRing<T> restore(HashFunction hashFunction,
+                                                                       int virtualNodes,
+                                                                       List<T> nodeTable,
+                                                                       int[] hashes,
+                                                                       int[] owners) {
+        return restore(hashFunction, RING_PLACEMENT, 0, virtualNodes, nodeTable, hashes, owners);
+    }
+
+    /**
+     * Восстанавливает кольцо или таблицу слотов из сохранённых массивов.
+     *
+     * @param hashFunction хеш-функция, которой построено размещение
+     * @param placement    имя стратегии размещения
+     * @param slots        количество слотов табличной стратегии; 0 для кольца
+     * @param virtualNodes количество виртуальных узлов на каждый сервер
+     * @param nodeTable    таблица узлов
+     * @param hashes       хеши виртуальных узлов (границы диапазонов) по возрастанию
+     * @param owners       индексы владельцев в таблице узлов
+     * @return кольцо
+     * @throws IllegalArgumentException если массивы не согласованы
+     */
+    public static <T extends ServerNode> ConsistentHashRing<T> restore(HashFunction hashFunction,
+                                                                       String placement,
+                                                                       int slots,
+                                                                       int virtualNodes,
+                                                                       List<T> nodeTable,
+                                                                       int[] hashes,
+                                                                       int[] owners) {
+        if (hashes.length != owners.length) {
+            throw new IllegalArgumentException("Ring hashes and owners differ in length");
+        }
+        for (int i = 0; i < hashes.length; i++) {
+            if (i > 0 && hashes[i - 1] >= hashes[i]) {
+                throw new IllegalArgumentException("Ring hashes are not strictly ascending at " + i);
+            }
+            if (owners[i] < 0 || owners[i] >= nodeTable.size()) {
+                throw new IllegalArgumentException("Ring owner index out of range at " + i);
+            }
+        }
+        if (slots > 0 && hashes.length > 0 && hashes[hashes.length - 1] != Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Slot table must end at Integer.MAX_VALUE");
+        }
+        ConsistentHashRing<T> ring = new ConsistentHashRing<>(hashFunction, placement, slots, virtualNodes);
+        ring.hashes = hashes.clone();
+        ring.owners = owners.clone();
+        ring.size = hashes.length;
+        for (T node : nodeTable) {
+            ring.nodeIndex.put(node, ring.nodeTable.size());
+            ring.nodeTable.add(node);
+        }
+        if (slots > 0 && ring.size > 0) {
+            // Индекс слотов для поиска за O(1) восстанавливается по границам диапазонов
+            ring.slotOwners = new int[slots];
+            int idx = 0;
+            for (int s = 0; s < slots; s++) {
+                int end = slotEnd(s, slots);
+                while (ring.hashes[idx] < end) {
+                    idx++;
+                }
+                ring.slotOwners[s] = ring.owners[idx];
+            }
+        }
+        return ring;
     }
 
     /**
@@ -44,81 +235,280 @@ public class ConsistentHashRing<T extends ServerNode> implements Cloneable{
      *
      * @param node узел
      */
-    public SortedMap<Integer, T> addNode(T node) {
-        log.info("Add node to ring: node={}", node);
-        for (int i = 0; i < virtualNodes; i++) {
+    public void addNode(T node) {
+        log.debug("Add node to ring: node={}", node);
+        requireRing();
+        mergeNodes(List.of(node));
+    }
+
+    /**
+     * Добавляет несколько узлов за один проход слияния.
+     * Порядок обхода совпадает с последовательным вызовом {@link #addNode},
+     * поэтому и соли при коллизиях выдаются так же.
+     *
+     * @param nodes узлы
+     */
+    public void addNodes(Collection<T> nodes) {
+        log.debug("Add nodes to ring: nodes={}", nodes.size());
+        requireRing();
+        mergeNodes(nodes);
+    }
+
+    private void mergeNodes(Collection<T> nodes) {
+        if (virtualNodes <= 0 || nodes.isEmpty()) {
+            return;
+        }
+        int total = 0;
+        for (T node : nodes) {
+            total += virtualNodesOf(node);
+        }
+        // Новые виртуальные узлы упаковываются в long: старшие 32 бита - хеш, младшие - индекс владельца.
+        // Сортировка long[] тогда упорядочивает их по хешу со знаком, как и hashes.
+        long[] added = new long[total];
+        IntSet addedHashes = new IntSet(added.length);
+        int count = 0;
+        for (T node : nodes) {
+            if (nodeIndex.containsKey(node)) {
+                continue;
+            }
+            int ownerIdx = nodeTable.size();
+            nodeTable.add(node);
+            nodeIndex.put(node, ownerIdx);
+            count = placeVirtualNodes(node, ownerIdx, 0, virtualNodesOf(node), added, count, addedHashes);
+        }
+        Arrays.sort(added, 0, count);
+        mergeSorted(added, count);
+    }
+
+    /**
+     * Хеширует виртуальные узлы {@code from..to-1} узла, досаливая их при коллизиях.
+     *
+     * @return новое количество заполненных ячеек added
+     */
+    private int placeVirtualNodes(T node, int ownerIdx, int from, int to,
+                                  long[] added, int count, IntSet addedHashes) {
+        for (int i = from; i < to; i++) {
             int j = 0;
             int hash = hashFunction.hash(node.baseToHash(i));
-            while (null != circle.get(hash)) {
+            while (indexOf(hash) >= 0 || addedHashes.contains(hash)) {
                 node.addToSalts(i, j++);
                 hash = hashFunction.hash(node.baseToHash(i));
             }
-            circle.put(hash, node);
+            addedHashes.add(hash);
+            added[count++] = ((long) hash << 32) | ownerIdx;
         }
-        return circle;
+        return count;
     }
 
     /**
-     * Удаляет узел из кольца.
+     * Количество виртуальных узлов сервера с учётом его веса.
+     * Узел с ненулевым весом получает хотя бы один виртуальный узел.
      *
      * @param node узел
+     * @return количество виртуальных узлов
      */
-    public SortedMap<Integer, T> removeNode(T node) {
-        log.info("Remove node from ring: node={}", node);
-        for (int i = 0; i < virtualNodes; i++) {
-            int hash = hashFunction.hash(node.baseToHash(i));
-            circle.remove(hash);
+    public int virtualNodesOf(ServerNode node) {
+        int weight = node.getWeight();
+        if (virtualNodes <= 0 || weight <= 0) {
+            return 0;
         }
-        return circle;
+        if (weight == ServerNode.DEFAULT_WEIGHT) {
+            return virtualNodes;
+        }
+        long scaled = ((long) virtualNodes * weight + ServerNode.DEFAULT_WEIGHT / 2) / ServerNode.DEFAULT_WEIGHT;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, scaled));
     }
 
-    public T getNodeByHash(int hash) {
-        log.info("Get node by hash: hash={}", hash);
-        if (circle.isEmpty()) {
-            return null;
+    /**
+     * Заменяет узел кольца его новой версией (с тем же адресом) и приводит число его виртуальных узлов
+     * к новому весу. Добавляются или удаляются только виртуальные узлы с последними номерами,
+     * остальные виртуальные узлы кольца не меняются.
+     *
+     * @param node новая версия узла
+     * @throws IllegalArgumentException если узла нет в кольце
+     */
+    public void updateNode(T node) {
+        requireRing();
+        Integer idx = nodeIndex.get(node);
+        if (idx == null) {
+            throw new IllegalArgumentException("Node is not in the ring: " + node);
         }
-        SortedMap<Integer, T> tailMap = circle.tailMap(hash);
-        if (!tailMap.isEmpty()) {
-            return tailMap.get(tailMap.firstKey());
-        } else {
-            // Когда tailMap пустой, берем самый первый узел по кругу
-            return circle.get(circle.firstKey());
+        int ownerIdx = idx;
+        int before = virtualNodesOf(nodeTable.get(ownerIdx));
+        int after = virtualNodesOf(node);
+        nodeTable.set(ownerIdx, node);
+        // Ключ равен по адресу, но в индексе должен лежать новый объект
+        nodeIndex.remove(node);
+        nodeIndex.put(node, ownerIdx);
+        if (after > before) {
+            long[] added = new long[after - before];
+            int count = placeVirtualNodes(node, ownerIdx, before, after, added, 0, new IntSet(added.length));
+            Arrays.sort(added, 0, count);
+            mergeSorted(added, count);
+        } else if (after < before) {
+            IntSet removed = new IntSet(before - after);
+            for (int i = after; i < before; i++) {
+                removed.add(hashFunction.hash(node.baseToHash(i)));
+                node.removeSalt(i);
+            }
+            int k = 0;
+            for (int i = 0; i < size; i++) {
+                if (owners[i] == ownerIdx && removed.contains(hashes[i])) {
+                    continue;
+                }
+                hashes[k] = hashes[i];
+                owners[k++] = owners[i];
+            }
+            size = k;
+        }
+    }
+
+    private void requireRing() {
+        if (slots > 0) {
+            throw new IllegalStateException("Slot table of " + placement + " placement cannot be changed in place");
+        }
+    }
+
+    /**
+     * Сливает отсортированные новые виртуальные узлы с текущим кольцом.
+     */
+    private void mergeSorted(long[] added, int count) {
+        int[] newHashes = new int[size + count];
+        int[] newOwners = new int[size + count];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size || j < count) {
+            if (j == count || (i < size && hashes[i] < (int) (added[j] >> 32))) {
+                newHashes[k] = hashes[i];
+                newOwners[k++] = owners[i++];
+            } else {
+                newHashes[k] = (int) (added[j] >> 32);
+                newOwners[k++] = (int) added[j++];
+            }
         }
+        hashes = newHashes;
+        owners = newOwners;
+        size = k;
+    }
+
+    /**
+     * Удаляет узел из кольца.
+     *
+     * @param node узел
+     */
+    public void removeNode(T node) {
+        log.debug("Remove node from ring: node={}", node);
+        requireRing();
+        Integer removed = nodeIndex.remove(node);
+        if (removed == null) {
+            return;
+        }
+        int ownerIdx = removed;
+        nodeTable.remove(ownerIdx);
+        for (int idx = ownerIdx; idx < nodeTable.size(); idx++) {
+            nodeIndex.put(nodeTable.get(idx), idx);
+        }
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            int owner = owners[i];
+            if (owner == ownerIdx) {
+                continue;
+            }
+            hashes[k] = hashes[i];
+            owners[k++] = owner > ownerIdx ? owner - 1 : owner;
+        }
+        size = k;
+    }
+
+    public T getNodeByHash(int hash) {
+        return ownerOf(hash);
     }
 
     /**
      * Очищает кольцо.
      */
     public void clear() {
-        log.info("Clear ring");
-        circle.clear();
+        log.debug("Clear ring");
+        hashes = EMPTY;
+        owners = EMPTY;
+        size = 0;
+        slotOwners = null;
+        nodeTable.clear();
+        nodeIndex.clear();
     }
 
     public int getVirtualNodes() {
-        log.info("Get virtual nodes count");
         return virtualNodes;
     }
 
+    public HashFunction getHashFunction() {
+        return hashFunction;
+    }
+
+    /**
+     * Имя стратегии, которой построено размещение ({@link #RING_PLACEMENT} для кольца виртуальных узлов).
+     */
+    public String getPlacement() {
+        return placement;
+    }
+
+    /**
+     * Количество слотов табличной стратегии; 0 для кольца виртуальных узлов.
+     */
+    public int getSlots() {
+        return slots;
+    }
+
     /**
      * Интерфейс хеш-функции.
      */
     public interface HashFunction {
         int hash(String key);
+
+        /**
+         * Имя хеш-функции, по которому клиенты могут восстановить размещение.
+         */
+        default String name() {
+            return getClass().getSimpleName();
+        }
     }
 
     /**
      * Реализация хеш-функции MD5.
+     * Результат - младшие 32 бита дайджеста, как у {@code new BigInteger(1, digest).intValue()}.
+     * Экземпляр MessageDigest и буферы переиспользуются в пределах потока.
      */
-    public static class MD5HashFunction implements HashFunction {
-        @Override
-        public int hash(String key) {
+    public static class MD5HashFunction extends Utf8HashFunction {
+        private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
             try {
-                java.security.MessageDigest md = java.security.MessageDigest.getInstance("MD5");
-                byte[] digest = md.digest(key.getBytes());
-                return new java.math.BigInteger(1, digest).intValue();
-            } catch (java.security.NoSuchAlgorithmException e) {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
                 throw new RuntimeException("MD5 algorithm not found", e);
             }
+        });
+        private static final ThreadLocal<byte[]> OUTPUT = ThreadLocal.withInitial(() -> new byte[16]);
+
+        @Override
+        public String name() {
+            return HashFunctionType.MD5.getName();
+        }
+
+        @Override
+        protected int hash(byte[] data, int length) {
+            MessageDigest md = DIGEST.get();
+            byte[] digest = OUTPUT.get();
+            try {
+                md.update(data, 0, length);
+                md.digest(digest, 0, digest.length);
+            } catch (DigestException e) {
+                md.reset();
+                throw new IllegalStateException("MD5 digest failed", e);
+            }
+            return (digest[12] & 0xFF) << 24
+                    | (digest[13] & 0xFF) << 16
+                    | (digest[14] & 0xFF) << 8
+                    | (digest[15] & 0xFF);
         }
     }
 
@@ -126,10 +516,14 @@ public class ConsistentHashRing<T extends ServerNode> implements Cloneable{
     public ConsistentHashRing<T> clone() {
         try {
             // Поверхностное копирование примитивных полей и final-ссылок
+            @SuppressWarnings("unchecked")
             ConsistentHashRing<T> cloned = (ConsistentHashRing<T>) super.clone();
 
-            // Глубокое копирование изменяемого состояния (SortedMap)
-            cloned.circle = new TreeMap<>(this.circle); // Копируем все записи
+            // Копируем только занятую часть массивов и таблицу узлов
+            cloned.hashes = Arrays.copyOf(this.hashes, this.size);
+            cloned.owners = Arrays.copyOf(this.owners, this.size);
+            cloned.nodeTable = new ArrayList<>(this.nodeTable);
+            cloned.nodeIndex = new HashMap<>(this.nodeIndex);
 
             // hashFunction и virtualNodes не нужно копировать, т.к. они final и неизменяемы
             return cloned;
@@ -139,75 +533,182 @@ public class ConsistentHashRing<T extends ServerNode> implements Cloneable{
     }
 
     public Set<T> getNodes() {
-        log.info("Get all nodes from ring");
-        return new HashSet<>(circle.values());
+        return new HashSet<>(nodeTable);
     }
 
     public List<HashRange> getHashRanges(T node) {
-        log.info("Get hash ranges for node: node={}", node);
         List<HashRange> ranges = new ArrayList<>();
-        if (circle.isEmpty()) {
+        Integer ownerIdx = nodeIndex.get(node);
+        if (size == 0 || ownerIdx == null) {
             return ranges;
         }
 
-        // Собираем все хэши для данного узла
-        List<Integer> nodeHashes = new ArrayList<>();
-        for (Map.Entry<Integer, T> entry : circle.entrySet()) {
-            if (entry.getValue().equals(node)) {
-                nodeHashes.add(entry.getKey());
+        for (int i = 0; i < size; i++) {
+            if (owners[i] != ownerIdx) {
+                continue;
             }
+            // Предыдущий виртуальный узел по кругу
+            int prev = i == 0 ? size - 1 : i - 1;
+            int startHash = owners[prev] != ownerIdx ? hashes[prev] + 1 : hashes[prev];
+            ranges.add(new HashRange(startHash, hashes[i]));
         }
 
-        if (nodeHashes.isEmpty()) {
-            return ranges;
+        return ranges;
+    }
+
+    /**
+     * Возвращает узел для указанного хеша.
+     *
+     * @param hash значение хеша
+     * @return узел, ответственный за этот хеш
+     */
+    public T getNodeForHash(int hash) {
+        return ownerOf(hash);
+    }
+
+    /**
+     * Снимок кольца в виде отсортированной карты хеш -> узел.
+     * Строится заново при каждом вызове, не предназначен для горячего пути.
+     *
+     * @return неизменяемая карта виртуальных узлов
+     */
+    public SortedMap<Integer, T> getCircle(){
+        SortedMap<Integer, T> circle = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            circle.put(hashes[i], nodeTable.get(owners[i]));
         }
+        return Collections.unmodifiableSortedMap(circle);
+    }
+
+    /**
+     * Количество виртуальных узлов в кольце.
+     */
+    public int size() {
+        return size;
+    }
 
-        Collections.sort(nodeHashes);
+    /**
+     * Хеш виртуального узла с порядковым номером {@code i} (по возрастанию).
+     */
+    public int getHashAt(int i) {
+        return hashes[i];
+    }
 
-        for (Integer hash : nodeHashes) {
-            SortedMap<Integer, T> headMap = circle.headMap(hash);
-            int startHash;
-            if (headMap.isEmpty()) {
-                if (!circle.get(circle.lastKey()).equals(node)) {
-                    startHash = circle.lastKey() + 1;
-                } else {
-                    startHash = circle.lastKey();
-                }
-            } else {
-                if (!headMap.get(headMap.lastKey()).equals(node)) {
-                    startHash = headMap.lastKey() + 1;
-                } else {
-                    startHash = headMap.lastKey();
-                }
+    /**
+     * Владелец виртуального узла с порядковым номером {@code i} (по возрастанию).
+     */
+    public T getNodeAt(int i) {
+        return nodeTable.get(owners[i]);
+    }
+
+    /**
+     * Индекс владельца виртуального узла с порядковым номером {@code i} в {@link #getNodeTable()}.
+     */
+    public int getOwnerAt(int i) {
+        return owners[i];
+    }
+
+    /**
+     * Доля пространства хешей, которой владеет каждый физический узел.
+     * Для кольца - сумма дуг его виртуальных узлов, для табличной стратегии - доля его слотов.
+     *
+     * @return доли от 0 до 1 по узлам; узлы без дуг и слотов не попадают в результат
+     */
+    public Map<T, Double> getOwnership() {
+        double[] shares = new double[nodeTable.size()];
+        if (slotOwners != null) {
+            for (int owner : slotOwners) {
+                shares[owner] += 1.0 / slotOwners.length;
+            }
+        } else if (size == 1) {
+            shares[owners[0]] = 1.0;
+        } else {
+            for (int i = 0; i < size; i++) {
+                // Дуга виртуального узла - от предыдущего хеша (не включая) до его хеша, с переходом через ноль
+                long arc = (hashes[i] - hashes[i == 0 ? size - 1 : i - 1]) & 0xFFFFFFFFL;
+                shares[owners[i]] += arc / 4294967296.0;
+            }
+        }
+        Map<T, Double> ownership = new HashMap<>();
+        for (int i = 0; i < shares.length; i++) {
+            if (shares[i] > 0) {
+                ownership.merge(nodeTable.get(i), shares[i], Double::sum);
             }
-            ranges.add(new HashRange(startHash, hash));
         }
+        return ownership;
+    }
 
-        return ranges;
+    /**
+     * Таблица физических узлов, на которую ссылаются индексы владельцев.
+     *
+     * @return неизменяемое представление таблицы узлов
+     */
+    public List<T> getNodeTable() {
+        return Collections.unmodifiableList(nodeTable);
     }
 
     /**
-     * Возвращает узел для указанного хеша.
+     * Порядковый номер первого виртуального узла с хешем не меньше заданного.
      *
-     * @param hash значение хеша
-     * @return узел, ответственный за этот хеш
+     * @param hash хеш
+     * @return номер виртуального узла или {@link #size()}, если все хеши меньше
      */
-    public T getNodeForHash(int hash) {
-        log.info("Get node for hash: hash={}", hash);
-        if (circle.isEmpty()) {
+    public int ceilingIndex(int hash) {
+        int idx = indexOf(hash);
+        return idx < 0 ? -idx - 1 : idx;
+    }
+
+    private T ownerOf(int hash) {
+        if (size == 0) {
             return null;
         }
-
-        if (!circle.containsKey(hash)) {
-            SortedMap<Integer, T> tailMap = circle.tailMap(hash);
-            hash = tailMap.isEmpty() ? circle.firstKey() : tailMap.firstKey();
+        int[] table = slotOwners;
+        if (table != null) {
+            return nodeTable.get(table[slotOf(hash, table.length)]);
+        }
+        int idx = ceilingIndex(hash);
+        // Когда хеш больше всех виртуальных узлов, берем самый первый узел по кругу
+        if (idx == size) {
+            idx = 0;
         }
+        return nodeTable.get(owners[idx]);
+    }
 
-        return circle.get(hash);
+    private int indexOf(int hash) {
+        return Arrays.binarySearch(hashes, 0, size, hash);
     }
 
-    public SortedMap<Integer, T> getCircle(){
-        log.info("Get circle state");
-        return this.circle;
+    /**
+     * Минимальное множество int с открытой адресацией, используется только при добавлении узлов.
+     */
+    private static final class IntSet {
+        private final int[] table;
+        private final boolean[] used;
+        private final int mask;
+
+        IntSet(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+            table = new int[capacity];
+            used = new boolean[capacity];
+            mask = capacity - 1;
+        }
+
+        void add(int value) {
+            int slot = slot(value);
+            table[slot] = value;
+            used[slot] = true;
+        }
+
+        boolean contains(int value) {
+            return used[slot(value)];
+        }
+
+        private int slot(int value) {
+            int slot = (value * 0x9E3779B9) & mask;
+            while (used[slot] && table[slot] != value) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
     }
-}
\ No newline at end of file
+}
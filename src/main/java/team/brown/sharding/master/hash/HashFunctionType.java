@@ -0,0 +1,44 @@
+package team.brown.sharding.master.hash;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Доступные хеш-функции для размещения виртуальных узлов.
+ * MD5 сохраняет размещение существующих кластеров, остальные быстрее и не выделяют память.
+ */
+public enum HashFunctionType {
+    MD5("md5", ConsistentHashRing.MD5HashFunction::new),
+    MURMUR3("murmur3", Murmur3HashFunction::new),
+    XXHASH64("xxhash64", XxHash64HashFunction::new);
+
+    private final String name;
+    private final Supplier<ConsistentHashRing.HashFunction> factory;
+
+    HashFunctionType(String name, Supplier<ConsistentHashRing.HashFunction> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ConsistentHashRing.HashFunction create() {
+        return factory.get();
+    }
+
+    /**
+     * Находит хеш-функцию по имени из конфигурации (без учёта регистра).
+     *
+     * @param name имя хеш-функции
+     * @return тип хеш-функции
+     * @throws IllegalArgumentException если имя неизвестно
+     */
+    public static HashFunctionType fromName(String name) {
+        return Arrays.stream(values())
+                .filter(type -> type.name.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown hash function: " + name));
+    }
+}
@@ -0,0 +1,52 @@
+package team.brown.sharding.master.hash;
+
+/**
+ * MurmurHash3 x86_32 (seed 0) над UTF-8 байтами ключа.
+ */
+public class Murmur3HashFunction extends Utf8HashFunction {
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    @Override
+    public String name() {
+        return HashFunctionType.MURMUR3.getName();
+    }
+
+    @Override
+    protected int hash(byte[] data, int length) {
+        int h = 0;
+        int blocks = length & ~3;
+        for (int i = 0; i < blocks; i += 4) {
+            h ^= mixK(getIntLE(data, i));
+            h = Integer.rotateLeft(h, 13);
+            h = h * 5 + 0xe6546b64;
+        }
+
+        int k = 0;
+        switch (length & 3) {
+            case 3:
+                k ^= (data[blocks + 2] & 0xFF) << 16;
+            case 2:
+                k ^= (data[blocks + 1] & 0xFF) << 8;
+            case 1:
+                k ^= data[blocks] & 0xFF;
+                h ^= mixK(k);
+            default:
+                break;
+        }
+
+        h ^= length;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int mixK(int k) {
+        k *= C1;
+        k = Integer.rotateLeft(k, 15);
+        return k * C2;
+    }
+}
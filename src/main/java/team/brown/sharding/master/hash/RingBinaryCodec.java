@@ -0,0 +1,198 @@
+package team.brown.sharding.master.hash;
+
+import team.brown.sharding.master.node.ServerNode;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Компактное бинарное представление кольца для маршрутизации на стороне клиента.
+ * <p>
+ * Формат (big-endian):
+ * <pre>
+ * int    magic = 0x52494E47 ("RING")
+ * byte   версия формата = 1
+ * int    версия схемы
+ * short  длина имени хеш-функции, далее имя в UTF-8
+ * int    виртуальных узлов на сервер
+ * short  длина имени стратегии размещения, далее имя в UTF-8
+ * int    количество слотов табличной стратегии, 0 для кольца
+ * int    количество узлов, далее для каждого: short длина адреса, адрес в UTF-8
+ * int    количество виртуальных узлов в кольце N
+ * int[N] хеши виртуальных узлов по возрастанию (со знаком)
+ * byte   ширина индекса владельца в байтах: 1, 2 или 4
+ * N индексов владельцев в таблице узлов (беззнаковые)
+ * </pre>
+ * Клиенту достаточно хешировать ключ указанной хеш-функцией и найти бинарным поиском первый
+ * хеш не меньше ключа (при выходе за конец - нулевой); соли и хеширование виртуальных узлов не нужны.
+ * Для табличных стратегий можно вместо этого развернуть диапазоны в массив из {@code slots} владельцев
+ * и искать по номеру слота ({@link ConsistentHashRing#slotOf}).
+ */
+public final class RingBinaryCodec {
+    public static final int MAGIC = 0x52494E47;
+    public static final byte FORMAT_VERSION = 1;
+
+    private RingBinaryCodec() {
+    }
+
+    /**
+     * Кодирует кольцо.
+     *
+     * @param ring          кольцо
+     * @param schemaVersion версия схемы, которой принадлежит кольцо
+     * @return бинарное представление
+     */
+    public static byte[] encode(ConsistentHashRing<? extends ServerNode> ring, int schemaVersion) {
+        List<? extends ServerNode> nodeTable = ring.getNodeTable();
+        byte[] hashFunction = ring.getHashFunction().name().getBytes(StandardCharsets.UTF_8);
+        byte[] placement = ring.getPlacement().getBytes(StandardCharsets.UTF_8);
+        byte[][] addresses = new byte[nodeTable.size()][];
+        int length = 4 + 1 + 4 + 2 + hashFunction.length + 4 + 2 + placement.length + 4 + 4;
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = nodeTable.get(i).getAddress().getBytes(StandardCharsets.UTF_8);
+            length += 2 + addresses[i].length;
+        }
+        int size = ring.size();
+        int ownerWidth = ownerWidth(nodeTable.size());
+        length += 4 + size * 4 + 1 + size * ownerWidth;
+
+        ByteBuffer buffer = ByteBuffer.allocate(length)
+                .putInt(MAGIC)
+                .put(FORMAT_VERSION)
+                .putInt(schemaVersion);
+        putString(buffer, hashFunction);
+        buffer.putInt(ring.getVirtualNodes());
+        putString(buffer, placement);
+        buffer.putInt(ring.getSlots());
+        buffer.putInt(addresses.length);
+        for (byte[] address : addresses) {
+            putString(buffer, address);
+        }
+        buffer.putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(ring.getHashAt(i));
+        }
+        buffer.put((byte) ownerWidth);
+        for (int i = 0; i < size; i++) {
+            int owner = ring.getOwnerAt(i);
+            switch (ownerWidth) {
+                case 1 -> buffer.put((byte) owner);
+                case 2 -> buffer.putShort((short) owner);
+                default -> buffer.putInt(owner);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Декодирует кольцо.
+     *
+     * @param data бинарное представление
+     * @return таблица маршрутизации
+     * @throws IllegalArgumentException если данные повреждены или формат не поддерживается
+     */
+    public static RingTable decode(byte[] data) {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Декодирует кольцо начиная с текущей позиции буфера.
+     *
+     * @param buffer буфер с бинарным представлением (например, отображённый в память файл)
+     * @return таблица маршрутизации
+     * @throws IllegalArgumentException если данные повреждены или формат не поддерживается
+     */
+    public static RingTable decode(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a ring export");
+            }
+            byte format = buffer.get();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported ring format: " + format);
+            }
+            int schemaVersion = buffer.getInt();
+            String hashFunction = getString(buffer);
+            int virtualNodes = buffer.getInt();
+            String placement = getString(buffer);
+            int slots = buffer.getInt();
+            List<String> nodes = new ArrayList<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                nodes.add(getString(buffer));
+            }
+            int[] hashes = new int[buffer.getInt()];
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = buffer.getInt();
+            }
+            int ownerWidth = buffer.get();
+            int[] owners = new int[hashes.length];
+            for (int i = 0; i < owners.length; i++) {
+                owners[i] = switch (ownerWidth) {
+                    case 1 -> Byte.toUnsignedInt(buffer.get());
+                    case 2 -> Short.toUnsignedInt(buffer.getShort());
+                    case 4 -> buffer.getInt();
+                    default -> throw new IllegalArgumentException("Invalid owner width: " + ownerWidth);
+                };
+            }
+            return new RingTable(schemaVersion, hashFunction, virtualNodes, placement, slots,
+                    Collections.unmodifiableList(nodes), hashes, owners);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated ring export", e);
+        }
+    }
+
+    private static int ownerWidth(int nodeCount) {
+        if (nodeCount <= 1 << 8) {
+            return 1;
+        }
+        return nodeCount <= 1 << 16 ? 2 : 4;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Декодированное кольцо: таблица узлов и параллельные массивы хешей и владельцев.
+     */
+    public record RingTable(int schemaVersion,
+                            String hashFunction,
+                            int virtualNodes,
+                            String placement,
+                            int slots,
+                            List<String> nodes,
+                            int[] hashes,
+                            int[] owners) {
+
+        /**
+         * Адрес узла, ответственного за хеш.
+         *
+         * @param hash хеш ключа
+         * @return адрес узла или null для пустого кольца
+         */
+        public String ownerOf(int hash) {
+            if (hashes.length == 0) {
+                return null;
+            }
+            int idx = Arrays.binarySearch(hashes, hash);
+            if (idx < 0) {
+                idx = -idx - 1;
+                if (idx == hashes.length) {
+                    idx = 0;
+                }
+            }
+            return nodes.get(owners[idx]);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package team.brown.sharding.master.hash;
+
+/**
+ * Базовая хеш-функция над UTF-8 представлением ключа.
+ * <p>
+ * Ключ кодируется в байтовый буфер, принадлежащий потоку, вместо {@code String.getBytes()},
+ * поэтому в установившемся режиме хеширование не выделяет память.
+ * Кодирование совпадает с {@code key.getBytes(StandardCharsets.UTF_8)}, включая замену
+ * непарных суррогатов на '?'.
+ */
+public abstract class Utf8HashFunction implements ConsistentHashRing.HashFunction {
+
+    private static final ThreadLocal<byte[][]> BUFFER = ThreadLocal.withInitial(() -> new byte[][]{new byte[128]});
+
+    @Override
+    public final int hash(String key) {
+        byte[][] holder = BUFFER.get();
+        // Один символ UTF-16 даёт не больше трёх байт UTF-8
+        int maxLength = key.length() * 3;
+        if (holder[0].length < maxLength) {
+            holder[0] = new byte[Math.max(maxLength, holder[0].length * 2)];
+        }
+        byte[] buffer = holder[0];
+        int length = encode(key, buffer);
+        return hash(buffer, length);
+    }
+
+    /**
+     * Хеширует первые {@code length} байт буфера.
+     *
+     * @param data   буфер с UTF-8 представлением ключа
+     * @param length длина ключа в байтах
+     * @return значение хеша
+     */
+    protected abstract int hash(byte[] data, int length);
+
+    private static int encode(String key, byte[] out) {
+        int pos = 0;
+        int length = key.length();
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                out[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, key.charAt(++i));
+                    out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    out[pos++] = '?';
+                }
+            } else {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Читает 4 байта little-endian.
+     */
+    static int getIntLE(byte[] data, int offset) {
+        return (data[offset] & 0xFF)
+                | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16
+                | (data[offset + 3] & 0xFF) << 24;
+    }
+
+    /**
+     * Читает 8 байт little-endian.
+     */
+    static long getLongLE(byte[] data, int offset) {
+        return (getIntLE(data, offset) & 0xFFFFFFFFL) | ((long) getIntLE(data, offset + 4) << 32);
+    }
+}
@@ -0,0 +1,88 @@
+package team.brown.sharding.master.hash;
+
+/**
+ * XXH64 (seed 0) над UTF-8 байтами ключа.
+ * Для позиции в кольце 64-битный результат сворачивается в int: {@code (int) (h ^ (h >>> 32))}.
+ */
+public class XxHash64HashFunction extends Utf8HashFunction {
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    @Override
+    public String name() {
+        return HashFunctionType.XXHASH64.getName();
+    }
+
+    @Override
+    protected int hash(byte[] data, int length) {
+        long h = hash64(data, length);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Полное 64-битное значение XXH64.
+     */
+    static long hash64(byte[] data, int length) {
+        int pos = 0;
+        long h;
+        if (length >= 32) {
+            long v1 = P1 + P2;
+            long v2 = P2;
+            long v3 = 0;
+            long v4 = -P1;
+            int limit = length - 32;
+            do {
+                v1 = round(v1, getLongLE(data, pos));
+                v2 = round(v2, getLongLE(data, pos + 8));
+                v3 = round(v3, getLongLE(data, pos + 16));
+                v4 = round(v4, getLongLE(data, pos + 24));
+                pos += 32;
+            } while (pos <= limit);
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = P5;
+        }
+        h += length;
+
+        while (pos + 8 <= length) {
+            h ^= round(0, getLongLE(data, pos));
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+            pos += 8;
+        }
+        if (pos + 4 <= length) {
+            h ^= (getIntLE(data, pos) & 0xFFFFFFFFL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            pos += 4;
+        }
+        while (pos < length) {
+            h ^= (data[pos] & 0xFFL) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+            pos++;
+        }
+
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * P1 + P4;
+    }
+}
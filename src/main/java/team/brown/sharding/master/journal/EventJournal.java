@@ -0,0 +1,173 @@
+package team.brown.sharding.master.journal;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Журнал событий горячего пути в кольцевом буфере памяти.
+ * <p>
+ * Вместо строки лога на каждый вызов сохраняется каждое {@code sampleEvery}-е событие (в среднем):
+ * тип-константа, адрес и два числа записываются в заранее выделенную ячейку без форматирования
+ * и без ввода-вывода. Когда буфер заполнен, новые события затирают самые старые.
+ * Содержимое отдаётся по запросу ({@link #dump(int)}).
+ * <p>
+ * Писатель захватывает ячейку сравнением с обменом её номера. Если ячейку в этот момент заполняет
+ * другой писатель (номера отличаются на размер буфера) или в ней уже лежит более новое событие,
+ * событие отбрасывается: журнал выборочный, а смешать поля двух событий в одной ячейке нельзя.
+ * <p>
+ * События жизненного цикла (изменения состава, миграции) по-прежнему пишутся в обычный лог.
+ */
+@Component
+public class EventJournal {
+    private static final EventJournal DISABLED = new EventJournal(0, 1);
+    private static final long EMPTY = -1;
+    private static final long BUSY = -2;
+    private static final VarHandle SLOT_SEQUENCE;
+
+    static {
+        try {
+            SLOT_SEQUENCE = MethodHandles.lookup().findVarHandle(Slot.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Slot[] slots;
+    private final int sampleEvery;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param capacity    размер буфера в событиях; 0 - журнал выключен
+     * @param sampleEvery сохранять в среднем одно событие из стольких; 1 - все
+     */
+    @Autowired
+    public EventJournal(@Value("${journal.capacity:4096}") int capacity,
+                        @Value("${journal.sample-every:64}") int sampleEvery) {
+        if (capacity < 0 || sampleEvery < 1) {
+            throw new IllegalArgumentException("Journal capacity must be non-negative and sample rate positive");
+        }
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.sampleEvery = sampleEvery;
+    }
+
+    /**
+     * Выключенный журнал: ничего не сохраняет.
+     */
+    public static EventJournal disabled() {
+        return DISABLED;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    /**
+     * @return сколько событий получило номер за всё время (включая затёртые и отброшенные)
+     */
+    public long getRecorded() {
+        return sequence.get();
+    }
+
+    /**
+     * Сохраняет событие с вероятностью 1 / sampleEvery.
+     *
+     * @param type    тип события, строковая константа
+     * @param subject узел или другой объект события, может быть null
+     * @param value1  первое число события
+     * @param value2  второе число события
+     */
+    public void sample(String type, String subject, long value1, long value2) {
+        if (slots.length == 0 || sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+            return;
+        }
+        record(type, subject, value1, value2);
+    }
+
+    /**
+     * Сохраняет событие без выборки, для редких событий.
+     * Событие теряется, если его ячейку одновременно заполняет другой писатель.
+     */
+    public void record(String type, String subject, long value1, long value2) {
+        if (slots.length == 0) {
+            return;
+        }
+        long seq = sequence.getAndIncrement();
+        Slot slot = slots[(int) (seq % slots.length)];
+        long current = slot.sequence;
+        // Пока ячейка заполняется, читатель и другие писатели видят её занятой
+        if (current == BUSY || current > seq || !SLOT_SEQUENCE.compareAndSet(slot, current, BUSY)) {
+            return;
+        }
+        VarHandle.storeStoreFence();
+        slot.timestamp = System.currentTimeMillis();
+        slot.type = type;
+        slot.subject = subject;
+        slot.value1 = value1;
+        slot.value2 = value2;
+        slot.sequence = seq;
+    }
+
+    /**
+     * Последние сохранённые события, от старых к новым.
+     *
+     * @param limit максимальное количество событий
+     * @return события; ячейки, которые в момент чтения перезаписываются, пропускаются
+     */
+    public List<Event> dump(int limit) {
+        long last = sequence.get();
+        long first = Math.max(0, last - Math.min(Math.max(limit, 0), slots.length));
+        List<Event> events = new ArrayList<>((int) (last - first));
+        for (long seq = first; seq < last; seq++) {
+            Slot slot = slots[(int) (seq % slots.length)];
+            if (slot.sequence != seq) {
+                continue;
+            }
+            Event event = new Event(seq, slot.timestamp, slot.type, slot.subject, slot.value1, slot.value2);
+            VarHandle.loadLoadFence();
+            if (slot.sequence == seq) {
+                events.add(event);
+            }
+        }
+        return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Событие журнала.
+     */
+    @Schema(description = "Событие журнала горячего пути")
+    public record Event(
+            @Schema(description = "Порядковый номер события", example = "1024") long sequence,
+            @Schema(description = "Время события, мс с начала эпохи", example = "1760659200000") long timestamp,
+            @Schema(description = "Тип события", example = "route") String type,
+            @Schema(description = "Узел или другой объект события", example = "10.0.0.1:8080") String subject,
+            @Schema(description = "Первое число события (смысл зависит от типа)", example = "128") long value1,
+            @Schema(description = "Второе число события (смысл зависит от типа)", example = "35000") long value2
+    ) {
+    }
+
+    private static final class Slot {
+        private volatile long sequence = EMPTY;
+        private long timestamp;
+        private String type;
+        private String subject;
+        private long value1;
+        private long value2;
+    }
+}
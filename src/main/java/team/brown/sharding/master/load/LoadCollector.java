@@ -0,0 +1,79 @@
+package team.brown.sharding.master.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import team.brown.sharding.master.model.LoadReport;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Периодический опрос узлов хранения о нагрузке диапазонов.
+ * Включается {@code load.pull-interval-ms > 0}; узлы могут и сами присылать отчёты в POST /load.
+ */
+@Slf4j
+@Component
+public class LoadCollector implements DisposableBean {
+    private final MasterNode masterNode;
+    private final LoadMap loadMap;
+    private final Function<ServerNode, LoadReport> fetcher;
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    public LoadCollector(MasterNode masterNode,
+                         LoadMap loadMap,
+                         RestTemplate restTemplate,
+                         @Value("${load.pull-interval-ms:0}") long pullIntervalMillis,
+                         @Value("${load.stats-path:/storage/stats}") String statsPath) {
+        this(masterNode, loadMap,
+                node -> restTemplate.getForObject("http://" + node.getAddress() + statsPath, LoadReport.class),
+                pullIntervalMillis);
+    }
+
+    LoadCollector(MasterNode masterNode,
+                  LoadMap loadMap,
+                  Function<ServerNode, LoadReport> fetcher,
+                  long pullIntervalMillis) {
+        this.masterNode = masterNode;
+        this.loadMap = loadMap;
+        this.fetcher = fetcher;
+        if (pullIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("load-collector").factory());
+            scheduler.scheduleWithFixedDelay(this::collect, pullIntervalMillis, pullIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Опрашивает все узлы текущей схемы. Ошибка одного узла не мешает остальным.
+     */
+    public void collect() {
+        for (ServerNode node : masterNode.getNodes()) {
+            try {
+                LoadReport report = fetcher.apply(node);
+                if (report != null) {
+                    // Отчёт привязывается к адресу из схемы, а не к тому, как узел называет себя сам
+                    loadMap.report(new LoadReport(node.getAddress(), report.ranges()));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to collect load: node={}, error={}", node, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
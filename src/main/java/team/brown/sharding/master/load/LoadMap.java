@@ -0,0 +1,94 @@
+package team.brown.sharding.master.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.model.LoadReport;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Сводная карта нагрузки: последний отчёт каждого узла хранения.
+ * Отчёты старше {@code load.report-ttl-ms} не учитываются.
+ */
+@Slf4j
+@Component
+public class LoadMap {
+    private final Map<String, Received> reports = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public LoadMap(@Value("${load.report-ttl-ms:300000}") long ttlMillis) {
+        this(ttlMillis, System::currentTimeMillis);
+    }
+
+    LoadMap(long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Запоминает отчёт узла вместо предыдущего.
+     *
+     * @param report отчёт о нагрузке
+     */
+    public void report(LoadReport report) {
+        log.debug("Load report: address={}, ranges={}", report.address(), report.ranges().size());
+        reports.put(report.address(), new Received(report, clock.getAsLong()));
+    }
+
+    /**
+     * @return актуальные отчёты, упорядоченные по адресу узла
+     */
+    public List<LoadReport> current() {
+        long now = clock.getAsLong();
+        return reports.values().stream()
+                .filter(received -> now - received.receivedAt() <= ttlMillis)
+                .map(Received::report)
+                .sorted(Comparator.comparing(LoadReport::address))
+                .toList();
+    }
+
+    /**
+     * @param address адрес узла хранения
+     * @return актуальный отчёт узла или null, если его нет или он устарел
+     */
+    public LoadReport find(String address) {
+        Received received = reports.get(address);
+        if (received == null || clock.getAsLong() - received.receivedAt() > ttlMillis) {
+            return null;
+        }
+        return received.report();
+    }
+
+    /**
+     * Суммарная нагрузка каждого узла по актуальным отчётам.
+     *
+     * @return нагрузка по узлам, упорядоченная по адресу
+     */
+    public List<NodeLoad> nodeLoads() {
+        return current().stream()
+                .map(report -> new NodeLoad(
+                        report.address(),
+                        report.ranges().size(),
+                        report.ranges().stream().mapToLong(LoadReport.RangeLoad::keys).sum(),
+                        report.ranges().stream().mapToLong(LoadReport.RangeLoad::bytes).sum(),
+                        report.ranges().stream().mapToDouble(LoadReport.RangeLoad::requestsPerSecond).sum()))
+                .toList();
+    }
+
+    /**
+     * Суммарная нагрузка узла.
+     */
+    public record NodeLoad(String address, int ranges, long keys, long bytes, double requestsPerSecond) {
+    }
+
+    private record Received(LoadReport report, long receivedAt) {
+    }
+}
@@ -0,0 +1,45 @@
+package team.brown.sharding.master.load;
+
+import team.brown.sharding.master.model.LoadReport;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Показатель нагрузки, который выравнивает ребалансировщик.
+ */
+public enum LoadMetric {
+    REQUESTS("requests", LoadReport.RangeLoad::requestsPerSecond),
+    BYTES("bytes", range -> range.bytes()),
+    KEYS("keys", range -> range.keys());
+
+    private final String name;
+    private final ToDoubleFunction<LoadReport.RangeLoad> extractor;
+
+    LoadMetric(String name, ToDoubleFunction<LoadReport.RangeLoad> extractor) {
+        this.name = name;
+        this.extractor = extractor;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double of(LoadReport.RangeLoad range) {
+        return extractor.applyAsDouble(range);
+    }
+
+    /**
+     * Находит показатель по имени из конфигурации (без учёта регистра).
+     *
+     * @param name имя показателя
+     * @return показатель нагрузки
+     * @throws IllegalArgumentException если имя неизвестно
+     */
+    public static LoadMetric fromName(String name) {
+        return Arrays.stream(values())
+                .filter(metric -> metric.name.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown load metric: " + name));
+    }
+}
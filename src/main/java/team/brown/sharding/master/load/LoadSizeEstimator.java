@@ -0,0 +1,80 @@
+package team.brown.sharding.master.load;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.migration.MigrationSizeEstimator;
+import team.brown.sharding.master.migration.MigrationTask;
+import team.brown.sharding.master.model.LoadReport;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Оценка объёма переноса по отчёту узла-источника о нагрузке: объём каждого его диапазона
+ * распределяется по переносимым диапазонам пропорционально ширине пересечения.
+ * Если актуального отчёта нет, объём не оценивается и ограничение по байтам к переносу не применяется.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoadSizeEstimator implements MigrationSizeEstimator {
+    private final LoadMap loadMap;
+
+    @Override
+    public long estimateBytes(MigrationTask task) {
+        LoadReport report = loadMap.find(task.source().getAddress());
+        if (report == null) {
+            return 0;
+        }
+        return Math.round(estimate(report, task.ranges()));
+    }
+
+    /**
+     * @param report отчёт узла; диапазоны узла не пересекаются
+     * @param ranges непересекающиеся диапазоны, отсортированные по началу
+     * @return оценочный объём данных диапазонов
+     */
+    static double estimate(LoadReport report, List<HashRange> ranges) {
+        List<Part> parts = new ArrayList<>();
+        for (LoadReport.RangeLoad range : report.ranges()) {
+            if (range.bytes() <= 0) {
+                continue;
+            }
+            if (range.startHash() <= range.endHash()) {
+                parts.add(new Part(range.startHash(), range.endHash(), range.bytes() / width(range.startHash(), range.endHash())));
+            } else {
+                // Диапазон переходит через ноль кольца
+                double density = range.bytes() / (width(range.startHash(), Integer.MAX_VALUE)
+                        + width(Integer.MIN_VALUE, range.endHash()));
+                parts.add(new Part(range.startHash(), Integer.MAX_VALUE, density));
+                parts.add(new Part(Integer.MIN_VALUE, range.endHash(), density));
+            }
+        }
+        parts.sort(Comparator.comparingInt(Part::start));
+
+        double bytes = 0;
+        int p = 0;
+        for (HashRange range : ranges) {
+            while (p < parts.size() && parts.get(p).end() < range.getStart()) {
+                p++;
+            }
+            for (int i = p; i < parts.size() && parts.get(i).start() <= range.getEnd(); i++) {
+                Part part = parts.get(i);
+                int from = Math.max(part.start(), range.getStart());
+                int to = Math.min(part.end(), range.getEnd());
+                if (from <= to) {
+                    bytes += width(from, to) * part.density();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static double width(int start, int end) {
+        return (double) end - start + 1;
+    }
+
+    private record Part(int start, int end, double density) {
+    }
+}
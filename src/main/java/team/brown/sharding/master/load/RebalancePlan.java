@@ -0,0 +1,31 @@
+package team.brown.sharding.master.load;
+
+import java.util.List;
+
+/**
+ * Предложение ребалансировщика: новые веса узлов и оценка нагрузки до и после.
+ *
+ * @param version      версия схемы, для которой построен план
+ * @param metric       выравниваемый показатель нагрузки
+ * @param mean         средняя нагрузка на узел
+ * @param currentMax   нагрузка самого загруженного узла сейчас
+ * @param projectedMax оценка нагрузки самого загруженного узла после изменения весов
+ * @param balanced     укладывается ли оценка в допуск от среднего
+ * @param changes      изменения весов
+ */
+public record RebalancePlan(
+        int version,
+        LoadMetric metric,
+        double mean,
+        double currentMax,
+        double projectedMax,
+        boolean balanced,
+        List<WeightChange> changes
+) {
+
+    /**
+     * Изменение веса узла.
+     */
+    public record WeightChange(String address, int oldWeight, int newWeight) {
+    }
+}
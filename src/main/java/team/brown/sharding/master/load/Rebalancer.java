@@ -0,0 +1,208 @@
+package team.brown.sharding.master.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.model.LoadReport;
+import team.brown.sharding.master.model.WeightRequest;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.SchemaVersionConflictException;
+import team.brown.sharding.master.node.ServerNode;
+import team.brown.sharding.master.placement.PlacementStrategy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ребалансировка по фактической нагрузке диапазонов.
+ * <p>
+ * Нагрузка каждого диапазона из отчётов узлов распределяется по владельцам кольца пропорционально
+ * ширине пересечения (внутри диапазона нагрузка считается равномерной). Перегруженным узлам вес
+ * понижается, недогруженным - повышается, после чего нагрузка оценивается заново на пробном кольце.
+ * Так повторяется, пока самый загруженный узел не окажется в пределах допуска от среднего
+ * или не кончатся итерации; выбирается лучший найденный набор весов.
+ * <p>
+ * На кольце веса меняют число виртуальных узлов, поэтому точность ограничена их количеством:
+ * при одном виртуальном узле на сервер выравнивать нечего. Табличные стратегии делят слоты
+ * пропорционально весам.
+ */
+@Slf4j
+@Component
+public class Rebalancer {
+    private final MasterNode masterNode;
+    private final LoadMap loadMap;
+    private final LoadMetric metric;
+    private final double tolerance;
+    private final int maxIterations;
+
+    public Rebalancer(MasterNode masterNode,
+                      LoadMap loadMap,
+                      @Value("${rebalance.metric:requests}") String metric,
+                      @Value("${rebalance.tolerance-percent:20}") double tolerancePercent,
+                      @Value("${rebalance.max-iterations:8}") int maxIterations) {
+        this.masterNode = masterNode;
+        this.loadMap = loadMap;
+        this.metric = LoadMetric.fromName(metric);
+        this.tolerance = tolerancePercent / 100;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Строит план по текущей схеме и нагрузке, ничего не меняя.
+     *
+     * @return план ребалансировки
+     */
+    public RebalancePlan propose() {
+        return plan(masterNode.getSnapshot(), masterNode.getPlacement(), loadMap.current(), metric, tolerance,
+                maxIterations);
+    }
+
+    /**
+     * Строит план и применяет его.
+     *
+     * @return применённый план
+     */
+    public RebalancePlan rebalance() {
+        return apply(propose());
+    }
+
+    /**
+     * Применяет изменения весов плана одной версией схемы с одной миграцией.
+     *
+     * @param plan план ребалансировки
+     * @return применённый план
+     * @throws SchemaVersionConflictException если схема изменилась после построения плана
+     */
+    public RebalancePlan apply(RebalancePlan plan) {
+        log.info("Rebalance: version={}, currentMax={}, projectedMax={}, changes={}",
+                plan.version(), plan.currentMax(), plan.projectedMax(), plan.changes().size());
+        if (plan.changes().isEmpty()) {
+            return plan;
+        }
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        plan.changes().forEach(change -> weights.put(change.address(), change.newWeight()));
+        masterNode.updateWeights(weights, plan.version());
+        return plan;
+    }
+
+    static RebalancePlan plan(SchemaSnapshot snapshot,
+                              PlacementStrategy placement,
+                              List<LoadReport> reports,
+                              LoadMetric metric,
+                              double tolerance,
+                              int maxIterations) {
+        Map<String, Integer> original = new LinkedHashMap<>();
+        snapshot.getNodes().stream()
+                .sorted(Comparator.comparing(ServerNode::getAddress))
+                .filter(node -> node.getWeight() > 0)
+                .forEach(node -> original.put(node.getAddress(), node.getWeight()));
+
+        Map<String, Double> loads = estimate(snapshot.getRing(), reports, metric);
+        double total = original.keySet().stream().mapToDouble(address -> loads.getOrDefault(address, 0.0)).sum();
+        double mean = original.isEmpty() ? 0 : total / original.size();
+        double limit = mean * (1 + tolerance);
+        double currentMax = max(loads, original);
+        if (total <= 0 || currentMax <= limit) {
+            return new RebalancePlan(snapshot.getVersion(), metric, mean, currentMax, currentMax, true, List.of());
+        }
+
+        Map<String, Integer> weights = new LinkedHashMap<>(original);
+        Map<String, Integer> best = original;
+        double bestMax = currentMax;
+        Map<String, Double> estimated = loads;
+        for (int i = 0; i < maxIterations && bestMax > limit; i++) {
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                double load = estimated.getOrDefault(entry.getKey(), 0.0);
+                // Корень сглаживает шаг: вес сдвигается к цели, не перескакивая её
+                double ratio = load <= 0 ? 2 : Math.sqrt(mean / load);
+                long weight = Math.round(entry.getValue() * ratio);
+                entry.setValue((int) Math.max(1, Math.min(WeightRequest.MAX_WEIGHT, weight)));
+            }
+            estimated = estimate(ring(snapshot, placement, weights), reports, metric);
+            double projectedMax = max(estimated, weights);
+            if (projectedMax < bestMax) {
+                bestMax = projectedMax;
+                best = new LinkedHashMap<>(weights);
+            }
+        }
+
+        List<RebalancePlan.WeightChange> changes = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : best.entrySet()) {
+            int oldWeight = original.get(entry.getKey());
+            if (entry.getValue() != oldWeight) {
+                changes.add(new RebalancePlan.WeightChange(entry.getKey(), oldWeight, entry.getValue()));
+            }
+        }
+        return new RebalancePlan(snapshot.getVersion(), metric, mean, currentMax, bestMax, bestMax <= limit, changes);
+    }
+
+    /**
+     * Оценивает нагрузку узлов кольца по отчётам о диапазонах.
+     *
+     * @return нагрузка по адресу узла
+     */
+    static Map<String, Double> estimate(ConsistentHashRing<ServerNode> ring,
+                                        List<LoadReport> reports,
+                                        LoadMetric metric) {
+        Map<String, Double> loads = new HashMap<>();
+        if (ring.size() == 0) {
+            return loads;
+        }
+        for (LoadReport report : reports) {
+            for (LoadReport.RangeLoad range : report.ranges()) {
+                double value = metric.of(range);
+                if (value <= 0) {
+                    continue;
+                }
+                if (range.startHash() <= range.endHash()) {
+                    distribute(ring, range.startHash(), range.endHash(), value, loads);
+                } else {
+                    // Диапазон переходит через ноль кольца: делим нагрузку по ширине частей
+                    double width = (double) Integer.MAX_VALUE - range.startHash() + 1
+                            + (double) range.endHash() - Integer.MIN_VALUE + 1;
+                    double head = ((double) Integer.MAX_VALUE - range.startHash() + 1) / width;
+                    distribute(ring, range.startHash(), Integer.MAX_VALUE, value * head, loads);
+                    distribute(ring, Integer.MIN_VALUE, range.endHash(), value * (1 - head), loads);
+                }
+            }
+        }
+        return loads;
+    }
+
+    private static void distribute(ConsistentHashRing<ServerNode> ring,
+                                   int start,
+                                   int end,
+                                   double value,
+                                   Map<String, Double> loads) {
+        double width = (double) end - start + 1;
+        long position = start;
+        while (position <= end) {
+            int idx = ring.ceilingIndex((int) position);
+            long segmentEnd = idx == ring.size() ? Integer.MAX_VALUE : ring.getHashAt(idx);
+            ServerNode owner = ring.getNodeAt(idx == ring.size() ? 0 : idx);
+            long to = Math.min(end, segmentEnd);
+            loads.merge(owner.getAddress(), value * (to - position + 1) / width, Double::sum);
+            position = to + 1;
+        }
+    }
+
+    private static ConsistentHashRing<ServerNode> ring(SchemaSnapshot snapshot,
+                                                       PlacementStrategy placement,
+                                                       Map<String, Integer> weights) {
+        List<ServerNode> nodes = new ArrayList<>();
+        for (ServerNode node : snapshot.getNodes()) {
+            nodes.add(new ServerNode(node, weights.getOrDefault(node.getAddress(), node.getWeight())));
+        }
+        return placement.build(snapshot.getRing().getHashFunction(), nodes, snapshot.getVirtualNodes());
+    }
+
+    private static double max(Map<String, Double> loads, Map<String, Integer> nodes) {
+        return nodes.keySet().stream().mapToDouble(address -> loads.getOrDefault(address, 0.0)).max().orElse(0);
+    }
+}
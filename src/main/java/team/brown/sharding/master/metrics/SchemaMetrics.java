@@ -0,0 +1,63 @@
+package team.brown.sharding.master.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Метрики опубликованной схемы: версия, состояние миграции, доля пространства хешей
+ * и число виртуальных узлов каждого узла.
+ * <p>
+ * Доли считаются один раз на версию при публикации, а не при каждом опросе метрик.
+ */
+@Component
+public class SchemaMetrics {
+    private final MultiGauge ownership;
+    private final MultiGauge virtualNodes;
+    private final AtomicReference<SchemaSnapshot> current;
+
+    public SchemaMetrics(MasterNode masterNode, MeterRegistry registry) {
+        this.current = new AtomicReference<>(masterNode.getSnapshot());
+        this.ownership = MultiGauge.builder("master.ring.ownership")
+                .description("Доля пространства хешей, принадлежащая узлу")
+                .register(registry);
+        this.virtualNodes = MultiGauge.builder("master.ring.vnodes")
+                .description("Виртуальных узлов узла в кольце")
+                .register(registry);
+        Gauge.builder("master.schema.version", current, ref -> ref.get().getVersion())
+                .description("Опубликованная версия схемы")
+                .register(registry);
+        Gauge.builder("master.schema.migrating", current, ref -> ref.get().isMigrating() ? 1 : 0)
+                .description("1, пока данные переносятся к кольцу опубликованной версии")
+                .register(registry);
+        update(current.get());
+        masterNode.addSchemaListener(this::onPublish);
+    }
+
+    private void onPublish(SchemaSnapshot snapshot) {
+        SchemaSnapshot previous = current.getAndSet(snapshot);
+        // Смена одного лишь состояния миграции не меняет кольцо
+        if (previous.getRing() != snapshot.getRing()) {
+            update(snapshot);
+        }
+    }
+
+    private void update(SchemaSnapshot snapshot) {
+        Map<ServerNode, Double> shares = snapshot.getRing().getOwnership();
+        ownership.register(shares.entrySet().stream()
+                .map(share -> MultiGauge.Row.of(Tags.of("node", share.getKey().getAddress()), share.getValue()))
+                .toList(), true);
+        virtualNodes.register(snapshot.getNodes().stream()
+                .map(node -> MultiGauge.Row.of(Tags.of("node", node.getAddress()),
+                        snapshot.getRing().virtualNodesOf(node)))
+                .toList(), true);
+    }
+}
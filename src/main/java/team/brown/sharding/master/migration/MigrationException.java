@@ -0,0 +1,11 @@
+package team.brown.sharding.master.migration;
+
+/**
+ * Ошибка выполнения плана миграции: хотя бы один перенос диапазона не удался.
+ * Остальные ошибки прикладываются как suppressed.
+ */
+public class MigrationException extends RuntimeException {
+    public MigrationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,332 @@
+package team.brown.sharding.master.migration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.grpc.RestClient;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Параллельный исполнитель плана миграции.
+ * <p>
+ * Каждая пакетная команда (источник, получатель) выполняется в своём виртуальном потоке.
+ * Число одновременных переносов ограничено отдельно для каждого узла-источника и каждого
+ * узла-получателя, чтобы решардинг не перегружал отдельные хранилища. Слоты источника и получателя
+ * занимаются вместе и раздаются по {@link MigrationPriority}: восстановление получает слоты узла раньше
+ * перераспределения ({@link TransferSlots}).
+ * <p>
+ * Скорость переносов дополнительно ограничивается {@link MigrationThrottle}: переносы ждут токенов
+ * уже после захвата слотов, тоже в порядке приоритета.
+ * <p>
+ * План выполняется как {@link MigrationJob}: задание сохраняется до первого переноса, выполненные
+ * переносы отмечаются в {@link MigrationJobStore}. Неудавшийся перенос повторяется по {@link MigrationRetry}
+ * с той же версией схемы, поэтому повтор идемпотентен для узла хранения. Если перенос не удался после всех
+ * попыток, задание остаётся незавершённым и продолжается следующим вызовом {@link #execute} или {@link #resume}.
+ * Задания выполняются строго по версиям: следующее не начинается, пока не завершено предыдущее,
+ * потому что его источники могут ещё не получить данные.
+ */
+@Slf4j
+@Component
+public class MigrationExecutor {
+    private final RestClient restClient;
+    private final int maxInFlightPerSource;
+    private final int maxInFlightPerTarget;
+    private final MigrationThrottle throttle;
+    private final MigrationJobStore jobStore;
+    private final MigrationRetry retry;
+    // Незавершённые задания по возрастанию версий
+    private final List<MigrationJob> jobs = new CopyOnWriteArrayList<>();
+    // Прогресс последнего (или текущего) плана миграции
+    private volatile MigrationProgress progress = new MigrationProgress(0);
+    private final Timer transferSuccess;
+    private final Timer transferFailure;
+    private final Timer rangeLatency;
+    private final Counter rangesMoved;
+    private final Counter retries;
+
+    public MigrationExecutor(RestClient restClient, int maxInFlightPerSource, int maxInFlightPerTarget) {
+        this(restClient, maxInFlightPerSource, maxInFlightPerTarget, MigrationThrottle.unlimited());
+    }
+
+    public MigrationExecutor(RestClient restClient,
+                             int maxInFlightPerSource,
+                             int maxInFlightPerTarget,
+                             MigrationThrottle throttle) {
+        this(restClient, maxInFlightPerSource, maxInFlightPerTarget, throttle, MigrationJobStore.NONE, MigrationRetry.NONE);
+    }
+
+    @Autowired
+    public MigrationExecutor(RestClient restClient,
+                             @Value("${migration.max-in-flight-per-source:4}") int maxInFlightPerSource,
+                             @Value("${migration.max-in-flight-per-target:4}") int maxInFlightPerTarget,
+                             MigrationThrottle throttle,
+                             MigrationJobStore jobStore,
+                             @Value("${migration.retry.max-attempts:5}") int maxAttempts,
+                             @Value("${migration.retry.initial-backoff-ms:200}") long initialBackoffMillis,
+                             @Value("${migration.retry.max-backoff-ms:10000}") long maxBackoffMillis,
+                             MeterRegistry registry) {
+        this(restClient, maxInFlightPerSource, maxInFlightPerTarget, throttle, jobStore,
+                new MigrationRetry(maxAttempts, initialBackoffMillis, maxBackoffMillis), registry);
+    }
+
+    public MigrationExecutor(RestClient restClient,
+                             int maxInFlightPerSource,
+                             int maxInFlightPerTarget,
+                             MigrationThrottle throttle,
+                             MigrationJobStore jobStore,
+                             MigrationRetry retry) {
+        this(restClient, maxInFlightPerSource, maxInFlightPerTarget, throttle, jobStore, retry, new SimpleMeterRegistry());
+    }
+
+    public MigrationExecutor(RestClient restClient,
+                             int maxInFlightPerSource,
+                             int maxInFlightPerTarget,
+                             MigrationThrottle throttle,
+                             MigrationJobStore jobStore,
+                             MigrationRetry retry,
+                             MeterRegistry registry) {
+        if (maxInFlightPerSource < 1 || maxInFlightPerTarget < 1) {
+            throw new IllegalArgumentException("Migration concurrency limits must be positive");
+        }
+        this.restClient = restClient;
+        this.maxInFlightPerSource = maxInFlightPerSource;
+        this.maxInFlightPerTarget = maxInFlightPerTarget;
+        this.throttle = throttle;
+        this.jobStore = jobStore;
+        this.retry = retry;
+        this.jobs.addAll(jobStore.load());
+        this.transferSuccess = transferTimer(registry, "success");
+        this.transferFailure = transferTimer(registry, "failure");
+        this.rangeLatency = Timer.builder("master.migration.range")
+                .description("Время переноса одного диапазона (длительность попытки, делённая на число её диапазонов)")
+                .register(registry);
+        this.rangesMoved = Counter.builder("master.migration.ranges.moved")
+                .description("Перенесённых диапазонов")
+                .register(registry);
+        this.retries = Counter.builder("master.migration.retries")
+                .description("Повторов неудавшихся переносов")
+                .register(registry);
+        Gauge.builder("master.migration.ranges.remaining", jobs,
+                        list -> list.stream().mapToInt(job -> job.summary().rangesRemaining()).sum())
+                .description("Диапазонов незавершённых заданий, ещё не перенесённых")
+                .register(registry);
+    }
+
+    private static Timer transferTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("master.migration.transfer")
+                .description("Попытка переноса пакета диапазонов")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Сохраняет план как задание и выполняет его вместе с незавершёнными заданиями предыдущих версий.
+     * Вызовы должны быть последовательными (мастер вызывает его под блокировкой писателя).
+     *
+     * @param plan    пакетные переносы диапазонов
+     * @param version версия схемы, с которой выполняется миграция
+     * @throws MigrationException если хотя бы один перенос не удался после всех попыток
+     */
+    public void execute(List<MigrationTask> plan, int version) {
+        prepare(plan, version);
+        resume();
+    }
+
+    /**
+     * Сохраняет план как задание и ставит его в очередь после незавершённых заданий, не выполняя.
+     *
+     * @param plan    пакетные переносы диапазонов
+     * @param version версия схемы, к которой ведёт миграция
+     */
+    public void prepare(List<MigrationTask> plan, int version) {
+        if (plan.isEmpty()) {
+            if (jobs.isEmpty()) {
+                this.progress = new MigrationProgress(version);
+            }
+            return;
+        }
+        MigrationJob job = new MigrationJob(version, throttle.schedule(plan));
+        jobStore.begin(job);
+        jobs.add(job);
+    }
+
+    /**
+     * Отбрасывает задания к версиям новее указанной. Такое задание остаётся, если его план записан,
+     * а само изменение схемы в журнал не попало (сбой или ошибка записи между ними).
+     *
+     * @param version последняя записанная версия схемы
+     * @return количество отброшенных заданий
+     */
+    public int discardJobsAfter(int version) {
+        int discarded = 0;
+        for (MigrationJob job : jobs) {
+            if (job.getVersion() > version) {
+                jobStore.finish(job);
+                jobs.remove(job);
+                discarded++;
+            }
+        }
+        return discarded;
+    }
+
+    /**
+     * Продолжает незавершённые задания по возрастанию версий.
+     * Вызовы должны быть последовательными, как и {@link #execute}.
+     *
+     * @throws MigrationException если хотя бы один перенос не удался после всех попыток
+     */
+    public void resume() {
+        for (MigrationJob job : jobs) {
+            run(job);
+            jobStore.finish(job);
+            jobs.remove(job);
+        }
+    }
+
+    /**
+     * @return true, если есть незавершённые задания
+     */
+    public boolean hasUnfinishedJobs() {
+        return !jobs.isEmpty();
+    }
+
+    /**
+     * @return незавершённые задания по возрастанию версий
+     */
+    public List<MigrationJob> getUnfinishedJobs() {
+        return List.copyOf(jobs);
+    }
+
+    /**
+     * @return сводки незавершённых заданий по возрастанию версий
+     */
+    public List<MigrationJob.Summary> getJobs() {
+        return jobs.stream().map(MigrationJob::summary).toList();
+    }
+
+    /**
+     * Прогресс последнего запущенного плана миграции по узлам.
+     */
+    public MigrationProgress getProgress() {
+        return progress;
+    }
+
+    public MigrationThrottle getThrottle() {
+        return throttle;
+    }
+
+    private void run(MigrationJob job) {
+        int version = job.getVersion();
+        List<Integer> remaining = job.unfinished();
+        MigrationProgress current = new MigrationProgress(version);
+        remaining.forEach(i -> current.planned(job.getTasks().get(i)));
+        this.progress = current;
+        log.info("Execute migration: version={}, tasks={}, remaining={}", version, job.getTasks().size(), remaining.size());
+
+        // Слоты узлов раздаются по приоритету до ограничителя скорости: иначе переносы с низким
+        // приоритетом могли бы занять все слоты узла, пока переносы восстановления ждут их в очереди
+        TransferSlots slots = new TransferSlots(maxInFlightPerSource, maxInFlightPerTarget);
+        List<Future<?>> futures = new ArrayList<>(remaining.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int index : remaining) {
+                futures.add(executor.submit(() -> {
+                    transfer(job, index, slots, current);
+                    return null;
+                }));
+            }
+        }
+
+        MigrationException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = new MigrationException("Migration for version " + version + " failed", e.getCause());
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MigrationException("Migration for version " + version + " interrupted", e);
+            }
+        }
+        if (failure != null) {
+            log.warn("Migration left unfinished: {}", job.summary());
+            throw failure;
+        }
+        log.info("Migration finished: version={}", version);
+    }
+
+    private void transfer(MigrationJob job,
+                          int index,
+                          TransferSlots slots,
+                          MigrationProgress progress) throws InterruptedException {
+        MigrationTask task = job.getTasks().get(index);
+        slots.acquire(task);
+        try {
+            progress.started(task);
+            try {
+                attempt(job, index);
+            } catch (RuntimeException | InterruptedException e) {
+                job.failed(index);
+                progress.failed(task);
+                throw e;
+            }
+            job.completed(index);
+            jobStore.completed(job, index);
+            progress.completed(task);
+        } finally {
+            slots.release(task);
+        }
+    }
+
+    /**
+     * Выполняет перенос с повторами. Слоты узлов на время паузы не отпускаются:
+     * отказавший узел и так не стоит нагружать новыми переносами.
+     */
+    private void attempt(MigrationJob job, int index) throws InterruptedException {
+        MigrationTask task = job.getTasks().get(index);
+        for (int attempt = 1; ; attempt++) {
+            throttle.acquire(task);
+            job.started(index);
+            long started = System.nanoTime();
+            try {
+                log.info("Call migration from {} to {}: ranges={}, attempt={}",
+                        task.source(), task.target(), task.ranges().size(), attempt);
+                restClient.migrateRangesDirectly(task.source(), task.target(), task.ranges(), job.getVersion());
+                long elapsed = System.nanoTime() - started;
+                transferSuccess.record(elapsed, TimeUnit.NANOSECONDS);
+                rangeLatency.record(elapsed / Math.max(1, task.ranges().size()), TimeUnit.NANOSECONDS);
+                rangesMoved.increment(task.ranges().size());
+                return;
+            } catch (RuntimeException e) {
+                transferFailure.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                if (attempt >= retry.maxAttempts()) {
+                    throw e;
+                }
+                retries.increment();
+                long backoff = retry.backoffMillis(attempt);
+                log.warn("Migration from {} to {} failed, retrying in {} ms: {}",
+                        task.source(), task.target(), backoff, e.getMessage());
+                job.retrying(index);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+}
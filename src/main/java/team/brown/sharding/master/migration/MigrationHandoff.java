@@ -0,0 +1,204 @@
+package team.brown.sharding.master.migration;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Передача диапазонов от стабильного кольца к новому, пока идёт миграция.
+ * <p>
+ * Стабильное кольцо - кольцо версии перед первым незавершённым заданием. Оно не хранится целиком:
+ * от нового кольца оно отличается ровно диапазонами заданий, и для каждого из них известен прежний владелец.
+ * Диапазон считается перенесённым, когда его перенос подтверждён в задании; до этого чтения
+ * направляются прежнему владельцу.
+ * <p>
+ * Задания выполняются строго по версиям, поэтому владелец хеша - источник первого
+ * (в порядке версий) невыполненного переноса, который его содержит, а если такого нет - владелец по новому кольцу.
+ */
+public final class MigrationHandoff {
+    private final int stableVersion;
+    private final List<JobIndex> jobs;
+
+    /**
+     * @param jobs незавершённые задания по возрастанию версий
+     */
+    public MigrationHandoff(List<MigrationJob> jobs) {
+        this(stableVersionOf(jobs), jobs);
+    }
+
+    /**
+     * @param stableVersion версия, данные которой гарантированно на местах
+     * @param jobs          задания по возрастанию версий после неё; могут быть уже выполнены
+     */
+    public MigrationHandoff(int stableVersion, List<MigrationJob> jobs) {
+        this.stableVersion = stableVersion;
+        this.jobs = jobs.stream().map(JobIndex::new).toList();
+    }
+
+    private static int stableVersionOf(List<MigrationJob> jobs) {
+        if (jobs.isEmpty()) {
+            throw new IllegalArgumentException("Handoff needs at least one migration job");
+        }
+        return jobs.get(0).getVersion() - 1;
+    }
+
+    /**
+     * Восстанавливает передачу по неподтверждённым диапазонам, полученным от другого мастера
+     * ({@link #inFlight()}). Подтверждённые диапазоны в ней уже не участвуют.
+     *
+     * @param stableVersion версия, данные которой гарантированно на местах
+     * @param ranges        неподтверждённые диапазоны по возрастанию версий
+     * @param nodes         узлы схемы по адресу; прежние владельцы, уже удалённые из схемы, создаются по адресу
+     * @return передача диапазонов
+     */
+    public static MigrationHandoff restore(int stableVersion, List<InFlightRange> ranges, Map<String, ServerNode> nodes) {
+        Map<Integer, Map<List<String>, List<HashRange>>> byVersion = new TreeMap<>();
+        for (InFlightRange range : ranges) {
+            byVersion.computeIfAbsent(range.version(), version -> new LinkedHashMap<>())
+                    .computeIfAbsent(List.of(range.from(), range.to()), pair -> new ArrayList<>())
+                    .add(new HashRange(range.start(), range.end()));
+        }
+        List<MigrationJob> jobs = new ArrayList<>();
+        byVersion.forEach((version, pairs) -> {
+            List<MigrationTask> tasks = new ArrayList<>();
+            pairs.forEach((pair, pairRanges) -> tasks.add(new MigrationTask(
+                    nodes.getOrDefault(pair.get(0), new ServerNode(pair.get(0))),
+                    nodes.getOrDefault(pair.get(1), new ServerNode(pair.get(1))),
+                    pairRanges)));
+            jobs.add(new MigrationJob(version, tasks));
+        });
+        return new MigrationHandoff(stableVersion, jobs);
+    }
+
+    /**
+     * @return задания миграции по возрастанию версий
+     */
+    public List<MigrationJob> getJobs() {
+        return jobs.stream().map(index -> index.job).toList();
+    }
+
+    /**
+     * @return версия схемы, данные которой гарантированно лежат на местах
+     */
+    public int getStableVersion() {
+        return stableVersion;
+    }
+
+    /**
+     * @return сколько переносов уже подтверждено; растёт по мере миграции
+     */
+    public int getConfirmed() {
+        int confirmed = 0;
+        for (JobIndex index : jobs) {
+            for (int i = 0; i < index.job.getTasks().size(); i++) {
+                if (index.job.getState(i) == MigrationJob.State.DONE) {
+                    confirmed++;
+                }
+            }
+        }
+        return confirmed;
+    }
+
+    /**
+     * @return true, если все переносы подтверждены
+     */
+    public boolean isComplete() {
+        return jobs.stream().allMatch(index -> index.job.isFinished());
+    }
+
+    /**
+     * Узел, на котором сейчас лежат данные хеша, если его диапазон ещё переносится.
+     *
+     * @param hash хеш ключа
+     * @return прежний владелец или null, если хеш не затронут незавершённой миграцией
+     */
+    public ServerNode ownerOf(int hash) {
+        for (JobIndex index : jobs) {
+            int task = index.taskOf(hash);
+            if (task >= 0 && index.job.getState(task) != MigrationJob.State.DONE) {
+                return index.job.getTasks().get(task).source();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return неподтверждённые диапазоны всех заданий по возрастанию версий
+     */
+    public List<InFlightRange> inFlight() {
+        List<InFlightRange> result = new ArrayList<>();
+        for (JobIndex index : jobs) {
+            List<MigrationTask> tasks = index.job.getTasks();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (index.job.getState(i) == MigrationJob.State.DONE) {
+                    continue;
+                }
+                MigrationTask task = tasks.get(i);
+                for (HashRange range : task.ranges()) {
+                    result.add(new InFlightRange(index.job.getVersion(), range.getStart(), range.getEnd(),
+                            task.source().getAddress(), task.target().getAddress()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Диапазоны задания, отсортированные по началу, для поиска переноса по хешу.
+     */
+    private static final class JobIndex {
+        private final MigrationJob job;
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] tasks;
+
+        JobIndex(MigrationJob job) {
+            this.job = job;
+            List<int[]> entries = new ArrayList<>();
+            List<MigrationTask> jobTasks = job.getTasks();
+            for (int i = 0; i < jobTasks.size(); i++) {
+                for (HashRange range : jobTasks.get(i).ranges()) {
+                    entries.add(new int[]{range.getStart(), range.getEnd(), i});
+                }
+            }
+            entries.sort(Comparator.comparingInt(entry -> entry[0]));
+            starts = new int[entries.size()];
+            ends = new int[entries.size()];
+            tasks = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                starts[i] = entries.get(i)[0];
+                ends[i] = entries.get(i)[1];
+                tasks[i] = entries.get(i)[2];
+            }
+        }
+
+        int taskOf(int hash) {
+            int i = Arrays.binarySearch(starts, hash);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            return i >= 0 && hash <= ends[i] ? tasks[i] : -1;
+        }
+    }
+
+    /**
+     * Диапазон, перенос которого ещё не подтверждён.
+     */
+    @Schema(description = "Переносимый диапазон хешей")
+    public record InFlightRange(
+            @Schema(description = "Версия схемы, миграция которой переносит диапазон", example = "5") int version,
+            @Schema(description = "Начало диапазона (включительно)", example = "-2147483648") int start,
+            @Schema(description = "Конец диапазона (включительно)", example = "-1073741825") int end,
+            @Schema(description = "Прежний владелец, на котором сейчас лежат данные", example = "NODE1 ADDRESS") String from,
+            @Schema(description = "Новый владелец по кольцу", example = "NODE2 ADDRESS") String to
+    ) {
+    }
+}
@@ -0,0 +1,134 @@
+package team.brown.sharding.master.migration;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Задание миграции одной версии схемы: переносы плана и состояние каждого из них.
+ * <p>
+ * Перенос - атомарная для мастера команда узлу-источнику, поэтому все его диапазоны
+ * меняют состояние вместе. Завершённые переносы сохраняются в {@link MigrationJobStore},
+ * остальные после рестарта мастера выполняются заново: узлы хранения принимают повтор
+ * переноса той же версии как идемпотентный.
+ */
+public class MigrationJob {
+
+    /**
+     * Состояние переноса.
+     */
+    public enum State {
+        PENDING,
+        IN_FLIGHT,
+        DONE,
+        FAILED
+    }
+
+    private final int version;
+    private final List<MigrationTask> tasks;
+    private final State[] states;
+    private final int[] attempts;
+
+    /**
+     * @param version версия схемы, к которой ведёт миграция
+     * @param tasks   переносы в порядке запуска
+     */
+    public MigrationJob(int version, List<MigrationTask> tasks) {
+        this.version = version;
+        this.tasks = List.copyOf(tasks);
+        this.states = new State[tasks.size()];
+        this.attempts = new int[tasks.size()];
+        Arrays.fill(states, State.PENDING);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public List<MigrationTask> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * @return номера переносов, которые ещё не выполнены, в порядке запуска
+     */
+    public synchronized List<Integer> unfinished() {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] != State.DONE) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    public synchronized boolean isFinished() {
+        for (State state : states) {
+            if (state != State.DONE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized State getState(int task) {
+        return states[task];
+    }
+
+    synchronized void started(int task) {
+        states[task] = State.IN_FLIGHT;
+        attempts[task]++;
+    }
+
+    synchronized void retrying(int task) {
+        states[task] = State.PENDING;
+    }
+
+    /**
+     * Отмечает перенос выполненным (в том числе при восстановлении из хранилища).
+     */
+    public synchronized void completed(int task) {
+        states[task] = State.DONE;
+    }
+
+    synchronized void failed(int task) {
+        states[task] = State.FAILED;
+    }
+
+    /**
+     * Сводка по заданию: количество переносов и диапазонов в каждом состоянии.
+     */
+    public synchronized Summary summary() {
+        int[] counts = new int[State.values().length];
+        int[] ranges = new int[State.values().length];
+        int totalAttempts = 0;
+        for (int i = 0; i < states.length; i++) {
+            counts[states[i].ordinal()]++;
+            ranges[states[i].ordinal()] += tasks.get(i).ranges().size();
+            totalAttempts += attempts[i];
+        }
+        return new Summary(version,
+                counts[State.PENDING.ordinal()], counts[State.IN_FLIGHT.ordinal()],
+                counts[State.DONE.ordinal()], counts[State.FAILED.ordinal()],
+                ranges[State.PENDING.ordinal()] + ranges[State.IN_FLIGHT.ordinal()] + ranges[State.FAILED.ordinal()],
+                ranges[State.DONE.ordinal()], totalAttempts);
+    }
+
+    /**
+     * Сводка по заданию миграции.
+     */
+    @Schema(description = "Задание миграции")
+    public record Summary(
+            @Schema(description = "Версия схемы, к которой ведёт миграция") int version,
+            @Schema(description = "Переносов ждут запуска") int pending,
+            @Schema(description = "Переносов выполняется") int inFlight,
+            @Schema(description = "Переносов выполнено") int done,
+            @Schema(description = "Переносов завершилось ошибкой после всех попыток") int failed,
+            @Schema(description = "Диапазонов ещё не перенесено") int rangesRemaining,
+            @Schema(description = "Диапазонов перенесено") int rangesDone,
+            @Schema(description = "Всего попыток переносов") int attempts
+    ) {
+    }
+}
@@ -0,0 +1,59 @@
+package team.brown.sharding.master.migration;
+
+import java.util.List;
+
+/**
+ * Долговременное хранилище заданий миграции: план задания и отметки о выполненных переносах.
+ * Позволяет после рестарта мастера продолжить миграцию, а не повторять решардинг целиком.
+ */
+public interface MigrationJobStore {
+
+    /**
+     * Хранилище, которое ничего не сохраняет: незавершённые задания теряются при рестарте.
+     */
+    MigrationJobStore NONE = new MigrationJobStore() {
+        @Override
+        public List<MigrationJob> load() {
+            return List.of();
+        }
+
+        @Override
+        public void begin(MigrationJob job) {
+        }
+
+        @Override
+        public void completed(MigrationJob job, int task) {
+        }
+
+        @Override
+        public void finish(MigrationJob job) {
+        }
+    };
+
+    /**
+     * @return незавершённые задания по возрастанию версий, выполненные переносы уже отмечены
+     */
+    List<MigrationJob> load();
+
+    /**
+     * Надёжно записывает план нового задания. Вызывается до первого переноса.
+     *
+     * @param job задание
+     */
+    void begin(MigrationJob job);
+
+    /**
+     * Отмечает перенос выполненным.
+     *
+     * @param job  задание
+     * @param task номер переноса в задании
+     */
+    void completed(MigrationJob job, int task);
+
+    /**
+     * Удаляет полностью выполненное задание.
+     *
+     * @param job задание
+     */
+    void finish(MigrationJob job);
+}
@@ -0,0 +1,32 @@
+package team.brown.sharding.master.migration;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+
+/**
+ * Ограничения скорости миграции. Ноль означает отсутствие ограничения.
+ * Ограничения узла действуют отдельно для каждого узла-источника и каждого узла-получателя.
+ *
+ * @param rangesPerSecond     переносимых диапазонов в секунду на весь кластер
+ * @param bytesPerSecond      оценочных байт в секунду на весь кластер
+ * @param nodeRangesPerSecond переносимых диапазонов в секунду на узел
+ * @param nodeBytesPerSecond  оценочных байт в секунду на узел
+ */
+@Schema(description = "Ограничения скорости миграции; 0 - без ограничения")
+public record MigrationLimits(
+        @Schema(description = "Диапазонов в секунду на кластер", example = "200") @Min(0) long rangesPerSecond,
+        @Schema(description = "Оценочных байт в секунду на кластер", example = "104857600") @Min(0) long bytesPerSecond,
+        @Schema(description = "Диапазонов в секунду на узел", example = "50") @Min(0) long nodeRangesPerSecond,
+        @Schema(description = "Оценочных байт в секунду на узел", example = "20971520") @Min(0) long nodeBytesPerSecond
+) {
+    public static final MigrationLimits UNLIMITED = new MigrationLimits(0, 0, 0, 0);
+
+    /**
+     * @return true, если задано хотя бы одно ограничение
+     */
+    @JsonIgnore
+    public boolean isLimited() {
+        return rangesPerSecond > 0 || bytesPerSecond > 0 || nodeRangesPerSecond > 0 || nodeBytesPerSecond > 0;
+    }
+}
@@ -0,0 +1,57 @@
+package team.brown.sharding.master.migration;
+
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * План миграции, сгруппированный по парам (источник, получатель).
+ * <p>
+ * Диапазоны одной пары дедуплицируются и сливаются через {@link HashRange#coalesce},
+ * после чего каждая пара превращается в одну пакетную команду {@link MigrationTask}.
+ */
+public class MigrationPlan {
+    private final Map<Route, List<HashRange>> ranges = new LinkedHashMap<>();
+
+    /**
+     * Добавляет перенос диапазона. Переносы узла самому себе и без источника/получателя пропускаются.
+     *
+     * @param source текущий владелец диапазона
+     * @param target новый владелец диапазона
+     * @param range  диапазон
+     * @return этот план
+     */
+    public MigrationPlan add(ServerNode source, ServerNode target, HashRange range) {
+        if (source == null || target == null || source.equals(target)) {
+            return this;
+        }
+        ranges.computeIfAbsent(new Route(source, target), k -> new ArrayList<>()).add(range);
+        return this;
+    }
+
+    /**
+     * @return количество диапазонов до нормализации
+     */
+    public int rangeCount() {
+        return ranges.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Собирает пакетные команды: по одной на пару (источник, получатель).
+     *
+     * @return команды миграции с нормализованными диапазонами
+     */
+    public List<MigrationTask> toTasks() {
+        List<MigrationTask> tasks = new ArrayList<>(ranges.size());
+        ranges.forEach((route, list) ->
+                tasks.add(new MigrationTask(route.source(), route.target(), HashRange.coalesce(list))));
+        return tasks;
+    }
+
+    private record Route(ServerNode source, ServerNode target) {
+    }
+}
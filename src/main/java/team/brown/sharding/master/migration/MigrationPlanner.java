@@ -0,0 +1,140 @@
+package team.brown.sharding.master.migration;
+
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Планировщик миграции, сравнивающий старое и новое кольцо одним линейным проходом.
+ * <p>
+ * Хеши виртуальных узлов обоих колец обходятся как при слиянии двух отсортированных массивов.
+ * Между соседними точками объединения владелец в каждом кольце постоянен: им является
+ * владелец первого виртуального узла не меньше правой границы отрезка. Поэтому для каждого
+ * отрезка (предыдущая точка, текущая точка] достаточно сравнить двух владельцев.
+ * Сложность O(V_old + V_new) вместо поиска по кольцу для каждого диапазона каждого узла.
+ */
+public final class MigrationPlanner {
+
+    private MigrationPlanner() {
+    }
+
+    /**
+     * Участок пространства хешей, у которого сменился владелец.
+     *
+     * @param range    диапазон хешей (start <= end)
+     * @param oldOwner владелец в старом кольце
+     * @param newOwner владелец в новом кольце
+     */
+    public record OwnershipChange(HashRange range, ServerNode oldOwner, ServerNode newOwner) {
+    }
+
+    /**
+     * Строит пакетный план миграции между двумя кольцами.
+     *
+     * @param oldRing кольцо до изменения
+     * @param newRing кольцо после изменения
+     * @return план, сгруппированный по парам (источник, получатель)
+     */
+    public static MigrationPlan plan(ConsistentHashRing<ServerNode> oldRing, ConsistentHashRing<ServerNode> newRing) {
+        MigrationPlan plan = new MigrationPlan();
+        for (OwnershipChange change : diff(oldRing, newRing)) {
+            plan.add(change.oldOwner(), change.newOwner(), change.range());
+        }
+        return plan;
+    }
+
+    /**
+     * Находит все участки, владелец которых отличается в двух кольцах.
+     * Соседние участки с одинаковой парой владельцев объединяются.
+     * Если одно из колец пусто, переносить неоткуда или некуда, и результат пуст.
+     *
+     * @param oldRing кольцо до изменения
+     * @param newRing кольцо после изменения
+     * @return непересекающиеся участки в порядке возрастания хеша
+     */
+    public static List<OwnershipChange> diff(ConsistentHashRing<ServerNode> oldRing,
+                                             ConsistentHashRing<ServerNode> newRing) {
+        List<OwnershipChange> changes = new ArrayList<>();
+        int oldSize = oldRing.size();
+        int newSize = newRing.size();
+        if (oldSize == 0 || newSize == 0) {
+            return changes;
+        }
+
+        // Отрезок от Integer.MIN_VALUE до первой точки и хвост после последней точки
+        // принадлежат первым виртуальным узлам колец.
+        ServerNode firstOld = oldRing.getNodeAt(0);
+        ServerNode firstNew = newRing.getNodeAt(0);
+
+        Collector collector = new Collector(changes);
+        int i = 0;
+        int j = 0;
+        long segmentStart = Integer.MIN_VALUE;
+        while (i < oldSize || j < newSize) {
+            int point;
+            if (j == newSize || (i < oldSize && oldRing.getHashAt(i) <= newRing.getHashAt(j))) {
+                point = oldRing.getHashAt(i);
+            } else {
+                point = newRing.getHashAt(j);
+            }
+            ServerNode oldOwner = i < oldSize ? oldRing.getNodeAt(i) : firstOld;
+            ServerNode newOwner = j < newSize ? newRing.getNodeAt(j) : firstNew;
+            collector.accept((int) segmentStart, point, oldOwner, newOwner);
+
+            if (i < oldSize && oldRing.getHashAt(i) == point) {
+                i++;
+            }
+            if (j < newSize && newRing.getHashAt(j) == point) {
+                j++;
+            }
+            segmentStart = (long) point + 1;
+        }
+        if (segmentStart <= Integer.MAX_VALUE) {
+            collector.accept((int) segmentStart, Integer.MAX_VALUE, firstOld, firstNew);
+        }
+        collector.flush();
+        return changes;
+    }
+
+    /**
+     * Накапливает подряд идущие участки с одной и той же парой владельцев.
+     */
+    private static final class Collector {
+        private final List<OwnershipChange> changes;
+        private int start;
+        private int end;
+        private ServerNode oldOwner;
+        private ServerNode newOwner;
+
+        Collector(List<OwnershipChange> changes) {
+            this.changes = changes;
+        }
+
+        void accept(int segmentStart, int segmentEnd, ServerNode segmentOld, ServerNode segmentNew) {
+            if (segmentOld.equals(segmentNew)) {
+                flush();
+                return;
+            }
+            if (oldOwner != null && oldOwner.equals(segmentOld) && newOwner.equals(segmentNew)) {
+                end = segmentEnd;
+                return;
+            }
+            flush();
+            start = segmentStart;
+            end = segmentEnd;
+            oldOwner = segmentOld;
+            newOwner = segmentNew;
+        }
+
+        void flush() {
+            if (oldOwner != null) {
+                changes.add(new OwnershipChange(new HashRange(start, end), oldOwner, newOwner));
+                oldOwner = null;
+                newOwner = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package team.brown.sharding.master.migration;
+
+/**
+ * Приоритет переноса: пока ждёт перенос с более высоким приоритетом, переносы с более низким
+ * не занимают слоты тех же узлов и не получают токены ограничителя скорости.
+ */
+public enum MigrationPriority {
+    /**
+     * Восстановление владения: данные уходят с узла, удалённого из схемы.
+     */
+    RECOVERY,
+    /**
+     * Перераспределение между оставшимися узлами (добавление узла, вес, число виртуальных узлов).
+     */
+    REBALANCE
+}
@@ -0,0 +1,94 @@
+package team.brown.sharding.master.migration;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Прогресс выполнения плана миграции в разрезе узлов.
+ * Каждый перенос учитывается и у источника, и у получателя.
+ */
+public class MigrationProgress {
+    private final int version;
+    private final Map<ServerNode, Counters> counters = new ConcurrentHashMap<>();
+
+    public MigrationProgress(int version) {
+        this.version = version;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    void planned(MigrationTask task) {
+        forEachNode(task, c -> c.total.incrementAndGet());
+    }
+
+    void started(MigrationTask task) {
+        forEachNode(task, c -> c.inFlight.incrementAndGet());
+    }
+
+    void completed(MigrationTask task) {
+        forEachNode(task, c -> {
+            c.inFlight.decrementAndGet();
+            c.completed.incrementAndGet();
+        });
+    }
+
+    void failed(MigrationTask task) {
+        forEachNode(task, c -> {
+            c.inFlight.decrementAndGet();
+            c.failed.incrementAndGet();
+        });
+    }
+
+    /**
+     * Текущее состояние по всем участвующим узлам, отсортированное по адресу.
+     */
+    public List<NodeProgress> snapshot() {
+        List<NodeProgress> result = new ArrayList<>();
+        counters.forEach((node, c) -> result.add(new NodeProgress(
+                node.getAddress(),
+                c.total.get(),
+                c.inFlight.get(),
+                c.completed.get(),
+                c.failed.get()
+        )));
+        result.sort(Comparator.comparing(NodeProgress::address));
+        return result;
+    }
+
+    private void forEachNode(MigrationTask task, Consumer<Counters> action) {
+        action.accept(counters.computeIfAbsent(task.source(), k -> new Counters()));
+        if (!task.target().equals(task.source())) {
+            action.accept(counters.computeIfAbsent(task.target(), k -> new Counters()));
+        }
+    }
+
+    private static final class Counters {
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+    }
+
+    /**
+     * Прогресс миграции одного узла.
+     */
+    @Schema(description = "Прогресс миграции узла")
+    public record NodeProgress(
+            @Schema(description = "Адрес узла") String address,
+            @Schema(description = "Всего переносов с участием узла") int total,
+            @Schema(description = "Выполняется сейчас") int inFlight,
+            @Schema(description = "Завершено успешно") int completed,
+            @Schema(description = "Завершено с ошибкой") int failed
+    ) {
+    }
+}
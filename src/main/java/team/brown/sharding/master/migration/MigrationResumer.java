@@ -0,0 +1,46 @@
+package team.brown.sharding.master.migration;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.node.MasterNode;
+
+/**
+ * Продолжает незавершённые задания миграции после старта ведущего мастера.
+ * Задания выполняются в фоне, чтобы не задерживать запуск; изменения схемы ждут их завершения.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MigrationResumer implements SmartLifecycle {
+    private final MasterNode masterNode;
+    private final MigrationExecutor migrationExecutor;
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+        if (!masterNode.isLeader() || !migrationExecutor.hasUnfinishedJobs()) {
+            return;
+        }
+        log.info("Resume migration jobs: {}", migrationExecutor.getJobs());
+        Thread.ofVirtual().name("migration-resume").start(() -> {
+            try {
+                masterNode.resumeMigrations();
+            } catch (MigrationException e) {
+                log.warn("Migration jobs are still unfinished, resume them with POST /migration/jobs/resume", e);
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
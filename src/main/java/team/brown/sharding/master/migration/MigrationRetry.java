@@ -0,0 +1,38 @@
+package team.brown.sharding.master.migration;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Повтор неудавшихся переносов с экспоненциальной задержкой и полным джиттером:
+ * перед попыткой n ждём случайное время от 0 до min(maxBackoff, initialBackoff * 2^(n-1)).
+ * Случайная задержка не даёт повторам многих переносов к одному узлу прийти одновременно.
+ *
+ * @param maxAttempts          попыток на перенос, включая первую
+ * @param initialBackoffMillis верхняя граница задержки перед первым повтором
+ * @param maxBackoffMillis     верхняя граница задержки
+ */
+public record MigrationRetry(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+    /**
+     * Без повторов.
+     */
+    public static final MigrationRetry NONE = new MigrationRetry(1, 0, 0);
+
+    public MigrationRetry {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Migration attempts must be positive");
+        }
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("Invalid migration backoff: " + initialBackoffMillis + ".." + maxBackoffMillis);
+        }
+    }
+
+    /**
+     * @param attempt номер неудавшейся попытки, начиная с 1
+     * @return задержка перед следующей попыткой, мс
+     */
+    long backoffMillis(int attempt) {
+        long bound = initialBackoffMillis << Math.min(attempt - 1, 30);
+        bound = Math.min(maxBackoffMillis, bound < 0 ? maxBackoffMillis : bound);
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+}
@@ -0,0 +1,18 @@
+package team.brown.sharding.master.migration;
+
+/**
+ * Оценка объёма данных переноса для ограничения миграции по байтам.
+ */
+@FunctionalInterface
+public interface MigrationSizeEstimator {
+    /**
+     * Оценка не известна: ограничение по байтам к переносу не применяется.
+     */
+    MigrationSizeEstimator NONE = task -> 0;
+
+    /**
+     * @param task перенос
+     * @return оценка объёма в байтах или 0, если оценить нельзя
+     */
+    long estimateBytes(MigrationTask task);
+}
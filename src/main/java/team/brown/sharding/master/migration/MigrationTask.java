@@ -0,0 +1,25 @@
+package team.brown.sharding.master.migration;
+
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.List;
+
+/**
+ * Перенос набора диапазонов хешей с узла-источника на целевой узел одной командой.
+ *
+ * @param source   узел, который сейчас хранит данные диапазонов
+ * @param target   узел, который становится владельцем диапазонов
+ * @param ranges   непересекающиеся диапазоны, отсортированные по началу
+ * @param priority приоритет переноса при ограничении скорости
+ */
+public record MigrationTask(ServerNode source, ServerNode target, List<HashRange> ranges, MigrationPriority priority) {
+
+    public MigrationTask(ServerNode source, ServerNode target, List<HashRange> ranges) {
+        this(source, target, ranges, MigrationPriority.REBALANCE);
+    }
+
+    public MigrationTask withPriority(MigrationPriority priority) {
+        return new MigrationTask(source, target, ranges, priority);
+    }
+}
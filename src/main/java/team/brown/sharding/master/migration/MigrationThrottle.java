@@ -0,0 +1,196 @@
+package team.brown.sharding.master.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограничение скорости миграции корзинами токенов: общими на кластер и отдельными на каждый узел,
+ * по количеству диапазонов и по оценочному объёму данных.
+ * <p>
+ * Перенос ждёт, пока токены есть во всех его корзинах (общих, источника и получателя).
+ * Переносы с более низким {@link MigrationPriority} не начинаются, пока ждёт перенос с более высоким.
+ * Ограничения можно менять во время миграции: ожидающие переносы сразу пересчитывают время ожидания.
+ */
+@Slf4j
+@Component
+public class MigrationThrottle {
+    // Ожидающие перепроверяют корзины не реже этого интервала
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MigrationSizeEstimator estimator;
+    private final int chunkRanges;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final TokenBucket ranges;
+    private final TokenBucket bytes;
+    private final Map<ServerNode, TokenBucket> nodeRanges = new HashMap<>();
+    private final Map<ServerNode, TokenBucket> nodeBytes = new HashMap<>();
+    // Количество ожидающих переносов по приоритетам
+    private final int[] waiting = new int[MigrationPriority.values().length];
+    private volatile MigrationLimits limits;
+
+    @Autowired
+    public MigrationThrottle(MigrationSizeEstimator estimator,
+                             @Value("${migration.rate.ranges-per-second:0}") long rangesPerSecond,
+                             @Value("${migration.rate.bytes-per-second:0}") long bytesPerSecond,
+                             @Value("${migration.rate.node-ranges-per-second:0}") long nodeRangesPerSecond,
+                             @Value("${migration.rate.node-bytes-per-second:0}") long nodeBytesPerSecond,
+                             @Value("${migration.rate.chunk-ranges:64}") int chunkRanges) {
+        this(new MigrationLimits(rangesPerSecond, bytesPerSecond, nodeRangesPerSecond, nodeBytesPerSecond),
+                estimator, chunkRanges, System::nanoTime);
+    }
+
+    MigrationThrottle(MigrationLimits limits, MigrationSizeEstimator estimator, int chunkRanges, LongSupplier clock) {
+        if (chunkRanges < 1) {
+            throw new IllegalArgumentException("Migration chunk size must be positive");
+        }
+        this.estimator = estimator;
+        this.chunkRanges = chunkRanges;
+        this.clock = clock;
+        this.limits = limits;
+        long now = clock.getAsLong();
+        this.ranges = new TokenBucket(limits.rangesPerSecond(), now);
+        this.bytes = new TokenBucket(limits.bytesPerSecond(), now);
+    }
+
+    /**
+     * Ограничитель без ограничений.
+     */
+    public static MigrationThrottle unlimited() {
+        return new MigrationThrottle(MigrationLimits.UNLIMITED, MigrationSizeEstimator.NONE, 64, System::nanoTime);
+    }
+
+    public MigrationLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Меняет ограничения, в том числе для уже ожидающих переносов.
+     *
+     * @param limits новые ограничения
+     */
+    public void setLimits(MigrationLimits limits) {
+        log.info("Set migration limits: {}", limits);
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            ranges.setRate(limits.rangesPerSecond(), now);
+            bytes.setRate(limits.bytesPerSecond(), now);
+            nodeRanges.values().forEach(bucket -> bucket.setRate(limits.nodeRangesPerSecond(), now));
+            nodeBytes.values().forEach(bucket -> bucket.setRate(limits.nodeBytesPerSecond(), now));
+            this.limits = limits;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Упорядочивает переносы по приоритету и, если скорость ограничена, делит крупные переносы
+     * на части, чтобы токены расходовались равномерно, а не одним пакетом на весь план.
+     *
+     * @param tasks переносы плана
+     * @return переносы в порядке запуска
+     */
+    List<MigrationTask> schedule(List<MigrationTask> tasks) {
+        List<MigrationTask> result = new ArrayList<>(tasks.size());
+        boolean split = limits.isLimited();
+        for (MigrationTask task : tasks) {
+            if (!split || task.ranges().size() <= chunkRanges) {
+                result.add(task);
+                continue;
+            }
+            for (int from = 0; from < task.ranges().size(); from += chunkRanges) {
+                List<HashRange> chunk = task.ranges().subList(from, Math.min(from + chunkRanges, task.ranges().size()));
+                result.add(new MigrationTask(task.source(), task.target(), List.copyOf(chunk), task.priority()));
+            }
+        }
+        result.sort(Comparator.comparing(MigrationTask::priority));
+        return result;
+    }
+
+    /**
+     * Ждёт токены для переноса и забирает их.
+     *
+     * @param task перенос
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    void acquire(MigrationTask task) throws InterruptedException {
+        if (!limits.isLimited()) {
+            return;
+        }
+        int rangeCount = task.ranges().size();
+        long size = limits.bytesPerSecond() > 0 || limits.nodeBytesPerSecond() > 0 ? estimator.estimateBytes(task) : 0;
+        int priority = task.priority().ordinal();
+        lock.lock();
+        try {
+            waiting[priority]++;
+            try {
+                while (true) {
+                    long wait = higherPriorityWaiting(priority) ? MAX_WAIT_NANOS : nanosUntil(task, rangeCount, size);
+                    if (wait == 0) {
+                        take(task, rangeCount, size);
+                        return;
+                    }
+                    changed.awaitNanos(Math.min(wait, MAX_WAIT_NANOS));
+                }
+            } finally {
+                waiting[priority]--;
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean higherPriorityWaiting(int priority) {
+        for (int p = 0; p < priority; p++) {
+            if (waiting[p] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long nanosUntil(MigrationTask task, int rangeCount, long size) {
+        long now = clock.getAsLong();
+        long wait = Math.max(ranges.nanosUntil(rangeCount, now), bytes.nanosUntil(size, now));
+        wait = Math.max(wait, nodeRanges(task.source(), now).nanosUntil(rangeCount, now));
+        wait = Math.max(wait, nodeRanges(task.target(), now).nanosUntil(rangeCount, now));
+        wait = Math.max(wait, nodeBytes(task.source(), now).nanosUntil(size, now));
+        return Math.max(wait, nodeBytes(task.target(), now).nanosUntil(size, now));
+    }
+
+    private void take(MigrationTask task, int rangeCount, long size) {
+        long now = clock.getAsLong();
+        ranges.take(rangeCount);
+        bytes.take(size);
+        nodeRanges(task.source(), now).take(rangeCount);
+        nodeRanges(task.target(), now).take(rangeCount);
+        nodeBytes(task.source(), now).take(size);
+        nodeBytes(task.target(), now).take(size);
+    }
+
+    private TokenBucket nodeRanges(ServerNode node, long now) {
+        return nodeRanges.computeIfAbsent(node, k -> new TokenBucket(limits.nodeRangesPerSecond(), now));
+    }
+
+    private TokenBucket nodeBytes(ServerNode node, long now) {
+        return nodeBytes.computeIfAbsent(node, k -> new TokenBucket(limits.nodeBytesPerSecond(), now));
+    }
+}
@@ -0,0 +1,57 @@
+package team.brown.sharding.master.migration;
+
+/**
+ * Корзина токенов с ёмкостью в одну секунду скорости. Не потокобезопасна, защищается вызывающим.
+ * <p>
+ * Запрос больше ёмкости выполняется, когда корзина полна, и уводит её в минус: следующие
+ * запросы ждут, пока долг не восполнится. Так крупный перенос не блокируется навсегда,
+ * а средняя скорость всё равно не превышает заданную.
+ */
+final class TokenBucket {
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    // Токенов в секунду; 0 - без ограничения
+    private double rate;
+    private double tokens;
+    private long updatedAt;
+
+    TokenBucket(double rate, long now) {
+        this.rate = rate;
+        this.tokens = rate;
+        this.updatedAt = now;
+    }
+
+    void setRate(double rate, long now) {
+        refill(now);
+        this.rate = rate;
+        this.tokens = Math.min(tokens, rate);
+    }
+
+    /**
+     * @return сколько наносекунд ждать, пока можно будет взять amount токенов; 0 - можно сейчас
+     */
+    long nanosUntil(double amount, long now) {
+        if (rate <= 0 || amount <= 0) {
+            return 0;
+        }
+        refill(now);
+        double needed = Math.min(amount, rate);
+        if (tokens >= needed) {
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((needed - tokens) / rate * NANOS_PER_SECOND));
+    }
+
+    void take(double amount) {
+        if (rate > 0) {
+            tokens -= amount;
+        }
+    }
+
+    private void refill(long now) {
+        if (rate > 0) {
+            tokens = Math.min(rate, tokens + (now - updatedAt) * rate / NANOS_PER_SECOND);
+        }
+        updatedAt = now;
+    }
+}
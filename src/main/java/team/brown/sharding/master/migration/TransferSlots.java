@@ -0,0 +1,89 @@
+package team.brown.sharding.master.migration;
+
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограничение одновременных переносов на узел-источник и узел-получатель с учётом приоритета.
+ * <p>
+ * Перенос занимает слот источника и слот получателя одновременно. Пока ждёт перенос с более высоким
+ * {@link MigrationPriority}, использующий тот же источник или того же получателя, перенос с более низким
+ * приоритетом освободившийся слот не забирает, даже если ждёт дольше.
+ */
+final class TransferSlots {
+    private final int maxPerSource;
+    private final int maxPerTarget;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Map<ServerNode, Integer> bySource = new HashMap<>();
+    private final Map<ServerNode, Integer> byTarget = new HashMap<>();
+    private final List<MigrationTask> waiting = new ArrayList<>();
+
+    TransferSlots(int maxPerSource, int maxPerTarget) {
+        this.maxPerSource = maxPerSource;
+        this.maxPerTarget = maxPerTarget;
+    }
+
+    /**
+     * Ждёт слоты источника и получателя переноса и занимает их.
+     *
+     * @param task перенос
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    void acquire(MigrationTask task) throws InterruptedException {
+        lock.lock();
+        try {
+            waiting.add(task);
+            try {
+                while (!free(task) || yieldsTo(task)) {
+                    released.await();
+                }
+            } finally {
+                waiting.remove(task);
+                // Снятый с ожидания перенос мог задерживать переносы с более низким приоритетом
+                released.signalAll();
+            }
+            bySource.merge(task.source(), 1, Integer::sum);
+            byTarget.merge(task.target(), 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Освобождает слоты переноса.
+     *
+     * @param task перенос, занявший слоты
+     */
+    void release(MigrationTask task) {
+        lock.lock();
+        try {
+            bySource.merge(task.source(), -1, Integer::sum);
+            byTarget.merge(task.target(), -1, Integer::sum);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean free(MigrationTask task) {
+        return bySource.getOrDefault(task.source(), 0) < maxPerSource
+                && byTarget.getOrDefault(task.target(), 0) < maxPerTarget;
+    }
+
+    private boolean yieldsTo(MigrationTask task) {
+        for (MigrationTask other : waiting) {
+            if (other.priority().compareTo(task.priority()) < 0
+                    && (other.source().equals(task.source()) || other.target().equals(task.target()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,21 @@
+package team.brown.sharding.master.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BatchMigrationRequest {
+    private String targetAddress;
+    private List<Range> ranges;
+    private Integer version;
+
+    @Data
+    @AllArgsConstructor
+    public static class Range {
+        private Long startHash;
+        private Long endHash;
+    }
+}
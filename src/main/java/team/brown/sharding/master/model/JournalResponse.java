@@ -0,0 +1,18 @@
+package team.brown.sharding.master.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import team.brown.sharding.master.journal.EventJournal;
+
+import java.util.List;
+
+/**
+ * Содержимое журнала событий горячего пути.
+ */
+@Schema(description = "Журнал событий горячего пути")
+public record JournalResponse(
+        @Schema(description = "Размер буфера в событиях", example = "4096") int capacity,
+        @Schema(description = "Сохраняется в среднем одно событие из стольких", example = "64") int sampleEvery,
+        @Schema(description = "Сохранено событий за всё время, включая затёртые", example = "10240") long recorded,
+        @Schema(description = "Последние события, от старых к новым") List<EventJournal.Event> events
+) {
+}
@@ -0,0 +1,39 @@
+package team.brown.sharding.master.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Статистика нагрузки диапазонов, которые хранит узел.
+ */
+@Schema(description = "Нагрузка диапазонов узла хранения")
+public record LoadReport(
+        @Schema(description = "Адрес узла хранения", example = "192.168.1.10:8000", requiredMode = Schema.RequiredMode.REQUIRED)
+        @NotBlank String address,
+        @Schema(description = "Нагрузка по диапазонам хешей", requiredMode = Schema.RequiredMode.REQUIRED)
+        @NotNull List<@Valid RangeLoad> ranges
+) {
+
+    /**
+     * Нагрузка одного диапазона хешей.
+     *
+     * @param startHash         начало диапазона (включительно)
+     * @param endHash           конец диапазона (включительно); меньше начала, если диапазон переходит через ноль кольца
+     * @param keys              количество ключей
+     * @param bytes             объём данных, байт
+     * @param requestsPerSecond запросов в секунду
+     */
+    @Schema(description = "Нагрузка диапазона хешей")
+    public record RangeLoad(
+            @Schema(example = "-2147483648") int startHash,
+            @Schema(example = "-1073741825") int endHash,
+            @Schema(example = "120000") long keys,
+            @Schema(example = "73400320") long bytes,
+            @Schema(example = "350.5") double requestsPerSecond
+    ) {
+    }
+}
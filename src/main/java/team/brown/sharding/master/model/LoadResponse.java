@@ -0,0 +1,15 @@
+package team.brown.sharding.master.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import team.brown.sharding.master.load.LoadMap;
+
+import java.util.List;
+
+/**
+ * Сводная нагрузка узлов хранения.
+ */
+@Schema(description = "Нагрузка узлов по последним отчётам")
+public record LoadResponse(
+        @Schema(description = "Нагрузка по узлам") List<LoadMap.NodeLoad> nodes
+) {
+}
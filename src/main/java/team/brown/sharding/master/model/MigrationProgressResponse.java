@@ -0,0 +1,16 @@
+package team.brown.sharding.master.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import team.brown.sharding.master.migration.MigrationProgress;
+
+import java.util.List;
+
+/**
+ * Прогресс последней миграции по узлам.
+ */
+@Schema(description = "Прогресс миграции данных")
+public record MigrationProgressResponse(
+        @Schema(description = "Версия схемы, к которой ведёт миграция", example = "3") Integer version,
+        @Schema(description = "Прогресс по узлам") List<MigrationProgress.NodeProgress> nodes
+) {
+}
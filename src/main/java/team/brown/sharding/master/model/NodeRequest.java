@@ -1,12 +1,20 @@
 package team.brown.sharding.master.model;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 
 /**
  * Запрос для обновления количества шардов.
  */
 @Schema(description = "Новая конфигурация количества шардов в кластере")
 public record NodeRequest(
-        @Schema(description = "Сетевой адрес узла", example = "http://192.168.1.10:8000", required = true) String address
+        @Schema(description = "Сетевой адрес узла", example = "http://192.168.1.10:8000", required = true) String address,
+        @Schema(description = "Ёмкость узла в процентах от стандартного (по умолчанию 100)", example = "200")
+        @Min(0) @Max(WeightRequest.MAX_WEIGHT) Integer weight
 ) {
+
+    public NodeRequest(String address) {
+        this(address, null);
+    }
 }
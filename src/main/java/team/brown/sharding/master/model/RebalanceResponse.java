@@ -0,0 +1,33 @@
+package team.brown.sharding.master.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import team.brown.sharding.master.load.RebalancePlan;
+
+import java.util.List;
+
+/**
+ * План ребалансировки по нагрузке.
+ */
+@Schema(description = "План ребалансировки: новые веса узлов и оценка нагрузки")
+public record RebalanceResponse(
+        @Schema(description = "Версия схемы, для которой построен план", example = "7") Integer version,
+        @Schema(description = "Выравниваемый показатель", example = "requests") String metric,
+        @Schema(description = "Средняя нагрузка на узел") Double mean,
+        @Schema(description = "Нагрузка самого загруженного узла сейчас") Double currentMax,
+        @Schema(description = "Оценка нагрузки самого загруженного узла после изменения весов") Double projectedMax,
+        @Schema(description = "Укладывается ли оценка в допуск от среднего") Boolean balanced,
+        @Schema(description = "Изменения весов") List<RebalancePlan.WeightChange> changes
+) {
+
+    public static RebalanceResponse from(RebalancePlan plan) {
+        return new RebalanceResponse(
+                plan.version(),
+                plan.metric().getName(),
+                plan.mean(),
+                plan.currentMax(),
+                plan.projectedMax(),
+                plan.balanced(),
+                plan.changes()
+        );
+    }
+}
@@ -0,0 +1,49 @@
+package team.brown.sharding.master.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import team.brown.sharding.master.node.SchemaChange;
+import team.brown.sharding.master.node.SchemaSnapshot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Изменения схемы для ведомого мастера: либо журнал изменений после известной ему версии,
+ * либо полный снимок (узлы с солями, кольцо и неподтверждённые диапазоны миграции), если журнал уже вытеснен.
+ */
+@Schema(description = "Изменения схемы для ведомого мастера")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReplicationResponse(
+        @Schema(description = "Версия схемы после применения ответа", example = "5")
+        int version,
+        @Schema(description = "Изменения по возрастанию версий (нет, если передан полный снимок)")
+        List<SchemaChange> changes,
+        @Schema(description = "Узлы с солями полного снимка")
+        List<NodeState> nodes,
+        @Schema(description = "Кольцо полного снимка в бинарном формате (base64)")
+        byte[] ring,
+        @Schema(description = "Незавершённая миграция полного снимка; отсутствует, если данные уже на местах")
+        SchemaResponse.Migration migration
+) {
+
+    /**
+     * Узел схемы вместе с весом и солями его виртуальных узлов.
+     * Вес может отсутствовать у ведущего прежней версии, тогда он стандартный.
+     */
+    public record NodeState(String address, Integer weight, Map<Integer, String> salts) {
+    }
+
+    public static ReplicationResponse changes(List<SchemaChange> changes) {
+        return new ReplicationResponse(changes.getLast().version(), changes, null, null, null);
+    }
+
+    public static ReplicationResponse snapshot(SchemaSnapshot snapshot) {
+        List<NodeState> nodes = snapshot.getNodes().stream()
+                .map(node -> new NodeState(node.getAddress(), node.getWeight(), new HashMap<>(node.getSalts())))
+                .toList();
+        return new ReplicationResponse(snapshot.getVersion(), null, nodes, snapshot.getRingBinary(),
+                SchemaResponse.Migration.of(snapshot));
+    }
+}
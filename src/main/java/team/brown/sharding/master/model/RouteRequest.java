@@ -0,0 +1,24 @@
+package team.brown.sharding.master.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Запрос маршрутизации пачки ключей.
+ */
+@Schema(description = "Ключи, для которых нужно найти узлы-владельцы")
+public record RouteRequest(
+        @Schema(description = "Ключи (не больше " + MAX_KEYS + ")", example = "[\"user:1\", \"user:2\"]",
+                requiredMode = Schema.RequiredMode.REQUIRED)
+        @NotNull @Size(max = MAX_KEYS) List<@NotNull String> keys,
+        @Schema(description = "Сгруппировать ключи по узлам вместо списка пар ключ-узел", example = "false")
+        Boolean groupByNode
+) {
+    /**
+     * Максимум ключей в одном запросе: большие пачки хешируются в общем пуле ForkJoin
+     */
+    public static final int MAX_KEYS = 100_000;
+}
@@ -0,0 +1,34 @@
+package team.brown.sharding.master.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Узлы-владельцы ключей для одной версии схемы.
+ */
+@Schema(description = "Результат маршрутизации ключей")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RouteResponse(
+        @Schema(description = "Версия схемы, по которой выполнена маршрутизация", example = "3")
+        Integer version,
+        @Schema(description = "Адрес узла для каждого ключа в порядке запроса")
+        List<KeyRoute> routes,
+        @Schema(description = "Ключи, сгруппированные по адресу узла")
+        Map<String, List<String>> groups,
+        @Schema(description = "Ключи без владельца при группировке: в схеме нет ни одного узла")
+        List<String> unrouted
+) {
+
+    /**
+     * Пара ключ - адрес узла.
+     */
+    @Schema(description = "Узел-владелец ключа")
+    public record KeyRoute(
+            @Schema(description = "Ключ", example = "user:1") String key,
+            @Schema(description = "Адрес узла", example = "NODE1 ADDRESS") String address
+    ) {
+    }
+}
@@ -0,0 +1,27 @@
+package team.brown.sharding.master.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.List;
+
+/**
+ * Запрос на несколько изменений состава кластера одной версией схемы.
+ */
+@Schema(description = "Пакет изменений состава: удаления, добавления и новое количество шардов")
+public record SchemaBatchRequest(
+        @Schema(description = "Добавляемые узлы")
+        List<@Valid NodeRequest> add,
+        @Schema(description = "Адреса удаляемых узлов", example = "[\"192.168.1.10:8000\"]")
+        List<@NotBlank String> remove,
+        @Schema(description = "Новое количество шардов (виртуальных узлов на сервер), если меняется", example = "16")
+        @Min(1) Integer shardCount
+) {
+
+    public SchemaBatchRequest {
+        add = add == null ? List.of() : add;
+        remove = remove == null ? List.of() : remove;
+    }
+}
@@ -0,0 +1,37 @@
+package team.brown.sharding.master.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.Set;
+
+/**
+ * Изменения схемы узлов начиная с известной клиенту версии.
+ */
+@Schema(description = "Изменения схемы узлов с указанной версии")
+public record SchemaDeltaResponse(
+        @Schema(description = "Версия, от которой посчитаны изменения", example = "3")
+        Integer fromVersion,
+        @Schema(description = "Текущая версия схемы", example = "5")
+        Integer version,
+        @Schema(description = "Версия клиента устарела: added содержит полную схему, остальное нужно сбросить")
+        Boolean reset,
+        @Schema(description = "Добавленные узлы")
+        Set<ServerNode> added,
+        @Schema(description = "Адреса удалённых узлов", example = "[\"NODE1 ADDRESS\"]")
+        Set<String> removed,
+        @Schema(description = "Узлы с изменившимися солями или весом")
+        Set<ServerNode> updated,
+        @Schema(description = "Количество виртуальных узлов на сервер", example = "64")
+        Integer virtualNodes,
+        @Schema(description = "Хеш-функция размещения виртуальных узлов", example = "md5")
+        String hashFunction,
+        @Schema(description = "Стратегия размещения; восстановить его по солям узлов можно только для ring, "
+                + "для остальных нужна таблица из GET /scheme/ring", example = "ring")
+        String placement,
+        @Schema(description = "Миграция к кольцу текущей версии; отсутствует, если данные уже на местах")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        SchemaResponse.Migration migration
+) {
+}
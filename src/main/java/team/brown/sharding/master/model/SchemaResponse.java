@@ -1,8 +1,12 @@
 package team.brown.sharding.master.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
+import team.brown.sharding.master.migration.MigrationHandoff;
+import team.brown.sharding.master.node.SchemaSnapshot;
 import team.brown.sharding.master.node.ServerNode;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -13,6 +17,49 @@ public record SchemaResponse(
         @Schema(description = "Список адресов узлов", example = "[\"NODE1 ADDRESS\", \"NODE2 ADDRESS\"]")
         Set<ServerNode> nodes,
         Integer virtualNodes,
-        Integer version
+        Integer version,
+        @Schema(description = "Хеш-функция размещения виртуальных узлов", example = "md5")
+        String hashFunction,
+        @Schema(description = "Стратегия размещения; восстановить его по солям узлов можно только для ring, "
+                + "для остальных нужна таблица из GET /scheme/ring", example = "ring")
+        String placement,
+        @Schema(description = "Миграция к кольцу этой версии; отсутствует, если данные уже на местах")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Migration migration
 ) {
+
+    /**
+     * Состояние миграции: диапазоны, которые ещё читаются с прежних владельцев.
+     */
+    @Schema(description = "Незавершённая миграция: переносимые диапазоны читаются с прежнего владельца")
+    public record Migration(
+            @Schema(description = "Версия схемы, данные которой гарантированно на местах", example = "4")
+            Integer stableVersion,
+            @Schema(description = "Диапазоны, перенос которых ещё не подтверждён")
+            List<MigrationHandoff.InFlightRange> ranges
+    ) {
+
+        /**
+         * @return состояние миграции снимка или null, если данные уже на местах
+         */
+        public static Migration of(SchemaSnapshot snapshot) {
+            return snapshot.isMigrating()
+                    ? new Migration(snapshot.getHandoff().getStableVersion(), snapshot.getHandoff().inFlight())
+                    : null;
+        }
+    }
+
+    /**
+     * Ответ для опубликованного снимка схемы.
+     */
+    public static SchemaResponse from(SchemaSnapshot snapshot) {
+        return new SchemaResponse(
+                snapshot.getNodes(),
+                snapshot.getVirtualNodes(),
+                snapshot.getVersion(),
+                snapshot.getHashFunction(),
+                snapshot.getPlacement(),
+                Migration.of(snapshot)
+        );
+    }
 }
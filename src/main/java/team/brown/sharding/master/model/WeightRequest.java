@@ -0,0 +1,21 @@
+package team.brown.sharding.master.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Запрос для изменения веса узла.
+ */
+@Schema(description = "Новый вес узла")
+public record WeightRequest(
+        @Schema(description = "Ёмкость узла в процентах от стандартного; 0 - узел не владеет диапазонами",
+                example = "150", requiredMode = Schema.RequiredMode.REQUIRED)
+        @NotNull @Min(0) @Max(MAX_WEIGHT) Integer weight
+) {
+    /**
+     * Максимальный вес: узел в 100 раз больше стандартного
+     */
+    public static final int MAX_WEIGHT = 10_000;
+}
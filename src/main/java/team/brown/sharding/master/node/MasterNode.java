@@ -1,20 +1,40 @@
 package team.brown.sharding.master.node;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import team.brown.sharding.master.grpc.HashRange;
-import team.brown.sharding.master.grpc.RestClient;
 import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.migration.MigrationException;
+import team.brown.sharding.master.migration.MigrationExecutor;
+import team.brown.sharding.master.migration.MigrationHandoff;
+import team.brown.sharding.master.migration.MigrationJob;
+import team.brown.sharding.master.migration.MigrationPlan;
+import team.brown.sharding.master.migration.MigrationPlanner;
+import team.brown.sharding.master.migration.MigrationPriority;
+import team.brown.sharding.master.migration.MigrationTask;
+import team.brown.sharding.master.placement.PlacementStrategy;
+import team.brown.sharding.master.placement.RingPlacement;
+import team.brown.sharding.master.state.SchemaStore;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 /**
  * Пример мастер-узла, управляющего схемой шардирования.
@@ -26,30 +46,124 @@ public class MasterNode {
      * Количество виртуальных узлов на сервер
      */
     private static final int DEFAULT_NODE_PER_SERVER = 1;
+    /**
+     * Сколько последних версий схемы хранится для выдачи изменений (?sinceVersion)
+     */
+    private static final int SCHEMA_HISTORY_SIZE = 64;
 
-    // Множество зарегистрированных серверов.
-    private final Set<ServerNode> nodes;
-    //Версия схемы хэширования
-    private final AtomicInteger version;
-    // Кольцо консистентного хеширования (не final, чтобы его можно было пересоздавать при решардинге).
-    private ConsistentHashRing<ServerNode> ring;
-    private final RestClient restClient;
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final MigrationExecutor migrationExecutor;
+    // Журнал изменений и снимки схемы для восстановления после рестарта
+    private final SchemaStore schemaStore;
+    // Хеш-функция размещения виртуальных узлов
+    private final ConsistentHashRing.HashFunction hashFunction;
+    // Стратегия, по которой строится таблица владельцев
+    private final PlacementStrategy placement;
+    // Текущий опубликованный снимок схемы: узлы, кольцо и версия меняются только вместе.
+    private final AtomicReference<SchemaSnapshot> snapshot;
+    // Последние опубликованные снимки по версиям, включая текущий
+    private final ConcurrentSkipListMap<Integer, SchemaSnapshot> history = new ConcurrentSkipListMap<>();
+    // Сериализует писателей; читатели схемы его никогда не берут.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Последние изменения схемы по версиям, отдаются ведомым мастерам
+    private final ConcurrentSkipListMap<Integer, SchemaChange> changeLog = new ConcurrentSkipListMap<>();
+    // Адрес ведущего мастера, если этот мастер ведомый; null для ведущего
+    private volatile String leaderUrl;
+    // Подписчики на публикацию новых версий схемы
+    private final List<Consumer<SchemaSnapshot>> schemaListeners = new CopyOnWriteArrayList<>();
+    // Ожидание и удержание блокировки писателя (удержание включает миграцию)
+    private final Timer writeLockWait;
+    private final Timer writeLockHold;
+    // Построение плана миграции и его размер
+    private final Timer planTimer;
+    private final DistributionSummary planRanges;
 
     /**
      * Инициализация MasterNode с изначальным набором серверов и числом виртуальных узлов.
      *
      * @param initialNodes исходные узлы
+     * @param hashFunction хеш-функция размещения
+     */
+    public MasterNode(Collection<ServerNode> initialNodes,
+                      ConsistentHashRing.HashFunction hashFunction,
+                      MigrationExecutor migrationExecutor) {
+        this(initialNodes, hashFunction, migrationExecutor, SchemaStore.NONE);
+    }
+
+    /**
+     * Инициализация MasterNode с размещением на кольце и восстановлением схемы из хранилища состояния.
+     *
+     * @param initialNodes исходные узлы
+     * @param hashFunction хеш-функция размещения
+     * @param schemaStore  хранилище журнала изменений и снимков схемы
+     */
+    public MasterNode(Collection<ServerNode> initialNodes,
+                      ConsistentHashRing.HashFunction hashFunction,
+                      MigrationExecutor migrationExecutor,
+                      SchemaStore schemaStore) {
+        this(initialNodes, hashFunction, new RingPlacement(), migrationExecutor, schemaStore);
+    }
+
+    /**
+     * Инициализация MasterNode с восстановлением схемы из хранилища состояния, без публикации метрик.
+     *
+     * @param initialNodes исходные узлы
+     * @param hashFunction хеш-функция размещения
+     * @param placement    стратегия размещения
+     * @param schemaStore  хранилище журнала изменений и снимков схемы
      */
-    public MasterNode(Collection<ServerNode> initialNodes, RestClient restClient) {
-        this.nodes = new HashSet<>(initialNodes);
-        this.ring = new ConsistentHashRing<>(
-                new ConsistentHashRing.MD5HashFunction(),
-                nodes,
-                DEFAULT_NODE_PER_SERVER
-        );
-        this.restClient = restClient;
-        this.version = new AtomicInteger(1);
+    public MasterNode(Collection<ServerNode> initialNodes,
+                      ConsistentHashRing.HashFunction hashFunction,
+                      PlacementStrategy placement,
+                      MigrationExecutor migrationExecutor,
+                      SchemaStore schemaStore) {
+        this(initialNodes, hashFunction, placement, migrationExecutor, schemaStore, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Инициализация MasterNode с восстановлением схемы из хранилища состояния.
+     * Если хранилище пусто, схема строится из исходных узлов с версией 1.
+     *
+     * @param initialNodes исходные узлы
+     * @param hashFunction хеш-функция размещения
+     * @param placement    стратегия размещения
+     * @param schemaStore  хранилище журнала изменений и снимков схемы
+     * @param registry     реестр метрик
+     */
+    @Autowired
+    public MasterNode(Collection<ServerNode> initialNodes,
+                      ConsistentHashRing.HashFunction hashFunction,
+                      PlacementStrategy placement,
+                      MigrationExecutor migrationExecutor,
+                      SchemaStore schemaStore,
+                      MeterRegistry registry) {
+        Set<ServerNode> nodes = new HashSet<>(initialNodes);
+        ConsistentHashRing<ServerNode> ring = placement.build(hashFunction, nodes, DEFAULT_NODE_PER_SERVER);
+        this.hashFunction = hashFunction;
+        this.placement = placement;
+        this.migrationExecutor = migrationExecutor;
+        this.schemaStore = schemaStore;
+        this.writeLockWait = Timer.builder("master.write.lock.wait")
+                .description("Ожидание блокировки писателя схемы")
+                .register(registry);
+        this.writeLockHold = Timer.builder("master.write.lock.hold")
+                .description("Удержание блокировки писателя схемы, включая миграцию")
+                .register(registry);
+        this.planTimer = Timer.builder("master.migration.plan")
+                .description("Построение плана миграции")
+                .register(registry);
+        this.planRanges = DistributionSummary.builder("master.migration.plan.ranges")
+                .description("Диапазонов в плане миграции")
+                .register(registry);
+        // Незавершённая до рестарта миграция продолжается, а до её завершения схема остаётся в состоянии миграции
+        SchemaSnapshot recovered = recover(new SchemaSnapshot(nodes, ring, 1));
+        int discarded = migrationExecutor.discardJobsAfter(recovered.getVersion());
+        if (discarded > 0) {
+            log.warn("Discarded migration jobs of unrecorded schema versions: after={}, jobs={}",
+                    recovered.getVersion(), discarded);
+        }
+        SchemaSnapshot initial = withHandoff(recovered);
+        this.snapshot = new AtomicReference<>(initial);
+        this.history.put(initial.getVersion(), initial);
     }
 
     /**
@@ -60,25 +174,7 @@ public class MasterNode {
      */
     public boolean addServer(ServerNode node) {
         log.info("Add server: node={}", node);
-        lock.writeLock().lock();
-        try {
-            if (nodes.contains(node)) {
-                return false;
-            }
-            nodes.add(node);
-            if (nodes.size() == 1) {
-                ring.addNode(node);
-                return true;
-            }
-            ConsistentHashRing<ServerNode> oldRing = this.ring.clone();
-            ring.addNode(node);
-            Map<ServerNode, List<HashRange>> migrationPlan = calculateMigrationRanges(oldRing, ring);
-            incrementVersion();
-            executeRestRangeMigration(migrationPlan, oldRing);
-            return true;
-        } finally {
-            lock.writeLock().unlock();
-        }
+        return commit(version -> SchemaChange.addServer(version, node.getAddress(), node.getWeight()));
     }
 
     /**
@@ -87,23 +183,44 @@ public class MasterNode {
      * @param node сервер
      * @return true, если сервер удалён; false если его не было
      */
-    public synchronized boolean removeServer(ServerNode node) {
+    public boolean removeServer(ServerNode node) {
         log.info("Remove server: node={}", node);
-        lock.writeLock().lock();
-        try {
-            if (!nodes.contains(node)) {
-                return false;
-            }
-            nodes.remove(node);
-            ConsistentHashRing<ServerNode> oldRing = this.ring.clone();
-            ring.removeNode(node);
-            Map<ServerNode, List<HashRange>> migrationPlan = calculateMigrationRanges(oldRing, ring);
-            incrementVersion();
-            executeRestRangeMigration(migrationPlan, oldRing);
-            return true;
-        } finally {
-            lock.writeLock().unlock();
+        return commit(version -> SchemaChange.removeServer(version, node.getAddress()));
+    }
+
+    /**
+     * Возвращает текущий снимок схемы. Не блокируется, даже если идёт решардинг.
+     *
+     * @return согласованный снимок узлов, кольца и версии
+     */
+    public SchemaSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Возвращает изменения схемы с указанной версии до текущей.
+     * Если версия уже вытеснена из истории или неизвестна, возвращается полная схема (reset).
+     *
+     * @param sinceVersion версия, известная клиенту
+     * @return изменения схемы
+     */
+    public SchemaDelta getDelta(int sinceVersion) {
+        SchemaSnapshot current = snapshot.get();
+        SchemaSnapshot from = history.get(sinceVersion);
+        if (from == null || sinceVersion > current.getVersion()) {
+            return SchemaDelta.reset(sinceVersion, current);
         }
+        return SchemaDelta.between(from, current);
+    }
+
+    /**
+     * Подписывает на публикацию новых версий схемы.
+     * Слушатель вызывается под блокировкой писателя и не должен блокироваться.
+     *
+     * @param listener получатель нового снимка
+     */
+    public void addSchemaListener(Consumer<SchemaSnapshot> listener) {
+        schemaListeners.add(listener);
     }
 
     /**
@@ -112,34 +229,24 @@ public class MasterNode {
      * @return множество серверов
      */
     public Set<ServerNode> getNodes() {
-        log.info("Get all nodes");
-        lock.readLock().lock();
-        try {
-            return new HashSet<>(nodes);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.get().getNodes();
     }
 
     /**
-     * Возвращает текущее множество серверов.
+     * Возвращает текущее количество виртуальных узлов на сервер.
      *
-     * @return множество серверов
+     * @return количество виртуальных узлов
      */
     public int getVirtualNodes() {
-        log.info("Get virtual nodes count");
-        lock.readLock().lock();
-        try {
-            return ring.getVirtualNodes();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.get().getVirtualNodes();
     }
 
     public int getVersion() {
-        var version = this.version.get();
-        log.info("Get version: {}", version);
-        return version;
+        return snapshot.get().getVersion();
+    }
+
+    public PlacementStrategy getPlacement() {
+        return placement;
     }
 
     /**
@@ -149,78 +256,510 @@ public class MasterNode {
      */
     public void updateShardCount(int newVirtualNodes) {
         log.info("Update shard count: newVirtualNodes={}", newVirtualNodes);
-        lock.writeLock().lock();
+        commit(version -> SchemaChange.updateShardCount(version, newVirtualNodes));
+    }
+
+    /**
+     * Меняет вес узла. Переносятся только диапазоны добавленных или удалённых виртуальных узлов этого сервера.
+     *
+     * @param address адрес узла
+     * @param weight  новый вес в процентах от стандартного узла
+     * @return true, если вес изменился; false, если узла нет или вес тот же
+     */
+    public boolean updateWeight(String address, int weight) {
+        log.info("Update weight: address={}, weight={}", address, weight);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Node weight must not be negative");
+        }
+        return commit(version -> SchemaChange.updateWeight(version, address, weight));
+    }
+
+    /**
+     * Меняет веса нескольких узлов одной версией схемы с одной миграцией от текущего кольца к итоговому.
+     * Изменения, построенные по устаревшей схеме, отклоняются целиком.
+     *
+     * @param weights         новые веса по адресам узлов (отсутствующие узлы пропускаются)
+     * @param expectedVersion версия схемы, для которой рассчитаны веса
+     * @return true, если схема изменилась
+     * @throws SchemaVersionConflictException если текущая версия отличается от expectedVersion
+     */
+    public boolean updateWeights(Map<String, Integer> weights, int expectedVersion) {
+        log.info("Update weights: weights={}, expectedVersion={}", weights, expectedVersion);
+        if (weights.values().stream().anyMatch(weight -> weight < 0)) {
+            throw new IllegalArgumentException("Node weight must not be negative");
+        }
+        return commit(version -> {
+            if (version - 1 != expectedVersion) {
+                throw new SchemaVersionConflictException(expectedVersion, version - 1);
+            }
+            List<SchemaChange> changes = new ArrayList<>();
+            weights.forEach((address, weight) -> changes.add(SchemaChange.updateWeight(version, address, weight)));
+            return SchemaChange.batch(version, changes);
+        });
+    }
+
+    /**
+     * Применяет несколько изменений состава одной версией схемы: кольцо перестраивается один раз,
+     * и данные переносятся одним планом от старого кольца к итоговому, без промежуточных перемещений.
+     * Сначала удаляются узлы, затем добавляются, затем меняется число виртуальных узлов.
+     *
+     * @param added           добавляемые узлы (уже существующие пропускаются)
+     * @param removed         адреса удаляемых узлов (отсутствующие пропускаются)
+     * @param newVirtualNodes новое количество виртуальных узлов или null, если оно не меняется
+     * @return true, если схема изменилась
+     */
+    public boolean applyBatch(List<ServerNode> added, List<String> removed, Integer newVirtualNodes) {
+        log.info("Apply batch: added={}, removed={}, newVirtualNodes={}", added, removed, newVirtualNodes);
+        return commit(version -> {
+            List<SchemaChange> changes = new ArrayList<>();
+            removed.forEach(address -> changes.add(SchemaChange.removeServer(version, address)));
+            added.forEach(node -> changes.add(SchemaChange.addServer(version, node.getAddress(), node.getWeight())));
+            if (newVirtualNodes != null) {
+                changes.add(SchemaChange.updateShardCount(version, newVirtualNodes));
+            }
+            return SchemaChange.batch(version, changes);
+        });
+    }
+
+    /**
+     * Применяет изменение к текущей схеме: записывает его в журнал, публикует новую версию
+     * в состоянии миграции и переносит данные между узлами. Когда все переносы подтверждены,
+     * публикуется следующая версия с тем же кольцом уже без состояния миграции ({@link SchemaChange.Type#PROMOTE}).
+     *
+     * @param changeFactory изменение для следующей версии
+     * @return false, если изменение ничего не меняет
+     */
+    private boolean commit(IntFunction<SchemaChange> changeFactory) {
+        if (leaderUrl != null) {
+            throw new NotLeaderException(leaderUrl);
+        }
+        long locked = lockWriter();
         try {
-            ConsistentHashRing<ServerNode> oldRing = this.ring;
-            this.ring = new ConsistentHashRing<>(
-                    new ConsistentHashRing.MD5HashFunction(),
-                    nodes,
-                    newVirtualNodes
-            );
-            Map<ServerNode, List<HashRange>> migrationPlan = calculateMigrationRanges(oldRing, ring);
-            incrementVersion();
-            executeRestRangeMigration(migrationPlan, oldRing);
+            SchemaSnapshot current = snapshot.get();
+            SchemaChange change = changeFactory.apply(current.getVersion() + 1);
+            SchemaSnapshot next = apply(current, change);
+            if (next == null) {
+                return false;
+            }
+            // Задание миграции записывается до изменения, а журнал - до публикации: у каждой записанной
+            // версии есть её задание, и опубликованная версия всегда переживает рестарт
+            migrationExecutor.prepare(migrationTasks(current.getRing(), next.getRing()), next.getVersion());
+            try {
+                schemaStore.append(change);
+            } catch (RuntimeException e) {
+                migrationExecutor.discardJobsAfter(current.getVersion());
+                throw e;
+            }
+            record(change);
+            publish(withHandoff(next));
+            schemaStore.checkpoint(next);
+            migrate();
+            return true;
         } finally {
-            lock.writeLock().unlock();
+            unlockWriter(locked);
         }
     }
 
-    Map<ServerNode, List<HashRange>> calculateMigrationRanges(
-            ConsistentHashRing<ServerNode> oldRing,
-            ConsistentHashRing<ServerNode> newRing) {
-        Map<ServerNode, List<HashRange>> migrationPlan = new HashMap<>();
-        for (ServerNode node : newRing.getNodes()) {
-            List<HashRange> newRanges = newRing.getNodes().size() == 1
-                    ? List.of(new HashRange(Integer.MIN_VALUE, Integer.MAX_VALUE))
-                    : newRing.getHashRanges(node);
-            log.info("for node {} calculating new ranges {}", node.getAddress(), newRanges);
-            for (HashRange range : newRanges) {
-                ServerNode oldOwner = oldRing.getNodeByHash(range.getStart());
-                log.info("for newRange {} found old owner {}", range, oldOwner);
-                if (oldOwner == null || !oldOwner.equals(node)) {
-                     migrationPlan
-                            .computeIfAbsent(node, k -> new ArrayList<>())
-                            .add(range);
+    /**
+     * Строит схему, получающуюся применением изменения. Текущий снимок не меняется.
+     *
+     * @return новый снимок или null, если изменение ничего не меняет
+     */
+    SchemaSnapshot apply(SchemaSnapshot current, SchemaChange change) {
+        Set<ServerNode> nodes;
+        ConsistentHashRing<ServerNode> ring;
+        switch (change.type()) {
+            case ADD_SERVER -> {
+                ServerNode node = new ServerNode(change.address(), change.weight());
+                if (current.getNodes().contains(node)) {
+                    return null;
+                }
+                nodes = new HashSet<>(current.getNodes());
+                nodes.add(node);
+                ring = placement.withNode(current.getRing(), node);
+            }
+            case REMOVE_SERVER -> {
+                ServerNode node = new ServerNode(change.address());
+                if (!current.getNodes().contains(node)) {
+                    return null;
+                }
+                nodes = new HashSet<>(current.getNodes());
+                nodes.remove(node);
+                ring = placement.withoutNode(current.getRing(), node);
+            }
+            case UPDATE_SHARD_COUNT -> {
+                // Новое кольцо может досолить узлы, поэтому строим его на копиях,
+                // чтобы не менять узлы, которые сейчас сериализуют читатели.
+                nodes = new HashSet<>();
+                for (ServerNode node : current.getNodes()) {
+                    nodes.add(new ServerNode(node));
+                }
+                ring = placement.build(hashFunction, nodes, change.virtualNodes());
+            }
+            case UPDATE_WEIGHT -> {
+                ServerNode previous = current.getNodes().stream()
+                        .filter(node -> node.getAddress().equals(change.address()))
+                        .findFirst()
+                        .orElse(null);
+                if (previous == null || previous.getWeight() == change.weight()) {
+                    return null;
                 }
+                ServerNode node = new ServerNode(previous, change.weight());
+                nodes = new HashSet<>(current.getNodes());
+                nodes.remove(previous);
+                nodes.add(node);
+                ring = placement.withUpdatedNode(current.getRing(), node);
+            }
+            case BATCH -> {
+                return applyBatch(current, change);
+            }
+            case PROMOTE -> {
+                if (!current.isMigrating()) {
+                    return null;
+                }
+                return new SchemaSnapshot(current.getNodes(), current.getRing(), change.version());
+            }
+            default -> throw new IllegalArgumentException("Unknown schema change: " + change.type());
+        }
+        return new SchemaSnapshot(nodes, ring, change.version());
+    }
+
+    /**
+     * Сворачивает изменения пакета в итоговый состав и строит по нему одно новое кольцо.
+     *
+     * @return новый снимок или null, если итоговая схема совпадает с текущей
+     */
+    private SchemaSnapshot applyBatch(SchemaSnapshot current, SchemaChange batch) {
+        Map<String, ServerNode> initial = new HashMap<>();
+        current.getNodes().forEach(node -> initial.put(node.getAddress(), node));
+        // Порядок добавления определяет соли при коллизиях, поэтому он должен повторяться при воспроизведении
+        Map<String, ServerNode> result = new LinkedHashMap<>(initial);
+        int virtualNodes = current.getVirtualNodes();
+        for (SchemaChange change : batch.changes()) {
+            switch (change.type()) {
+                case ADD_SERVER -> result.putIfAbsent(change.address(),
+                        new ServerNode(change.address(), change.weight()));
+                case REMOVE_SERVER -> result.remove(change.address());
+                case UPDATE_WEIGHT -> result.computeIfPresent(change.address(),
+                        (address, node) -> new ServerNode(node, change.weight()));
+                case UPDATE_SHARD_COUNT -> virtualNodes = change.virtualNodes();
+                default -> throw new IllegalArgumentException("Unsupported change in batch: " + change.type());
             }
         }
-        for (ServerNode oldNode : oldRing.getNodes()) {
-            List<HashRange> oldRanges = oldRing.getHashRanges(oldNode);
-            for (HashRange oldRange : oldRanges) {
-                ServerNode newOwner = newRing.getNodeByHash(oldRange.getStart());
-                if (newOwner == null || !newOwner.equals(oldNode)) {
-                    migrationPlan
-                            .computeIfAbsent(newOwner, k -> new ArrayList<>())
-                            .add(oldRange);
+
+        List<ServerNode> removed = new ArrayList<>();
+        List<ServerNode> updated = new ArrayList<>();
+        List<ServerNode> added = new ArrayList<>();
+        for (ServerNode node : initial.values()) {
+            if (!result.containsKey(node.getAddress())) {
+                removed.add(node);
+            }
+        }
+        for (ServerNode node : result.values()) {
+            ServerNode before = initial.get(node.getAddress());
+            if (before == null) {
+                added.add(node);
+            } else if (before.getWeight() != node.getWeight()) {
+                updated.add(new ServerNode(before, node.getWeight()));
+            }
+        }
+        if (removed.isEmpty() && updated.isEmpty() && added.isEmpty() && virtualNodes == current.getVirtualNodes()) {
+            return null;
+        }
+
+        ConsistentHashRing<ServerNode> ring;
+        if (virtualNodes != current.getVirtualNodes()) {
+            // Как и при UPDATE_SHARD_COUNT, новое кольцо строится на копиях узлов
+            List<ServerNode> copies = new ArrayList<>();
+            for (ServerNode node : result.values()) {
+                copies.add(new ServerNode(node));
+            }
+            ring = placement.build(hashFunction, copies, virtualNodes);
+        } else {
+            ring = placement.withChanges(current.getRing(), removed, updated, added);
+        }
+        // В схему попадают те же объекты узлов, что и в кольцо: их соли видят клиенты
+        return new SchemaSnapshot(new HashSet<>(ring.getNodeTable()), ring, batch.version());
+    }
+
+    /**
+     * Применяет уже принятое изменение: версия сдвигается, даже если схема не меняется.
+     */
+    private SchemaSnapshot replay(SchemaSnapshot current, SchemaChange change) {
+        SchemaSnapshot next = apply(current, change);
+        return next != null ? next : new SchemaSnapshot(current.getNodes(), current.getRing(), change.version());
+    }
+
+    /**
+     * Переводит мастер в режим ведомого: изменения схемы принимаются только от ведущего,
+     * собственные изменения отклоняются с {@link NotLeaderException}.
+     *
+     * @param leaderUrl адрес ведущего мастера
+     */
+    public void followLeader(String leaderUrl) {
+        log.info("Follow leader: leaderUrl={}", leaderUrl);
+        this.leaderUrl = leaderUrl;
+    }
+
+    /**
+     * @return true, если мастер принимает изменения схемы сам
+     */
+    public boolean isLeader() {
+        return leaderUrl == null;
+    }
+
+    /**
+     * Изменения схемы после указанной версии до текущей.
+     *
+     * @param sinceVersion версия, известная ведомому
+     * @return изменения по возрастанию версий или null, если часть из них уже вытеснена
+     */
+    public List<SchemaChange> getChangesSince(int sinceVersion) {
+        int current = getVersion();
+        if (sinceVersion > current) {
+            return null;
+        }
+        List<SchemaChange> changes = new ArrayList<>(current - sinceVersion);
+        int expected = sinceVersion + 1;
+        // Изменение попадает в журнал до публикации своей версии: слушатели публикации уже видят его
+        for (SchemaChange change : changeLog.subMap(sinceVersion, false, current, true).values()) {
+            if (change.version() != expected) {
+                return null;
+            }
+            changes.add(change);
+            expected++;
+        }
+        return expected > current ? changes : null;
+    }
+
+    /**
+     * Применяет изменения, полученные от ведущего мастера. Данные между узлами переносит ведущий,
+     * поэтому миграция здесь не запускается. Подтверждений переносов ведомый не видит:
+     * до {@link SchemaChange.Type#PROMOTE} все диапазоны миграции читаются с прежних владельцев.
+     *
+     * @param changes изменения по возрастанию версий; уже применённые пропускаются
+     * @throws IllegalStateException если между текущей версией и изменениями есть пропуск
+     */
+    public void applyReplicated(List<SchemaChange> changes) {
+        long locked = lockWriter();
+        try {
+            for (SchemaChange change : changes) {
+                SchemaSnapshot current = snapshot.get();
+                if (change.version() <= current.getVersion()) {
+                    continue;
+                }
+                if (change.version() != current.getVersion() + 1) {
+                    throw new IllegalStateException("Replication gap: version " + current.getVersion()
+                            + " is followed by " + change.version());
                 }
+                SchemaSnapshot next = replayedHandoff(current, replay(current, change), change);
+                schemaStore.append(change);
+                record(change);
+                publish(next);
+                schemaStore.checkpoint(next);
             }
+        } finally {
+            unlockWriter(locked);
         }
-        log.info("Calculated new migrationPlan: {}", migrationPlan);
-        return migrationPlan;
     }
 
-    void executeRestRangeMigration(
-            Map<ServerNode, List<HashRange>> migrationPlan,
-            ConsistentHashRing<ServerNode> oldRing
-    ) {
-        for (Map.Entry<ServerNode, List<HashRange>> entry : migrationPlan.entrySet()) {
-            ServerNode targetNode = entry.getKey();
-            List<HashRange> rangesToMigrate = entry.getValue();
-            for (HashRange range : rangesToMigrate) {
-                ServerNode sourceNode = oldRing.getNodeForHash(range.getStart());
-                log.info("Call migration from {} to {}", sourceNode, targetNode);
-                restClient.migrateRangeDirectly(
-                        sourceNode,
-                        targetNode,
-                        range.getStart(),
-                        range.getEnd(),
-                        getVersion()
-                );
+    /**
+     * Состояние миграции реплицированной версии: диапазоны её плана добавляются к ещё не завершённым.
+     */
+    private SchemaSnapshot replayedHandoff(SchemaSnapshot current, SchemaSnapshot next, SchemaChange change) {
+        if (change.type() == SchemaChange.Type.PROMOTE) {
+            return next;
+        }
+        List<MigrationJob> jobs = new ArrayList<>();
+        List<MigrationTask> tasks = migrationTasks(current.getRing(), next.getRing());
+        if (current.isMigrating()) {
+            jobs.addAll(current.getHandoff().getJobs());
+            if (!tasks.isEmpty()) {
+                jobs.add(new MigrationJob(next.getVersion(), tasks));
+            }
+            // Стабильная версия остаётся прежней, даже если задания восстановлены из снимка ведущего
+            return next.withHandoff(new MigrationHandoff(current.getHandoff().getStableVersion(), jobs));
+        }
+        if (!tasks.isEmpty()) {
+            jobs.add(new MigrationJob(next.getVersion(), tasks));
+        }
+        return jobs.isEmpty() ? next : next.withHandoff(new MigrationHandoff(jobs));
+    }
+
+    /**
+     * Заменяет схему полным снимком ведущего мастера (первая синхронизация или отставание
+     * больше хранимого журнала).
+     *
+     * @param replicated снимок схемы ведущего
+     */
+    public void resetReplicated(SchemaSnapshot replicated) {
+        long locked = lockWriter();
+        try {
+            log.info("Reset schema from leader: version={}", replicated.getVersion());
+            requirePlacement(replicated);
+            schemaStore.reset(replicated);
+            history.clear();
+            changeLog.clear();
+            publish(replicated);
+        } finally {
+            unlockWriter(locked);
+        }
+    }
+
+    /**
+     * Запоминает изменение для ведомых мастеров. Вызывается до публикации версии,
+     * чтобы ожидающие её ведомые получили изменение, а не полный снимок.
+     */
+    private void record(SchemaChange change) {
+        changeLog.put(change.version(), change);
+        while (changeLog.size() > SCHEMA_HISTORY_SIZE) {
+            changeLog.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Восстанавливает схему из хранилища: последний снимок и журнал изменений после него.
+     * Миграции для восстановленных изменений не планируются заново: задание каждого изменения
+     * записывается раньше самого изменения и продолжается исполнителем миграции.
+     *
+     * @param initial схема из исходных узлов, если снимка ещё нет
+     */
+    private SchemaSnapshot recover(SchemaSnapshot initial) {
+        SchemaStore.StoredState stored = schemaStore.load(hashFunction);
+        if (stored == null) {
+            return initial;
+        }
+        SchemaSnapshot current = stored.snapshot() != null ? stored.snapshot() : initial;
+        requirePlacement(current);
+        for (SchemaChange change : stored.changes()) {
+            if (change.version() <= current.getVersion()) {
+                continue;
             }
+            if (change.version() != current.getVersion() + 1) {
+                throw new IllegalStateException("Schema log gap: version " + current.getVersion()
+                        + " is followed by " + change.version());
+            }
+            current = replay(current, change);
         }
+        log.info("Schema restored: version={}, nodes={}, replayed={}",
+                current.getVersion(), current.getNodes().size(), stored.changes().size());
+        return current;
     }
 
-    private void incrementVersion() {
-        log.info("Увеличении версии {}", this.version.incrementAndGet());
+    /**
+     * Проверяет, что схема построена настроенной стратегией: иначе следующие изменения
+     * перестроили бы всё размещение.
+     */
+    private void requirePlacement(SchemaSnapshot schema) {
+        if (!schema.getPlacement().equals(placement.name())) {
+            throw new IllegalStateException("Schema was placed with " + schema.getPlacement()
+                    + ", but placement.strategy is " + placement.name());
+        }
+    }
+
+    /**
+     * Продолжает незавершённые задания миграции: после рестарта мастера или после переноса,
+     * не удавшегося со всеми повторами. Изменения схемы на это время ждут, как и при обычной миграции.
+     *
+     * @throws MigrationException если перенос снова не удался
+     */
+    public void resumeMigrations() {
+        if (leaderUrl != null) {
+            throw new NotLeaderException(leaderUrl);
+        }
+        long locked = lockWriter();
+        try {
+            migrate();
+        } finally {
+            unlockWriter(locked);
+        }
+    }
+
+    /**
+     * Выполняет незавершённые задания миграции и, если все переносы подтверждены,
+     * выводит схему из состояния миграции новой версией с тем же кольцом.
+     * Вызывается только под writeLock.
+     */
+    private void migrate() {
+        migrationExecutor.resume();
+        SchemaSnapshot current = snapshot.get();
+        if (!current.isMigrating()) {
+            return;
+        }
+        SchemaChange change = SchemaChange.promote(current.getVersion() + 1);
+        SchemaSnapshot next = apply(current, change);
+        schemaStore.append(change);
+        record(change);
+        publish(next);
+        schemaStore.checkpoint(next);
+        log.info("Migration promoted: stableVersion={}, version={}",
+                current.getHandoff().getStableVersion(), next.getVersion());
+    }
+
+    /**
+     * Схема в состоянии миграции, если у исполнителя есть незавершённые задания.
+     */
+    private SchemaSnapshot withHandoff(SchemaSnapshot schema) {
+        List<MigrationJob> jobs = migrationExecutor.getUnfinishedJobs();
+        return jobs.isEmpty() ? schema : schema.withHandoff(new MigrationHandoff(jobs));
+    }
+
+    /**
+     * Строит план миграции от старого кольца к новому.
+     */
+    private List<MigrationTask> migrationTasks(
+            ConsistentHashRing<ServerNode> oldRing,
+            ConsistentHashRing<ServerNode> newRing
+    ) {
+        long started = System.nanoTime();
+        MigrationPlan plan = MigrationPlanner.plan(oldRing, newRing);
+        planTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        planRanges.record(plan.rangeCount());
+        // Данные удалённых узлов восстанавливаются раньше перераспределения между оставшимися
+        Set<ServerNode> remaining = new HashSet<>(newRing.getNodeTable());
+        List<MigrationTask> tasks = plan.toTasks().stream()
+                .map(task -> remaining.contains(task.source())
+                        ? task : task.withPriority(MigrationPriority.RECOVERY))
+                .toList();
+        log.info("Migration plan: ranges={}, batches={}", plan.rangeCount(), tasks.size());
+        return tasks;
+    }
+
+    /**
+     * Берёт блокировку писателя, учитывая время ожидания.
+     *
+     * @return момент захвата для {@link #unlockWriter(long)}
+     */
+    private long lockWriter() {
+        long started = System.nanoTime();
+        writeLock.lock();
+        long locked = System.nanoTime();
+        writeLockWait.record(locked - started, TimeUnit.NANOSECONDS);
+        return locked;
+    }
+
+    private void unlockWriter(long locked) {
+        writeLockHold.record(System.nanoTime() - locked, TimeUnit.NANOSECONDS);
+        writeLock.unlock();
+    }
+
+    /**
+     * Атомарно публикует новый снимок схемы.
+     * Вызывается только под writeLock.
+     */
+    private void publish(SchemaSnapshot next) {
+        history.put(next.getVersion(), next);
+        snapshot.set(next);
+        while (history.size() > SCHEMA_HISTORY_SIZE) {
+            history.pollFirstEntry();
+        }
+        for (Consumer<SchemaSnapshot> listener : schemaListeners) {
+            try {
+                listener.accept(next);
+            } catch (RuntimeException e) {
+                log.warn("Schema listener failed: version={}", next.getVersion(), e);
+            }
+        }
+        log.info("Увеличении версии {}", next.getVersion());
     }
 }
\ No newline at end of file
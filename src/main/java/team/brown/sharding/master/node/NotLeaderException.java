@@ -0,0 +1,17 @@
+package team.brown.sharding.master.node;
+
+/**
+ * Изменение схемы отправлено ведомому мастеру; изменения принимает только ведущий.
+ */
+public class NotLeaderException extends RuntimeException {
+    private final String leaderUrl;
+
+    public NotLeaderException(String leaderUrl) {
+        super("Schema changes are accepted by the leader master only: " + leaderUrl);
+        this.leaderUrl = leaderUrl;
+    }
+
+    public String getLeaderUrl() {
+        return leaderUrl;
+    }
+}
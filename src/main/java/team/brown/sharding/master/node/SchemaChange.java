@@ -0,0 +1,74 @@
+package team.brown.sharding.master.node;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Изменение схемы, переводящее её из версии {@code version - 1} в {@code version}.
+ * <p>
+ * Применение изменения к кольцу детерминировано (в том числе соли при коллизиях),
+ * поэтому последовательность изменений достаточна, чтобы восстановить схему точно.
+ *
+ * @param version      версия схемы после изменения
+ * @param type         вид изменения
+ * @param address      адрес узла (для ADD_SERVER, REMOVE_SERVER и UPDATE_WEIGHT)
+ * @param virtualNodes новое количество виртуальных узлов (для UPDATE_SHARD_COUNT)
+ * @param weight       вес узла (для ADD_SERVER и UPDATE_WEIGHT)
+ * @param changes      изменения пакета с той же версией (для BATCH), применяются за одно перестроение кольца
+ */
+public record SchemaChange(int version,
+                           Type type,
+                           String address,
+                           int virtualNodes,
+                           int weight,
+                           @JsonInclude(JsonInclude.Include.NON_EMPTY) List<SchemaChange> changes) {
+
+    public enum Type {
+        ADD_SERVER,
+        REMOVE_SERVER,
+        UPDATE_SHARD_COUNT,
+        UPDATE_WEIGHT,
+        BATCH,
+        /**
+         * Миграция к кольцу предыдущей версии завершена: кольцо не меняется, схема выходит из состояния миграции
+         */
+        PROMOTE
+    }
+
+    public SchemaChange {
+        changes = changes == null ? List.of() : List.copyOf(changes);
+    }
+
+    public SchemaChange(int version, Type type, String address, int virtualNodes, int weight) {
+        this(version, type, address, virtualNodes, weight, List.of());
+    }
+
+    public static SchemaChange addServer(int version, String address) {
+        return addServer(version, address, ServerNode.DEFAULT_WEIGHT);
+    }
+
+    public static SchemaChange addServer(int version, String address, int weight) {
+        return new SchemaChange(version, Type.ADD_SERVER, address, 0, weight);
+    }
+
+    public static SchemaChange removeServer(int version, String address) {
+        return new SchemaChange(version, Type.REMOVE_SERVER, address, 0, ServerNode.DEFAULT_WEIGHT);
+    }
+
+    public static SchemaChange updateShardCount(int version, int virtualNodes) {
+        return new SchemaChange(version, Type.UPDATE_SHARD_COUNT, null, virtualNodes, ServerNode.DEFAULT_WEIGHT);
+    }
+
+    public static SchemaChange updateWeight(int version, String address, int weight) {
+        return new SchemaChange(version, Type.UPDATE_WEIGHT, address, 0, weight);
+    }
+
+    public static SchemaChange promote(int version) {
+        return new SchemaChange(version, Type.PROMOTE, null, 0, ServerNode.DEFAULT_WEIGHT);
+    }
+
+    public static SchemaChange batch(int version, List<SchemaChange> changes) {
+        return new SchemaChange(version, Type.BATCH, null, 0, ServerNode.DEFAULT_WEIGHT, changes);
+    }
+}
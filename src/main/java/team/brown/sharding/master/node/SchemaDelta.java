@@ -0,0 +1,54 @@
+package team.brown.sharding.master.node;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Изменения схемы между двумя версиями.
+ *
+ * @param fromVersion  версия, от которой считаются изменения
+ * @param snapshot     актуальный снимок схемы
+ * @param reset        true, если версии fromVersion уже нет в истории: added содержит все узлы,
+ *                     и клиент должен заменить свою схему целиком
+ * @param added        появившиеся узлы
+ * @param removed      удалённые узлы
+ * @param updated      узлы, у которых изменились соли или вес (например, после смены числа виртуальных узлов)
+ */
+public record SchemaDelta(
+        int fromVersion,
+        SchemaSnapshot snapshot,
+        boolean reset,
+        Set<ServerNode> added,
+        Set<ServerNode> removed,
+        Set<ServerNode> updated
+) {
+
+    /**
+     * Вычисляет изменения от старого снимка к новому.
+     */
+    public static SchemaDelta between(SchemaSnapshot from, SchemaSnapshot to) {
+        Map<ServerNode, ServerNode> previous = new HashMap<>();
+        from.getNodes().forEach(node -> previous.put(node, node));
+        Set<ServerNode> added = new HashSet<>();
+        Set<ServerNode> updated = new HashSet<>();
+        for (ServerNode node : to.getNodes()) {
+            ServerNode old = previous.remove(node);
+            if (old == null) {
+                added.add(node);
+            } else if (old.getWeight() != node.getWeight() || !old.getSalts().equals(node.getSalts())) {
+                updated.add(node);
+            }
+        }
+        Set<ServerNode> removed = new HashSet<>(previous.keySet());
+        return new SchemaDelta(from.getVersion(), to, false, added, removed, updated);
+    }
+
+    /**
+     * Полная схема для клиента, чья версия уже вытеснена из истории.
+     */
+    public static SchemaDelta reset(int fromVersion, SchemaSnapshot to) {
+        return new SchemaDelta(fromVersion, to, true, to.getNodes(), Set.of(), Set.of());
+    }
+}
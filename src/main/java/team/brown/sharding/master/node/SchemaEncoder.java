@@ -0,0 +1,59 @@
+package team.brown.sharding.master.node;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.model.SchemaResponse;
+
+/**
+ * Готовые к отдаче представления схемы.
+ * <p>
+ * Схема меняется только со сменой версии, поэтому JSON и бинарное кольцо рендерятся
+ * один раз на снимок (сразу при публикации) и дальше отдаются сохранёнными байтами.
+ * Исключение - JSON снимка в состоянии миграции: список переносимых диапазонов сокращается
+ * по мере подтверждения переносов, поэтому такой JSON рендерится заново, только когда меняется
+ * число подтверждённых переносов (оно же входит в ETag ответа).
+ */
+@Component
+public class SchemaEncoder {
+    private static final String JSON = "json";
+
+    private final ObjectMapper objectMapper;
+
+    public SchemaEncoder(MasterNode masterNode, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        masterNode.addSchemaListener(this::render);
+    }
+
+    /**
+     * @param snapshot снимок схемы
+     * @return {@link SchemaResponse} снимка в JSON
+     */
+    public byte[] json(SchemaSnapshot snapshot) {
+        if (snapshot.isMigrating()) {
+            return snapshot.getEncoded(JSON, snapshot.getHandoff().getConfirmed(), this::writeJson);
+        }
+        return snapshot.getEncoded(JSON, this::writeJson);
+    }
+
+    /**
+     * @param snapshot снимок схемы
+     * @return кольцо снимка в бинарном формате
+     */
+    public byte[] ring(SchemaSnapshot snapshot) {
+        return snapshot.getRingBinary();
+    }
+
+    private void render(SchemaSnapshot snapshot) {
+        json(snapshot);
+        ring(snapshot);
+    }
+
+    private byte[] writeJson(SchemaSnapshot snapshot) {
+        try {
+            return objectMapper.writeValueAsBytes(SchemaResponse.from(snapshot));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render schema version " + snapshot.getVersion(), e);
+        }
+    }
+}
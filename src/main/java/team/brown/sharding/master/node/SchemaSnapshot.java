@@ -0,0 +1,188 @@
+package team.brown.sharding.master.node;
+
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.hash.RingBinaryCodec;
+import team.brown.sharding.master.migration.MigrationHandoff;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Неизменяемый снимок схемы шардирования: множество узлов, кольцо и версия.
+ * Публикуется мастер-узлом целиком, поэтому читатели всегда видят согласованную тройку.
+ * Кольцо снимка после публикации не модифицируется: писатели работают с его копией.
+ * <p>
+ * Пока данные переносятся к кольцу этой версии, снимок находится в состоянии миграции
+ * и несёт {@link MigrationHandoff}: кольцо снимка - новое (ожидающее), а диапазоны,
+ * перенос которых ещё не подтверждён, читаются с прежних владельцев стабильного кольца.
+ */
+public final class SchemaSnapshot {
+    private final Set<ServerNode> nodes;
+    private final ConsistentHashRing<ServerNode> ring;
+    private final int version;
+    // Незавершённая миграция к кольцу этой версии; null, если данные уже на местах
+    private final MigrationHandoff handoff;
+    // Закодированные представления этой версии по имени кодировки
+    private final ConcurrentHashMap<String, byte[]> encodings = new ConcurrentHashMap<>(4);
+    // Представления, меняющиеся по ходу миграции: последняя закодированная ревизия по имени кодировки
+    private final ConcurrentHashMap<String, Revision> revisions = new ConcurrentHashMap<>(2);
+
+    public SchemaSnapshot(Set<ServerNode> nodes, ConsistentHashRing<ServerNode> ring, int version) {
+        this(Collections.unmodifiableSet(new HashSet<>(nodes)), ring, version, null);
+    }
+
+    private SchemaSnapshot(Set<ServerNode> nodes, ConsistentHashRing<ServerNode> ring, int version,
+                           MigrationHandoff handoff) {
+        this.nodes = nodes;
+        this.ring = ring;
+        this.version = version;
+        this.handoff = handoff;
+    }
+
+    /**
+     * Та же схема в состоянии миграции (или без неё, если handoff null).
+     *
+     * @param handoff незавершённая миграция к кольцу этой версии
+     * @return новый снимок той же версии
+     */
+    public SchemaSnapshot withHandoff(MigrationHandoff handoff) {
+        return new SchemaSnapshot(nodes, ring, version, handoff);
+    }
+
+    /**
+     * Собирает снимок из узлов с солями и сохранённого кольца без повторного хеширования.
+     *
+     * @param nodes        узлы схемы с их солями
+     * @param table        кольцо в формате {@link RingBinaryCodec}
+     * @param hashFunction хеш-функция, настроенная на этом мастере
+     * @return снимок версии кольца
+     * @throws IllegalStateException если кольцо построено другой хеш-функцией или ссылается на неизвестный узел
+     */
+    public static SchemaSnapshot restore(Collection<ServerNode> nodes,
+                                         RingBinaryCodec.RingTable table,
+                                         ConsistentHashRing.HashFunction hashFunction) {
+        if (!table.hashFunction().equals(hashFunction.name())) {
+            throw new IllegalStateException("Ring was built with " + table.hashFunction()
+                    + ", but ring.hash-function is " + hashFunction.name());
+        }
+        Map<String, ServerNode> byAddress = new HashMap<>();
+        nodes.forEach(node -> byAddress.put(node.getAddress(), node));
+        List<ServerNode> nodeTable = new ArrayList<>(table.nodes().size());
+        for (String address : table.nodes()) {
+            ServerNode node = byAddress.get(address);
+            if (node == null) {
+                throw new IllegalStateException("Ring references unknown node " + address);
+            }
+            nodeTable.add(node);
+        }
+        var ring = ConsistentHashRing.restore(hashFunction, table.placement(), table.slots(), table.virtualNodes(),
+                nodeTable, table.hashes(), table.owners());
+        return new SchemaSnapshot(new HashSet<>(nodes), ring, table.schemaVersion());
+    }
+
+    public Set<ServerNode> getNodes() {
+        return nodes;
+    }
+
+    public ConsistentHashRing<ServerNode> getRing() {
+        return ring;
+    }
+
+    public int getVirtualNodes() {
+        return ring.getVirtualNodes();
+    }
+
+    public String getHashFunction() {
+        return ring.getHashFunction().name();
+    }
+
+    public String getPlacement() {
+        return ring.getPlacement();
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return незавершённая миграция к кольцу этой версии или null
+     */
+    public MigrationHandoff getHandoff() {
+        return handoff;
+    }
+
+    public boolean isMigrating() {
+        return handoff != null;
+    }
+
+    /**
+     * Узел, с которого сейчас читаются данные хеша: прежний владелец, пока диапазон
+     * переносится, иначе владелец по кольцу.
+     *
+     * @param hash хеш ключа
+     * @return узел для чтения или null, если кольцо пусто
+     */
+    public ServerNode getReadOwner(int hash) {
+        if (handoff != null) {
+            ServerNode previous = handoff.ownerOf(hash);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        return ring.getNodeForHash(hash);
+    }
+
+    /**
+     * Кольцо этой версии в формате {@link RingBinaryCodec}.
+     * Кодируется один раз, возвращаемый массив нельзя изменять.
+     *
+     * @return бинарное представление кольца
+     */
+    public byte[] getRingBinary() {
+        return getEncoded("ring", snapshot -> RingBinaryCodec.encode(snapshot.ring, snapshot.version));
+    }
+
+    /**
+     * Представление этой версии в указанной кодировке.
+     * Кодировщик вызывается один раз на кодировку, дальше отдаются сохранённые байты,
+     * которые нельзя изменять.
+     *
+     * @param encoding имя кодировки
+     * @param encoder  кодировщик снимка
+     * @return закодированный снимок
+     */
+    public byte[] getEncoded(String encoding, Function<SchemaSnapshot, byte[]> encoder) {
+        byte[] result = encodings.get(encoding);
+        return result != null ? result : encodings.computeIfAbsent(encoding, key -> encoder.apply(this));
+    }
+
+    /**
+     * Представление этой версии, зависящее от хода миграции.
+     * Хранится только последняя ревизия: кодировщик вызывается заново, когда ревизия меняется.
+     *
+     * @param encoding имя кодировки
+     * @param revision ревизия содержимого, например число подтверждённых переносов
+     * @param encoder  кодировщик снимка
+     * @return закодированный снимок
+     */
+    public byte[] getEncoded(String encoding, int revision, Function<SchemaSnapshot, byte[]> encoder) {
+        Revision cached = revisions.get(encoding);
+        if (cached != null && cached.revision() == revision) {
+            return cached.bytes();
+        }
+        return revisions.compute(encoding, (key, current) -> current != null && current.revision() == revision
+                ? current
+                : new Revision(revision, encoder.apply(this))).bytes();
+    }
+
+    private record Revision(int revision, byte[] bytes) {
+    }
+}
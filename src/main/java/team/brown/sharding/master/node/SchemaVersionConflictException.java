@@ -0,0 +1,23 @@
+package team.brown.sharding.master.node;
+
+/**
+ * Изменение построено для версии схемы, которая уже не текущая.
+ */
+public class SchemaVersionConflictException extends RuntimeException {
+    private final int expectedVersion;
+    private final int actualVersion;
+
+    public SchemaVersionConflictException(int expectedVersion, int actualVersion) {
+        super("Schema changed since version " + expectedVersion + ", current version is " + actualVersion);
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public int getActualVersion() {
+        return actualVersion;
+    }
+}
@@ -0,0 +1,93 @@
+package team.brown.sharding.master.node;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ожидание новых версий схемы без выделенного потока на каждого наблюдателя.
+ * <p>
+ * Наблюдатель получает future, которое завершается снимком, как только
+ * {@link MasterNode} опубликует версию новее известной клиенту.
+ * Публикация идёт под блокировкой записи схемы, поэтому под ней наблюдатели только снимаются
+ * с учёта, а их future (и всё, что к ним привязано: рендер ответа, ответы ведомым мастерам)
+ * завершаются в отдельном потоке.
+ */
+@Slf4j
+@Component
+public class SchemaWatchService implements DisposableBean {
+    private final MasterNode masterNode;
+    private final Set<Watcher> watchers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService notifier =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("schema-watch").factory());
+
+    public SchemaWatchService(MasterNode masterNode) {
+        this.masterNode = masterNode;
+        masterNode.addSchemaListener(this::onPublish);
+    }
+
+    /**
+     * Ожидает версию схемы новее указанной.
+     * Если она уже опубликована, future завершено сразу. Отмена future снимает наблюдателя.
+     *
+     * @param knownVersion версия, известная клиенту
+     * @return future со снимком схемы версии больше knownVersion
+     */
+    public CompletableFuture<SchemaSnapshot> watch(int knownVersion) {
+        SchemaSnapshot current = masterNode.getSnapshot();
+        if (current.getVersion() > knownVersion) {
+            return CompletableFuture.completedFuture(current);
+        }
+        Watcher watcher = new Watcher(knownVersion, new CompletableFuture<>());
+        watchers.add(watcher);
+        // Уведомлённых наблюдателей снимает публикация, здесь снимаются только отменённые
+        watcher.future().whenComplete((snapshot, error) -> {
+            if (error != null) {
+                watchers.remove(watcher);
+            }
+        });
+        // Версия могла смениться между проверкой и регистрацией
+        current = masterNode.getSnapshot();
+        if (current.getVersion() > knownVersion && watchers.remove(watcher)) {
+            watcher.future().complete(current);
+        }
+        return watcher.future();
+    }
+
+    /**
+     * @return количество ожидающих наблюдателей
+     */
+    public int getWatcherCount() {
+        return watchers.size();
+    }
+
+    @Override
+    public void destroy() {
+        notifier.shutdownNow();
+    }
+
+    private void onPublish(SchemaSnapshot snapshot) {
+        List<Watcher> notified = new ArrayList<>();
+        for (Watcher watcher : watchers) {
+            if (watcher.knownVersion() < snapshot.getVersion() && watchers.remove(watcher)) {
+                notified.add(watcher);
+            }
+        }
+        if (notified.isEmpty()) {
+            return;
+        }
+        notifier.execute(() -> notified.forEach(watcher -> watcher.future().complete(snapshot)));
+        log.debug("Notified schema watchers: version={}, watchers={}", snapshot.getVersion(), notified.size());
+    }
+
+    private record Watcher(int knownVersion, CompletableFuture<SchemaSnapshot> future) {
+    }
+}
@@ -5,18 +5,61 @@ import team.brown.sharding.master.config.Constant;
 import java.util.HashMap;
 
 public class ServerNode {
+    /**
+     * Вес стандартного узла: ему достаётся ровно virtualNodes виртуальных узлов
+     */
+    public static final int DEFAULT_WEIGHT = 100;
+
     private final String address;
     private final HashMap<Integer, String> salts;
+    // Ёмкость узла в процентах от стандартного, задаёт его долю виртуальных узлов
+    private final int weight;
 
     public ServerNode(String address) {
+        this(address, DEFAULT_WEIGHT);
+    }
+
+    /**
+     * @param address адрес узла
+     * @param weight  ёмкость в процентах от стандартного узла (0 - узел не владеет диапазонами)
+     */
+    public ServerNode(String address, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Node weight must not be negative");
+        }
         this.address = address;
+        this.weight = weight;
         salts = new HashMap<>();
     }
 
+    /**
+     * Копия узла с независимой таблицей солей.
+     *
+     * @param other исходный узел
+     */
+    public ServerNode(ServerNode other) {
+        this(other, other.weight);
+    }
+
+    /**
+     * Копия узла с независимой таблицей солей и другим весом.
+     *
+     * @param other  исходный узел
+     * @param weight новый вес
+     */
+    public ServerNode(ServerNode other, int weight) {
+        this(other.address, weight);
+        this.salts.putAll(other.salts);
+    }
+
     public String getAddress() {
         return address;
     }
 
+    public int getWeight() {
+        return weight;
+    }
+
     public HashMap<Integer, String> getSalts() {
         return salts;
     }
@@ -25,6 +68,10 @@ public class ServerNode {
         salts.put(i, Constant.BASE_SALT + j);
     }
 
+    public void removeSalt(int i) {
+        salts.remove(i);
+    }
+
     public String getSaltedByIdx(int i) {
         return salts.getOrDefault(i, "" + i);
     }
@@ -0,0 +1,62 @@
+package team.brown.sharding.master.placement;
+
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Консистентное хеширование с ограниченной нагрузкой: слот достаётся владельцу своей границы
+ * на кольце виртуальных узлов, а если тот уже получил {@code ceil((1 + epsilon) * слоты * weight / сумма весов)}
+ * слотов - следующему по кругу узлу с запасом. Ни один узел не получает больше {@code 1 + epsilon}
+ * от своей доли, остальное размещение совпадает с кольцом.
+ */
+public class BoundedLoadPlacement extends SlotPlacement {
+    private final double epsilon;
+
+    public BoundedLoadPlacement(int slots, double epsilon) {
+        super(slots);
+        if (epsilon <= 0) {
+            throw new IllegalArgumentException("Bounded-load epsilon must be positive");
+        }
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public String name() {
+        return PlacementType.BOUNDED_LOAD.getName();
+    }
+
+    @Override
+    protected int[] assign(ConsistentHashRing.HashFunction hashFunction, List<ServerNode> nodes, int virtualNodes) {
+        // Кольцо строится на копиях, чтобы соли не попали в узлы опубликованной схемы
+        List<ServerNode> copies = new ArrayList<>(nodes.size());
+        for (ServerNode node : nodes) {
+            copies.add(new ServerNode(node));
+        }
+        var ring = new ConsistentHashRing<>(hashFunction, copies, Math.max(1, virtualNodes));
+        int slots = getSlots();
+        long totalWeight = nodes.stream().mapToLong(ServerNode::getWeight).sum();
+        int[] capacity = new int[nodes.size()];
+        for (int i = 0; i < capacity.length; i++) {
+            capacity[i] = (int) Math.ceil((1 + epsilon) * slots * nodes.get(i).getWeight() / totalWeight);
+        }
+        int[] load = new int[nodes.size()];
+        int[] table = new int[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            int idx = ring.ceilingIndex(ConsistentHashRing.slotEnd(slot, slots));
+            if (idx == ring.size()) {
+                idx = 0;
+            }
+            // Суммарная ёмкость не меньше числа слотов, поэтому свободный узел найдётся
+            while (load[ring.getOwnerAt(idx)] >= capacity[ring.getOwnerAt(idx)]) {
+                idx = idx + 1 == ring.size() ? 0 : idx + 1;
+            }
+            int owner = ring.getOwnerAt(idx);
+            load[owner]++;
+            table[slot] = owner;
+        }
+        return table;
+    }
+}
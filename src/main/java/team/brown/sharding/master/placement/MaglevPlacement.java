@@ -0,0 +1,86 @@
+package team.brown.sharding.master.placement;
+
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Таблица Maglev: каждый узел заполняет свободные слоты в порядке своей псевдослучайной перестановки,
+ * узлы ходят по очереди. Число слотов узлов отличается не больше чем на единицу (с учётом весов),
+ * при изменении состава большинство слотов сохраняет владельца.
+ * <p>
+ * Размер таблицы округляется вверх до простого числа, чтобы шаг перестановки был взаимно прост с ним.
+ */
+public class MaglevPlacement extends SlotPlacement {
+
+    public MaglevPlacement(int slots) {
+        super(nextPrime(slots));
+    }
+
+    @Override
+    public String name() {
+        return PlacementType.MAGLEV.getName();
+    }
+
+    @Override
+    protected int[] assign(ConsistentHashRing.HashFunction hashFunction, List<ServerNode> nodes, int virtualNodes) {
+        int size = getSlots();
+        int n = nodes.size();
+        long[] offset = new long[n];
+        long[] skip = new long[n];
+        long[] next = new long[n];
+        double[] share = new double[n];
+        double[] credit = new double[n];
+        int maxWeight = nodes.stream().mapToInt(ServerNode::getWeight).max().orElse(1);
+        for (int i = 0; i < n; i++) {
+            long seed = seed(hashFunction, nodes.get(i));
+            offset[i] = Long.remainderUnsigned(mix(seed ^ 0x6F66667365744C4CL), size);
+            skip[i] = size == 1 ? 1 : Long.remainderUnsigned(mix(seed ^ 0x736B69704C4C4C4CL), size - 1) + 1;
+            share[i] = (double) nodes.get(i).getWeight() / maxWeight;
+        }
+        int[] table = new int[size];
+        Arrays.fill(table, -1);
+        int filled = 0;
+        while (true) {
+            for (int i = 0; i < n; i++) {
+                // Узел веса w получает в среднем w / maxWeight ходов за круг
+                credit[i] += share[i];
+                while (credit[i] >= 1) {
+                    credit[i] -= 1;
+                    int slot = (int) ((offset[i] + next[i] * skip[i]) % size);
+                    while (table[slot] >= 0) {
+                        next[i]++;
+                        slot = (int) ((offset[i] + next[i] * skip[i]) % size);
+                    }
+                    table[slot] = i;
+                    next[i]++;
+                    if (++filled == size) {
+                        return table;
+                    }
+                }
+            }
+        }
+    }
+
+    static int nextPrime(int value) {
+        int candidate = Math.max(2, value);
+        while (!isPrime(candidate)) {
+            candidate++;
+        }
+        return candidate;
+    }
+
+    private static boolean isPrime(int value) {
+        if (value % 2 == 0) {
+            return value == 2;
+        }
+        for (int d = 3; (long) d * d <= value; d += 2) {
+            if (value % d == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
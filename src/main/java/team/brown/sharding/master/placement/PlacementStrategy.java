@@ -0,0 +1,86 @@
+package team.brown.sharding.master.placement;
+
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Стратегия размещения: по множеству узлов строит таблицу владельцев пространства хешей.
+ * <p>
+ * Результат любой стратегии - {@link ConsistentHashRing}: отсортированные границы диапазонов
+ * и их владельцы. Поэтому планировщик миграции, бинарный экспорт, журнал схемы и репликация
+ * работают с любой стратегией одинаково. Построение должно быть детерминированным:
+ * одинаковые узлы дают одинаковую таблицу на ведущем, ведомых и после рестарта.
+ */
+public interface PlacementStrategy {
+
+    /**
+     * Имя стратегии, сохраняется вместе с таблицей.
+     */
+    String name();
+
+    /**
+     * Строит размещение заново.
+     *
+     * @param hashFunction хеш-функция ключей
+     * @param nodes        узлы схемы
+     * @param virtualNodes количество виртуальных узлов на сервер стандартного веса
+     * @return таблица размещения
+     */
+    ConsistentHashRing<ServerNode> build(ConsistentHashRing.HashFunction hashFunction,
+                                         Collection<ServerNode> nodes,
+                                         int virtualNodes);
+
+    /**
+     * Размещение после добавления узла. Текущее размещение не меняется.
+     */
+    default ConsistentHashRing<ServerNode> withNode(ConsistentHashRing<ServerNode> current, ServerNode node) {
+        List<ServerNode> nodes = new ArrayList<>(current.getNodeTable());
+        nodes.add(node);
+        return build(current.getHashFunction(), nodes, current.getVirtualNodes());
+    }
+
+    /**
+     * Размещение после удаления узла. Текущее размещение не меняется.
+     */
+    default ConsistentHashRing<ServerNode> withoutNode(ConsistentHashRing<ServerNode> current, ServerNode node) {
+        List<ServerNode> nodes = new ArrayList<>(current.getNodeTable());
+        nodes.remove(node);
+        return build(current.getHashFunction(), nodes, current.getVirtualNodes());
+    }
+
+    /**
+     * Размещение после замены узла его новой версией с тем же адресом (например, с другим весом).
+     * Текущее размещение не меняется.
+     */
+    default ConsistentHashRing<ServerNode> withUpdatedNode(ConsistentHashRing<ServerNode> current, ServerNode node) {
+        List<ServerNode> nodes = new ArrayList<>(current.getNodeTable());
+        nodes.replaceAll(existing -> existing.equals(node) ? node : existing);
+        return build(current.getHashFunction(), nodes, current.getVirtualNodes());
+    }
+
+    /**
+     * Размещение после нескольких изменений состава сразу. Текущее размещение не меняется.
+     *
+     * @param current текущее размещение
+     * @param removed удаляемые узлы
+     * @param updated новые версии оставшихся узлов
+     * @param added   добавляемые узлы в порядке добавления
+     * @return новое размещение
+     */
+    default ConsistentHashRing<ServerNode> withChanges(ConsistentHashRing<ServerNode> current,
+                                                       Collection<ServerNode> removed,
+                                                       Collection<ServerNode> updated,
+                                                       Collection<ServerNode> added) {
+        List<ServerNode> nodes = new ArrayList<>(current.getNodeTable());
+        nodes.removeAll(removed);
+        for (ServerNode node : updated) {
+            nodes.replaceAll(existing -> existing.equals(node) ? node : existing);
+        }
+        nodes.addAll(added);
+        return build(current.getHashFunction(), nodes, current.getVirtualNodes());
+    }
+}
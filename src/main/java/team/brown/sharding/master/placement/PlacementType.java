@@ -0,0 +1,59 @@
+package team.brown.sharding.master.placement;
+
+import team.brown.sharding.master.hash.ConsistentHashRing;
+
+import java.util.Arrays;
+
+/**
+ * Доступные стратегии размещения.
+ * Смена стратегии у существующего кластера меняет всё размещение, поэтому мастер отказывается
+ * восстанавливать схему, построенную другой стратегией.
+ */
+public enum PlacementType {
+    RING(ConsistentHashRing.RING_PLACEMENT, (slots, epsilon) -> new RingPlacement()),
+    BOUNDED_LOAD("bounded-load", BoundedLoadPlacement::new),
+    MAGLEV("maglev", (slots, epsilon) -> new MaglevPlacement(slots)),
+    RENDEZVOUS("rendezvous", (slots, epsilon) -> new RendezvousPlacement(slots));
+
+    private final String name;
+    private final Factory factory;
+
+    PlacementType(String name, Factory factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Создаёт стратегию.
+     *
+     * @param slots   количество слотов табличных стратегий
+     * @param epsilon допустимое превышение доли узла для bounded-load
+     * @return стратегия размещения
+     */
+    public PlacementStrategy create(int slots, double epsilon) {
+        return factory.create(slots, epsilon);
+    }
+
+    /**
+     * Находит стратегию по имени из конфигурации (без учёта регистра).
+     *
+     * @param name имя стратегии
+     * @return тип стратегии
+     * @throws IllegalArgumentException если имя неизвестно
+     */
+    public static PlacementType fromName(String name) {
+        return Arrays.stream(values())
+                .filter(type -> type.name.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown placement strategy: " + name));
+    }
+
+    @FunctionalInterface
+    private interface Factory {
+        PlacementStrategy create(int slots, double epsilon);
+    }
+}
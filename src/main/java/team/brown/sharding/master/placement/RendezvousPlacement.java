@@ -0,0 +1,52 @@
+package team.brown.sharding.master.placement;
+
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.List;
+
+/**
+ * Рандеву-хеширование (HRW) по слотам: слот достаётся узлу с наибольшей оценкой
+ * {@code -weight / ln(u)}, где {@code u} - псевдослучайное число из (0, 1) для пары (узел, слот).
+ * При удалении узла переезжают только его слоты, при добавлении - только слоты, которые он выиграл.
+ * Построение стоит O(слоты * узлы).
+ */
+public class RendezvousPlacement extends SlotPlacement {
+    private static final double UNIT = 0x1.0p-53;
+
+    public RendezvousPlacement(int slots) {
+        super(slots);
+    }
+
+    @Override
+    public String name() {
+        return PlacementType.RENDEZVOUS.getName();
+    }
+
+    @Override
+    protected int[] assign(ConsistentHashRing.HashFunction hashFunction, List<ServerNode> nodes, int virtualNodes) {
+        int n = nodes.size();
+        long[] seeds = new long[n];
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            seeds[i] = seed(hashFunction, nodes.get(i));
+            weights[i] = nodes.get(i).getWeight();
+        }
+        int[] table = new int[getSlots()];
+        for (int slot = 0; slot < table.length; slot++) {
+            long slotSeed = mix(slot + 0x9E3779B97F4A7C15L);
+            int best = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                double u = ((mix(seeds[i] ^ slotSeed) >>> 11) + 0.5) * UNIT;
+                double score = -weights[i] / Math.log(u);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+            table[slot] = best;
+        }
+        return table;
+    }
+}
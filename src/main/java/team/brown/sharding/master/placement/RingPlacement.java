@@ -0,0 +1,58 @@
+package team.brown.sharding.master.placement;
+
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.Collection;
+
+/**
+ * Кольцо консистентного хеширования с виртуальными узлами.
+ * Изменения применяются к копии кольца на месте, поэтому соли остальных узлов сохраняются.
+ */
+public class RingPlacement implements PlacementStrategy {
+
+    @Override
+    public String name() {
+        return ConsistentHashRing.RING_PLACEMENT;
+    }
+
+    @Override
+    public ConsistentHashRing<ServerNode> build(ConsistentHashRing.HashFunction hashFunction,
+                                                Collection<ServerNode> nodes,
+                                                int virtualNodes) {
+        return new ConsistentHashRing<>(hashFunction, nodes, virtualNodes);
+    }
+
+    @Override
+    public ConsistentHashRing<ServerNode> withNode(ConsistentHashRing<ServerNode> current, ServerNode node) {
+        ConsistentHashRing<ServerNode> ring = current.clone();
+        ring.addNode(node);
+        return ring;
+    }
+
+    @Override
+    public ConsistentHashRing<ServerNode> withoutNode(ConsistentHashRing<ServerNode> current, ServerNode node) {
+        ConsistentHashRing<ServerNode> ring = current.clone();
+        ring.removeNode(node);
+        return ring;
+    }
+
+    @Override
+    public ConsistentHashRing<ServerNode> withUpdatedNode(ConsistentHashRing<ServerNode> current, ServerNode node) {
+        ConsistentHashRing<ServerNode> ring = current.clone();
+        ring.updateNode(node);
+        return ring;
+    }
+
+    @Override
+    public ConsistentHashRing<ServerNode> withChanges(ConsistentHashRing<ServerNode> current,
+                                                      Collection<ServerNode> removed,
+                                                      Collection<ServerNode> updated,
+                                                      Collection<ServerNode> added) {
+        ConsistentHashRing<ServerNode> ring = current.clone();
+        removed.forEach(ring::removeNode);
+        updated.forEach(ring::updateNode);
+        ring.addNodes(added);
+        return ring;
+    }
+}
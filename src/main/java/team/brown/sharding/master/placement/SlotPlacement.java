@@ -0,0 +1,77 @@
+package team.brown.sharding.master.placement;
+
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Табличная стратегия: пространство хешей делится на равные слоты, и каждому слоту назначается владелец.
+ * <p>
+ * Узлы упорядочиваются по адресу, узлы с нулевым весом слотов не получают. Подклассы назначают
+ * владельцев слотов, базовый класс собирает из них таблицу {@link ConsistentHashRing#fromSlots}.
+ */
+public abstract class SlotPlacement implements PlacementStrategy {
+    private final int slots;
+
+    protected SlotPlacement(int slots) {
+        if (slots < 1) {
+            throw new IllegalArgumentException("Placement slot count must be positive");
+        }
+        this.slots = slots;
+    }
+
+    /**
+     * @return количество слотов таблицы
+     */
+    public int getSlots() {
+        return slots;
+    }
+
+    @Override
+    public ConsistentHashRing<ServerNode> build(ConsistentHashRing.HashFunction hashFunction,
+                                                Collection<ServerNode> nodes,
+                                                int virtualNodes) {
+        List<ServerNode> table = new ArrayList<>(nodes);
+        // Узлы с ненулевым весом идут первыми, поэтому их индексы в таблице совпадают с индексами в assign
+        table.sort(Comparator.comparing((ServerNode node) -> node.getWeight() <= 0)
+                .thenComparing(ServerNode::getAddress));
+        int eligible = (int) table.stream().filter(node -> node.getWeight() > 0).count();
+        if (eligible == 0) {
+            return ConsistentHashRing.fromSlots(hashFunction, name(), virtualNodes, table, null);
+        }
+        int[] owners = assign(hashFunction, table.subList(0, eligible), virtualNodes);
+        return ConsistentHashRing.fromSlots(hashFunction, name(), virtualNodes, table, owners);
+    }
+
+    /**
+     * Назначает владельцев слотов.
+     *
+     * @param hashFunction хеш-функция ключей
+     * @param nodes        узлы с ненулевым весом, упорядоченные по адресу
+     * @param virtualNodes количество виртуальных узлов на сервер стандартного веса
+     * @return индекс владельца в nodes для каждого из {@link #getSlots()} слотов
+     */
+    protected abstract int[] assign(ConsistentHashRing.HashFunction hashFunction,
+                                    List<ServerNode> nodes,
+                                    int virtualNodes);
+
+    /**
+     * Перемешивание 64-битного значения (финализатор SplitMix64).
+     */
+    protected static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Начальное значение узла для перемешивания: хеш адреса настроенной хеш-функцией.
+     */
+    protected static long seed(ConsistentHashRing.HashFunction hashFunction, ServerNode node) {
+        return mix(hashFunction.hash(node.getAddress()) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,166 @@
+package team.brown.sharding.master.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.hash.RingBinaryCodec;
+import team.brown.sharding.master.migration.MigrationHandoff;
+import team.brown.sharding.master.model.ReplicationResponse;
+import team.brown.sharding.master.model.SchemaResponse;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ведомый мастер: long-poll запросами забирает изменения схемы у ведущего и применяет их локально.
+ * Чтения схемы и маршрутизация обслуживаются из локальной копии, изменения схемы отклоняются.
+ * <p>
+ * Первая синхронизация и отставание больше хранимого журнала приходят полным снимком,
+ * дальше изменения применяются по одному теми же детерминированными шагами, что и на ведущем.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "master.role", havingValue = "follower")
+public class FollowerReplicator implements SmartLifecycle {
+    private final MasterNode masterNode;
+    private final ConsistentHashRing.HashFunction hashFunction;
+    private final ReplicationSource source;
+    private final long pollTimeoutMillis;
+    private final long retryDelayMillis;
+    // Версия, с которой запрашиваются изменения; 0 - нужен полный снимок
+    private volatile int syncedVersion;
+    private volatile Thread worker;
+
+    /**
+     * Источник изменений схемы.
+     */
+    @FunctionalInterface
+    interface ReplicationSource {
+        /**
+         * @return изменения после sinceVersion или null, если за timeoutMs их не появилось
+         */
+        ReplicationResponse fetch(int sinceVersion, long timeoutMs);
+    }
+
+    @Autowired
+    public FollowerReplicator(MasterNode masterNode,
+                              ConsistentHashRing.HashFunction hashFunction,
+                              RestTemplate restTemplate,
+                              @Value("${master.replication.leader-url:}") String leaderUrl,
+                              @Value("${master.replication.poll-timeout-ms:30000}") long pollTimeoutMillis,
+                              @Value("${master.replication.retry-delay-ms:1000}") long retryDelayMillis) {
+        this(masterNode, hashFunction, leaderUrl,
+                (sinceVersion, timeoutMs) -> restTemplate.getForObject(
+                        leaderUrl + "/replication/log?sinceVersion={sinceVersion}&timeoutMs={timeoutMs}",
+                        ReplicationResponse.class, sinceVersion, timeoutMs),
+                pollTimeoutMillis, retryDelayMillis);
+    }
+
+    FollowerReplicator(MasterNode masterNode,
+                       ConsistentHashRing.HashFunction hashFunction,
+                       String leaderUrl,
+                       ReplicationSource source,
+                       long pollTimeoutMillis,
+                       long retryDelayMillis) {
+        if (leaderUrl == null || leaderUrl.isBlank()) {
+            throw new IllegalArgumentException("master.replication.leader-url is required for a follower master");
+        }
+        this.masterNode = masterNode;
+        this.hashFunction = hashFunction;
+        this.source = source;
+        this.pollTimeoutMillis = pollTimeoutMillis;
+        this.retryDelayMillis = retryDelayMillis;
+        // Запись отклоняется сразу, ещё до первой синхронизации
+        masterNode.followLeader(leaderUrl);
+    }
+
+    /**
+     * Один запрос изменений к ведущему.
+     *
+     * @return true, если схема обновилась
+     */
+    boolean pollOnce() {
+        ReplicationResponse response = source.fetch(syncedVersion, pollTimeoutMillis);
+        if (response == null) {
+            return false;
+        }
+        try {
+            if (response.changes() != null) {
+                masterNode.applyReplicated(response.changes());
+            } else {
+                masterNode.resetReplicated(toSnapshot(response));
+            }
+        } catch (IllegalStateException e) {
+            // Пропуск в журнале или несовместимое кольцо: следующей попыткой берём полный снимок
+            syncedVersion = 0;
+            throw e;
+        }
+        syncedVersion = masterNode.getVersion();
+        return true;
+    }
+
+    private SchemaSnapshot toSnapshot(ReplicationResponse response) {
+        List<ServerNode> nodes = response.nodes().stream()
+                .map(state -> {
+                    ServerNode node = new ServerNode(state.address(),
+                            state.weight() == null ? ServerNode.DEFAULT_WEIGHT : state.weight());
+                    node.getSalts().putAll(state.salts());
+                    return node;
+                })
+                .toList();
+        SchemaSnapshot snapshot = SchemaSnapshot.restore(nodes, RingBinaryCodec.decode(response.ring()), hashFunction);
+        SchemaResponse.Migration migration = response.migration();
+        if (migration == null) {
+            return snapshot;
+        }
+        // Без состояния миграции ведомый читал бы ещё не перенесённые диапазоны с новых владельцев
+        Map<String, ServerNode> byAddress = nodes.stream()
+                .collect(Collectors.toMap(ServerNode::getAddress, Function.identity()));
+        return snapshot.withHandoff(MigrationHandoff.restore(migration.stableVersion(), migration.ranges(), byAddress));
+    }
+
+    private void run() {
+        while (worker != null) {
+            try {
+                pollOnce();
+            } catch (RuntimeException e) {
+                log.warn("Schema replication failed: syncedVersion={}", syncedVersion, e);
+                try {
+                    Thread.sleep(retryDelayMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        log.info("Start schema replication");
+        worker = Thread.ofVirtual().name("schema-replication").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        Thread current = worker;
+        worker = null;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return worker != null;
+    }
+}
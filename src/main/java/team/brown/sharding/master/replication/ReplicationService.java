@@ -0,0 +1,41 @@
+package team.brown.sharding.master.replication;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.model.ReplicationResponse;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaChange;
+import team.brown.sharding.master.node.SchemaWatchService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Выдача изменений схемы ведомым мастерам.
+ * Ведомый мастер тоже может быть источником, поэтому допускаются цепочки репликации.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicationService {
+    private final MasterNode masterNode;
+    private final SchemaWatchService schemaWatchService;
+
+    /**
+     * Ожидает версию новее известной ведомому и возвращает изменения до неё.
+     *
+     * @param sinceVersion версия ведомого (0 - полная синхронизация)
+     * @return future с изменениями или полным снимком
+     */
+    public CompletableFuture<ReplicationResponse> changesSince(int sinceVersion) {
+        return schemaWatchService.watch(sinceVersion).thenApply(snapshot -> response(sinceVersion));
+    }
+
+    ReplicationResponse response(int sinceVersion) {
+        var snapshot = masterNode.getSnapshot();
+        List<SchemaChange> changes = masterNode.getChangesSince(sinceVersion);
+        if (changes == null || changes.isEmpty()) {
+            return ReplicationResponse.snapshot(snapshot);
+        }
+        return ReplicationResponse.changes(changes);
+    }
+}
@@ -0,0 +1,110 @@
+package team.brown.sharding.master.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.journal.EventJournal;
+import team.brown.sharding.master.model.RouteResponse;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Маршрутизация ключей по кольцу на стороне мастера.
+ * <p>
+ * Все ключи пачки разрешаются по одному снимку схемы, поэтому ответ согласован с его версией.
+ * Ключ хешируется той же хеш-функцией, что и виртуальные узлы кольца.
+ * Пока идёт миграция, ключи из ещё не перенесённых диапазонов направляются прежнему владельцу,
+ * у которого сейчас лежат их данные.
+ * Большие пачки обрабатываются параллельно.
+ */
+@Component
+public class RoutingService {
+    /**
+     * Начиная с этого размера пачки ключи хешируются параллельно
+     */
+    static final int PARALLEL_THRESHOLD = 2048;
+
+    private final MasterNode masterNode;
+    private final Timer routeTimer;
+    private final Counter lookups;
+    private final EventJournal journal;
+
+    public RoutingService(MasterNode masterNode) {
+        this(masterNode, new SimpleMeterRegistry(), EventJournal.disabled());
+    }
+
+    @Autowired
+    public RoutingService(MasterNode masterNode, MeterRegistry registry, EventJournal journal) {
+        this.masterNode = masterNode;
+        this.journal = journal;
+        this.routeTimer = Timer.builder("master.route")
+                .description("Маршрутизация пачки ключей")
+                .register(registry);
+        this.lookups = Counter.builder("master.ring.lookups")
+                .description("Поисков владельца ключа по кольцу")
+                .register(registry);
+    }
+
+    /**
+     * Находит узлы-владельцы ключей.
+     *
+     * @param keys        ключи
+     * @param groupByNode сгруппировать ключи по адресу узла; ключи без владельца (пустое кольцо)
+     *                    возвращаются отдельным списком
+     * @return версия схемы и узлы для ключей
+     */
+    public RouteResponse route(List<String> keys, boolean groupByNode) {
+        SchemaSnapshot snapshot = masterNode.getSnapshot();
+        long started = System.nanoTime();
+        ServerNode[] owners = resolve(snapshot, keys);
+        long elapsed = System.nanoTime() - started;
+        routeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        lookups.increment(owners.length);
+        journal.sample("route", null, owners.length, elapsed);
+
+        if (groupByNode) {
+            Map<String, List<String>> groups = new LinkedHashMap<>();
+            List<String> unrouted = new ArrayList<>();
+            for (int i = 0; i < owners.length; i++) {
+                if (owners[i] == null) {
+                    unrouted.add(keys.get(i));
+                } else {
+                    groups.computeIfAbsent(owners[i].getAddress(), k -> new ArrayList<>()).add(keys.get(i));
+                }
+            }
+            return new RouteResponse(snapshot.getVersion(), null, groups, unrouted.isEmpty() ? null : unrouted);
+        }
+        List<RouteResponse.KeyRoute> routes = new ArrayList<>(owners.length);
+        for (int i = 0; i < owners.length; i++) {
+            routes.add(new RouteResponse.KeyRoute(keys.get(i), address(owners[i])));
+        }
+        return new RouteResponse(snapshot.getVersion(), routes, null, null);
+    }
+
+    private static ServerNode[] resolve(SchemaSnapshot snapshot, List<String> keys) {
+        ConsistentHashRing.HashFunction hashFunction = snapshot.getRing().getHashFunction();
+        ServerNode[] owners = new ServerNode[keys.size()];
+        IntStream indexes = IntStream.range(0, owners.length);
+        if (owners.length >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> owners[i] = snapshot.getReadOwner(hashFunction.hash(keys.get(i))));
+        return owners;
+    }
+
+    private static String address(ServerNode node) {
+        return node == null ? null : node.getAddress();
+    }
+}
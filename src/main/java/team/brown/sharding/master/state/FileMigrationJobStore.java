@@ -0,0 +1,211 @@
+package team.brown.sharding.master.state;
+
+import lombok.extern.slf4j.Slf4j;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.migration.MigrationJob;
+import team.brown.sharding.master.migration.MigrationJobStore;
+import team.brown.sharding.master.migration.MigrationPriority;
+import team.brown.sharding.master.migration.MigrationTask;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Хранилище заданий миграции в каталоге {@code migrations} внутри каталога состояния.
+ * <p>
+ * Каждое задание - файл {@code job-<версия>.bin}: план задания (переносы с диапазонами),
+ * записанный атомарной заменой, и дописываемые к нему номера выполненных переносов по {@code int}.
+ * Оборванная при сбое отметка в конце файла отбрасывается: этот перенос просто выполнится ещё раз.
+ * Файл выполненного задания удаляется.
+ */
+@Slf4j
+public class FileMigrationJobStore implements MigrationJobStore, Closeable {
+    static final String DIRECTORY = "migrations";
+    private static final int JOB_MAGIC = 0x4D4A4F42; // "MJOB"
+    private static final byte FORMAT_VERSION = 1;
+
+    private final Path directory;
+    private final boolean fsync;
+    // Открытые для дописывания отметок файлы заданий по версии
+    private final Map<Integer, FileChannel> open = new HashMap<>();
+
+    /**
+     * @param stateDirectory каталог состояния мастера
+     * @param fsync          сбрасывать отметки на диск после каждой записи
+     */
+    public FileMigrationJobStore(Path stateDirectory, boolean fsync) {
+        this.directory = stateDirectory.resolve(DIRECTORY);
+        this.fsync = fsync;
+    }
+
+    @Override
+    public synchronized List<MigrationJob> load() {
+        List<MigrationJob> jobs = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return jobs;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "job-*.bin")) {
+            for (Path file : files) {
+                jobs.add(read(file));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load migration jobs from " + directory, e);
+        }
+        jobs.sort(Comparator.comparingInt(MigrationJob::getVersion));
+        jobs.forEach(job -> log.info("Migration job loaded: {}", job.summary()));
+        return jobs;
+    }
+
+    @Override
+    public synchronized void begin(MigrationJob job) {
+        try {
+            Files.createDirectories(directory);
+            Path file = path(job.getVersion());
+            Path temp = directory.resolve(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(encode(job));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write migration job " + job.getVersion(), e);
+        }
+    }
+
+    @Override
+    public synchronized void completed(MigrationJob job, int task) {
+        try {
+            FileChannel channel = open.get(job.getVersion());
+            if (channel == null) {
+                channel = FileChannel.open(path(job.getVersion()), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                open.put(job.getVersion(), channel);
+            }
+            ByteBuffer record = ByteBuffer.allocate(Integer.BYTES).putInt(task).flip();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // Без отметки перенос будет повторён после рестарта, это безопасно
+            log.warn("Failed to checkpoint migration: version={}, task={}", job.getVersion(), task, e);
+        }
+    }
+
+    @Override
+    public synchronized void finish(MigrationJob job) {
+        try {
+            FileChannel channel = open.remove(job.getVersion());
+            if (channel != null) {
+                channel.close();
+            }
+            Files.deleteIfExists(path(job.getVersion()));
+        } catch (IOException e) {
+            log.warn("Failed to delete finished migration job: version={}", job.getVersion(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (FileChannel channel : open.values()) {
+            channel.close();
+        }
+        open.clear();
+    }
+
+    private Path path(int version) {
+        return directory.resolve("job-" + version + ".bin");
+    }
+
+    private static byte[] encode(MigrationJob job) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(JOB_MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(job.getVersion());
+            out.writeInt(job.getTasks().size());
+            for (MigrationTask task : job.getTasks()) {
+                writeString(out, task.source().getAddress());
+                writeString(out, task.target().getAddress());
+                out.writeByte(task.priority().ordinal());
+                out.writeInt(task.ranges().size());
+                for (HashRange range : task.ranges()) {
+                    out.writeInt(range.getStart());
+                    out.writeInt(range.getEnd());
+                }
+            }
+            // Отметки выполненных переносов идут сразу за планом
+        }
+        return bytes.toByteArray();
+    }
+
+    private static MigrationJob read(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (buffer.getInt() != JOB_MAGIC) {
+                throw new IllegalStateException("Not a migration job: " + file);
+            }
+            byte format = buffer.get();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported migration job format " + format + ": " + file);
+            }
+            int version = buffer.getInt();
+            List<MigrationTask> tasks = new ArrayList<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                ServerNode source = new ServerNode(readString(buffer));
+                ServerNode target = new ServerNode(readString(buffer));
+                MigrationPriority priority = MigrationPriority.values()[buffer.get()];
+                List<HashRange> ranges = new ArrayList<>();
+                for (int j = buffer.getInt(); j > 0; j--) {
+                    ranges.add(new HashRange(buffer.getInt(), buffer.getInt()));
+                }
+                tasks.add(new MigrationTask(source, target, ranges, priority));
+            }
+            MigrationJob job = new MigrationJob(version, tasks);
+            while (buffer.remaining() >= Integer.BYTES) {
+                int task = buffer.getInt();
+                if (task >= 0 && task < tasks.size()) {
+                    job.completed(task);
+                }
+            }
+            return job;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("Truncated migration job: " + file, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
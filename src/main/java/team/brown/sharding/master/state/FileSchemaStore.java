@@ -0,0 +1,300 @@
+package team.brown.sharding.master.state;
+
+import lombok.extern.slf4j.Slf4j;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.hash.RingBinaryCodec;
+import team.brown.sharding.master.node.SchemaChange;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Хранилище схемы в локальном каталоге.
+ * <p>
+ * {@code schema.wal} - журнал изменений: записи {@code [int длина][int CRC32][данные]},
+ * дописываются до публикации версии. Оборванная при сбое запись в конце журнала отбрасывается.
+ * <p>
+ * {@code schema.snapshot} - снимок схемы: соли узлов и кольцо в формате {@link RingBinaryCodec}.
+ * Читается через отображение файла в память и восстанавливается без повторного хеширования.
+ * После записи снимка журнал обнуляется, поэтому рестарт читает снимок и не больше
+ * {@code snapshotEvery} изменений.
+ */
+@Slf4j
+public class FileSchemaStore implements SchemaStore, Closeable {
+    static final String WAL_FILE = "schema.wal";
+    static final String SNAPSHOT_FILE = "schema.snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x4D534E50; // "MSNP"
+    private static final byte FORMAT_VERSION = 1;
+    private static final int RECORD_HEADER = 8;
+
+    private final Path directory;
+    private final Path walPath;
+    private final Path snapshotPath;
+    private final int snapshotEvery;
+    private final boolean fsync;
+    private FileChannel wal;
+    // Изменений в журнале после последнего снимка
+    private int changesSinceSnapshot;
+
+    /**
+     * @param directory     каталог состояния
+     * @param snapshotEvery через сколько изменений записывать снимок
+     * @param fsync         сбрасывать журнал на диск после каждой записи
+     */
+    public FileSchemaStore(Path directory, int snapshotEvery, boolean fsync) {
+        if (snapshotEvery < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        this.directory = directory;
+        this.walPath = directory.resolve(WAL_FILE);
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.snapshotEvery = snapshotEvery;
+        this.fsync = fsync;
+    }
+
+    @Override
+    public synchronized StoredState load(ConsistentHashRing.HashFunction hashFunction) {
+        try {
+            Files.createDirectories(directory);
+            SchemaSnapshot snapshot = Files.exists(snapshotPath) ? readSnapshot(hashFunction) : null;
+            List<SchemaChange> changes = readWal();
+            int snapshotVersion = snapshot == null ? 0 : snapshot.getVersion();
+            changesSinceSnapshot = (int) changes.stream().filter(change -> change.version() > snapshotVersion).count();
+            openWal();
+            if (snapshot == null && changes.isEmpty()) {
+                return null;
+            }
+            log.info("Schema state loaded: dir={}, snapshotVersion={}, changes={}",
+                    directory, snapshotVersion, changes.size());
+            return new StoredState(snapshot, changes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load schema state from " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized void append(SchemaChange change) {
+        try {
+            openWal();
+            byte[] payload = encodeChange(change);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length)
+                    .putInt(payload.length)
+                    .putInt((int) crc.getValue())
+                    .put(payload)
+                    .flip();
+            while (record.hasRemaining()) {
+                wal.write(record);
+            }
+            if (fsync) {
+                wal.force(false);
+            }
+            changesSinceSnapshot++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append schema change " + change.version(), e);
+        }
+    }
+
+    @Override
+    public synchronized void checkpoint(SchemaSnapshot snapshot) {
+        if (changesSinceSnapshot >= snapshotEvery) {
+            writeCheckpoint(snapshot);
+        }
+    }
+
+    @Override
+    public synchronized void reset(SchemaSnapshot snapshot) {
+        writeCheckpoint(snapshot);
+    }
+
+    private void writeCheckpoint(SchemaSnapshot snapshot) {
+        try {
+            writeSnapshot(snapshot);
+            // Все изменения журнала уже вошли в снимок
+            openWal();
+            wal.truncate(0);
+            wal.position(0);
+            changesSinceSnapshot = 0;
+            log.info("Schema snapshot written: version={}", snapshot.getVersion());
+        } catch (IOException e) {
+            // Журнал остаётся полным, поэтому состояние восстановимо и без нового снимка
+            log.warn("Failed to write schema snapshot: version={}", snapshot.getVersion(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (wal != null) {
+            wal.close();
+            wal = null;
+        }
+    }
+
+    private void openWal() throws IOException {
+        if (wal == null) {
+            Files.createDirectories(directory);
+            wal = FileChannel.open(walPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            wal.position(wal.size());
+        }
+    }
+
+    private List<SchemaChange> readWal() throws IOException {
+        List<SchemaChange> changes = new ArrayList<>();
+        if (!Files.exists(walPath)) {
+            return changes;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(walPath));
+        int valid = 0;
+        while (buffer.remaining() >= RECORD_HEADER) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            changes.add(decodeChange(ByteBuffer.wrap(payload)));
+            valid = buffer.position();
+        }
+        if (valid < buffer.limit()) {
+            log.warn("Discarding torn schema log tail: file={}, bytes={}", walPath, buffer.limit() - valid);
+            try (FileChannel channel = FileChannel.open(walPath, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        return changes;
+    }
+
+    private void writeSnapshot(SchemaSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(snapshot.getVersion());
+            out.writeInt(snapshot.getNodes().size());
+            for (ServerNode node : snapshot.getNodes()) {
+                writeString(out, node.getAddress());
+                out.writeInt(node.getWeight());
+                Map<Integer, String> salts = node.getSalts();
+                out.writeInt(salts.size());
+                for (Map.Entry<Integer, String> salt : salts.entrySet()) {
+                    out.writeInt(salt.getKey());
+                    writeString(out, salt.getValue());
+                }
+            }
+            out.write(snapshot.getRingBinary());
+        }
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private SchemaSnapshot readSnapshot(ConsistentHashRing.HashFunction hashFunction) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IllegalStateException("Not a schema snapshot: " + snapshotPath);
+            }
+            byte format = buffer.get();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported schema snapshot format " + format + ": " + snapshotPath);
+            }
+            int version = buffer.getInt();
+            List<ServerNode> nodes = new ArrayList<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                String address = readString(buffer);
+                ServerNode node = new ServerNode(address, buffer.getInt());
+                for (int j = buffer.getInt(); j > 0; j--) {
+                    node.getSalts().put(buffer.getInt(), readString(buffer));
+                }
+                nodes.add(node);
+            }
+            RingBinaryCodec.RingTable table = RingBinaryCodec.decode(buffer);
+            if (table.schemaVersion() != version) {
+                throw new IllegalStateException("Schema snapshot ring version mismatch: " + snapshotPath);
+            }
+            return SchemaSnapshot.restore(nodes, table, hashFunction);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("Truncated schema snapshot: " + snapshotPath, e);
+        }
+    }
+
+    private static byte[] encodeChange(SchemaChange change) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeChange(out, change);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeChange(DataOutputStream out, SchemaChange change) throws IOException {
+        out.writeInt(change.version());
+        writeString(out, change.type().name());
+        writeString(out, change.address() == null ? "" : change.address());
+        out.writeInt(change.virtualNodes());
+        out.writeInt(change.weight());
+        if (change.type() == SchemaChange.Type.BATCH) {
+            out.writeInt(change.changes().size());
+            for (SchemaChange nested : change.changes()) {
+                writeChange(out, nested);
+            }
+        }
+    }
+
+    private static SchemaChange decodeChange(ByteBuffer buffer) {
+        int version = buffer.getInt();
+        SchemaChange.Type type = SchemaChange.Type.valueOf(readString(buffer));
+        String address = readString(buffer);
+        int virtualNodes = buffer.getInt();
+        int weight = buffer.getInt();
+        List<SchemaChange> changes = new ArrayList<>();
+        if (type == SchemaChange.Type.BATCH) {
+            for (int i = buffer.getInt(); i > 0; i--) {
+                changes.add(decodeChange(buffer));
+            }
+        }
+        return new SchemaChange(version, type, address.isEmpty() ? null : address, virtualNodes, weight, changes);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,74 @@
+package team.brown.sharding.master.state;
+
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.SchemaChange;
+import team.brown.sharding.master.node.SchemaSnapshot;
+
+import java.util.List;
+
+/**
+ * Долговременное хранилище схемы: журнал изменений и периодические снимки.
+ * Все методы вызываются мастер-узлом под блокировкой писателя.
+ */
+public interface SchemaStore {
+
+    /**
+     * Хранилище, которое ничего не сохраняет: схема живёт только в памяти.
+     */
+    SchemaStore NONE = new SchemaStore() {
+        @Override
+        public StoredState load(ConsistentHashRing.HashFunction hashFunction) {
+            return null;
+        }
+
+        @Override
+        public void append(SchemaChange change) {
+        }
+
+        @Override
+        public void checkpoint(SchemaSnapshot snapshot) {
+        }
+
+        @Override
+        public void reset(SchemaSnapshot snapshot) {
+        }
+    };
+
+    /**
+     * Читает сохранённое состояние.
+     *
+     * @param hashFunction хеш-функция, которой должна быть построена сохранённая схема
+     * @return последний снимок и журнал изменений после него или null, если ничего не сохранено
+     */
+    StoredState load(ConsistentHashRing.HashFunction hashFunction);
+
+    /**
+     * Надёжно записывает изменение в журнал. Вызывается до публикации новой версии.
+     *
+     * @param change изменение схемы
+     */
+    void append(SchemaChange change);
+
+    /**
+     * Сообщает об опубликованной версии. Хранилище само решает, пора ли записать снимок и сократить журнал.
+     *
+     * @param snapshot опубликованный снимок схемы
+     */
+    void checkpoint(SchemaSnapshot snapshot);
+
+    /**
+     * Заменяет сохранённое состояние снимком, не связанным с журналом (например, полученным от ведущего мастера).
+     *
+     * @param snapshot новый снимок схемы
+     */
+    void reset(SchemaSnapshot snapshot);
+
+    /**
+     * Сохранённое состояние.
+     *
+     * @param snapshot последний снимок схемы или null
+     * @param changes  изменения из журнала по возрастанию версий (могут включать уже вошедшие в снимок)
+     */
+    record StoredState(SchemaSnapshot snapshot, List<SchemaChange> changes) {
+    }
+}
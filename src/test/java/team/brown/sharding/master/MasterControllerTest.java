@@ -5,29 +5,45 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import team.brown.sharding.master.controller.MasterController;
 import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.hash.RingBinaryCodec;
+import team.brown.sharding.master.migration.MigrationHandoff;
+import team.brown.sharding.master.migration.MigrationJob;
+import team.brown.sharding.master.migration.MigrationTask;
 import team.brown.sharding.master.model.ChangeShardRequest;
 import team.brown.sharding.master.model.NodeRequest;
+import team.brown.sharding.master.model.SchemaBatchRequest;
+import team.brown.sharding.master.model.WeightRequest;
 import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.NotLeaderException;
+import team.brown.sharding.master.node.SchemaDelta;
+import team.brown.sharding.master.node.SchemaEncoder;
+import team.brown.sharding.master.node.SchemaSnapshot;
 import team.brown.sharding.master.node.ServerNode;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -35,6 +51,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Тесты для MasterController.
  */
 @WebMvcTest(MasterController.class)
+@Import(SchemaEncoder.class)
 public class MasterControllerTest {
 
     @Autowired
@@ -46,6 +63,9 @@ public class MasterControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private SchemaEncoder schemaEncoder;
+
     private ServerNode node1;
     private ServerNode node2;
 
@@ -59,12 +79,130 @@ public class MasterControllerTest {
 
     @Test
     public void testRefreshSchema() throws Exception {
-        when(masterNode.getNodes()).thenReturn(new HashSet<>(Arrays.asList(node1, node2)));
+        var ring = new ConsistentHashRing<ServerNode>(hashFunction, new HashSet<>(), 1);
+        var snapshot = new SchemaSnapshot(new HashSet<>(Arrays.asList(node1, node2)), ring, 1);
+        when(masterNode.getSnapshot()).thenReturn(snapshot);
 
         mockMvc.perform(get("/scheme"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.nodes").isArray())
-                .andExpect(jsonPath("$.nodes[0].address").value(node1.getAddress()));
+                .andExpect(jsonPath("$.nodes[0].address").value(node1.getAddress()))
+                .andExpect(jsonPath("$.hashFunction").value("md5"));
+    }
+
+    @Test
+    public void testRefreshSchemaIsRenderedOncePerVersion() throws Exception {
+        var ring = new ConsistentHashRing<ServerNode>(hashFunction, new HashSet<>(), 1);
+        var snapshot = new SchemaSnapshot(new HashSet<>(Arrays.asList(node1)), ring, 2);
+        when(masterNode.getSnapshot()).thenReturn(snapshot);
+
+        byte[] first = mockMvc.perform(get("/scheme")).andReturn().getResponse().getContentAsByteArray();
+        // Узел меняется после рендера: ответ той же версии отдаётся из сохранённых байтов
+        node1.addToSalts(0, 1);
+        byte[] second = mockMvc.perform(get("/scheme")).andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(Arrays.equals(first, second), is(true));
+        assertThat(objectMapper.readTree(first).get("version").asInt(), is(2));
+    }
+
+    @Test
+    public void testRefreshSchemaNotModified() throws Exception {
+        var ring = new ConsistentHashRing<ServerNode>(hashFunction, new HashSet<>(), 1);
+        when(masterNode.getSnapshot()).thenReturn(new SchemaSnapshot(new HashSet<>(Arrays.asList(node1)), ring, 7));
+
+        mockMvc.perform(get("/scheme"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7\""));
+        mockMvc.perform(get("/scheme").header("If-None-Match", "\"7\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/scheme").header("If-None-Match", "\"6\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(7));
+    }
+
+    @Test
+    public void testSchemaDelta() throws Exception {
+        var ring = new ConsistentHashRing<ServerNode>(hashFunction, new HashSet<>(), 1);
+        var from = new SchemaSnapshot(new HashSet<>(Arrays.asList(node1)), ring, 3);
+        var to = new SchemaSnapshot(new HashSet<>(Arrays.asList(node2)), ring, 4);
+        when(masterNode.getDelta(3)).thenReturn(SchemaDelta.between(from, to));
+
+        mockMvc.perform(get("/scheme").param("sinceVersion", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromVersion").value(3))
+                .andExpect(jsonPath("$.version").value(4))
+                .andExpect(jsonPath("$.reset").value(false))
+                .andExpect(jsonPath("$.added[0].address").value(node2.getAddress()))
+                .andExpect(jsonPath("$.removed[0]").value(node1.getAddress()));
+    }
+
+    @Test
+    public void testRingExport() throws Exception {
+        var ring = new ConsistentHashRing<ServerNode>(hashFunction, new HashSet<>(Arrays.asList(node1, node2)), 8);
+        when(masterNode.getSnapshot()).thenReturn(new SchemaSnapshot(new HashSet<>(Arrays.asList(node1, node2)), ring, 5));
+
+        byte[] body = mockMvc.perform(get("/scheme/ring"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        var table = RingBinaryCodec.decode(body);
+        assertThat(table.schemaVersion(), is(5));
+        assertThat(table.hashFunction(), is("md5"));
+        assertThat(table.virtualNodes(), is(8));
+        assertThat(table.hashes().length, is(16));
+        for (int i = 0; i < 1000; i++) {
+            int hash = hashFunction.hash("key-" + i);
+            assertThat(table.ownerOf(hash), is(ring.getNodeForHash(hash).getAddress()));
+        }
+        mockMvc.perform(get("/scheme/ring").header("If-None-Match", "\"5\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testMigrationStateIsLive() throws Exception {
+        var ring = new ConsistentHashRing<ServerNode>(hashFunction, new HashSet<>(Arrays.asList(node1, node2)), 8);
+        MigrationJob job = new MigrationJob(6, List.of(
+                new MigrationTask(node1, node2, List.of(new HashRange(0, 99))),
+                new MigrationTask(node2, node1, List.of(new HashRange(200, 299)))));
+        var from = new SchemaSnapshot(new HashSet<>(Arrays.asList(node1)), ring, 5);
+        var snapshot = new SchemaSnapshot(new HashSet<>(Arrays.asList(node1, node2)), ring, 6)
+                .withHandoff(new MigrationHandoff(List.of(job)));
+        when(masterNode.getSnapshot()).thenReturn(snapshot);
+        when(masterNode.getDelta(5)).thenReturn(SchemaDelta.between(from, snapshot));
+
+        mockMvc.perform(get("/scheme"))
+                .andExpect(header().string("ETag", "\"6-0\""))
+                .andExpect(jsonPath("$.migration.stableVersion").value(5))
+                .andExpect(jsonPath("$.migration.ranges.length()").value(2));
+        mockMvc.perform(get("/scheme").param("sinceVersion", "5"))
+                .andExpect(header().string("ETag", "\"6-0\""))
+                .andExpect(jsonPath("$.placement").value("ring"))
+                .andExpect(jsonPath("$.migration.ranges.length()").value(2));
+        mockMvc.perform(get("/scheme/ring"))
+                .andExpect(header().string("ETag", "\"6-0\""))
+                .andExpect(header().string("X-Schema-Migrating-From", "5"));
+        // Пока переносы не подтверждаются, JSON не рендерится заново
+        byte[] rendered = schemaEncoder.json(snapshot);
+        assertThat(schemaEncoder.json(snapshot), sameInstance(rendered));
+
+        // Подтверждённый перенос пропадает из ответа той же версии, и тег меняется
+        job.completed(0);
+        assertThat(schemaEncoder.json(snapshot), not(sameInstance(rendered)));
+        mockMvc.perform(get("/scheme").header("If-None-Match", "\"6-0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"6-1\""))
+                .andExpect(jsonPath("$.migration.ranges.length()").value(1))
+                .andExpect(jsonPath("$.migration.ranges[0].start").value(200));
+        mockMvc.perform(get("/scheme/migration"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ranges[0].from").value(node2.getAddress()));
+
+        when(masterNode.getSnapshot()).thenReturn(new SchemaSnapshot(snapshot.getNodes(), ring, 7));
+        mockMvc.perform(get("/scheme/migration"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/scheme/ring"))
+                .andExpect(header().doesNotExist("X-Schema-Migrating-From"));
     }
 
     @Test
@@ -79,6 +217,18 @@ public class MasterControllerTest {
                 .andExpect(jsonPath("$.answer").value("done"));
     }
 
+    @Test
+    public void testAddNodeOnFollower() throws Exception {
+        NodeRequest request = new NodeRequest("http://192.168.1.3:8000");
+        when(masterNode.addServer(any(ServerNode.class))).thenThrow(new NotLeaderException("http://leader:8080"));
+
+        mockMvc.perform(post("/scheme")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(header().string("Location", "http://leader:8080"));
+    }
+
     @Test
     public void testRemoveNode() throws Exception {
         when(masterNode.removeServer(any(ServerNode.class))).thenReturn(true);
@@ -90,6 +240,43 @@ public class MasterControllerTest {
                 .andExpect(jsonPath("$.answer").value("done"));
     }
 
+    @Test
+    public void testUpdateWeight() throws Exception {
+        when(masterNode.updateWeight("192.168.1.1:8000", 200)).thenReturn(true);
+
+        mockMvc.perform(put("/scheme/{server}/weight", "192.168.1.1:8000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WeightRequest(200))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.answer").value("done"));
+        mockMvc.perform(put("/scheme/{server}/weight", "192.168.1.1:8000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new WeightRequest(-1))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testApplyBatch() throws Exception {
+        when(masterNode.applyBatch(
+                List.of(new ServerNode("192.168.1.2:8000"), new ServerNode("192.168.1.3:8000")),
+                List.of("192.168.1.1:8000"),
+                null)).thenReturn(true);
+        var request = new SchemaBatchRequest(
+                List.of(new NodeRequest("192.168.1.2:8000"), new NodeRequest("192.168.1.3:8000", 200)),
+                List.of("192.168.1.1:8000"),
+                null);
+
+        mockMvc.perform(post("/scheme/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.answer").value("done"));
+        mockMvc.perform(post("/scheme/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new SchemaBatchRequest(null, null, 0))))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testUpdateShards() throws Exception {
         ChangeShardRequest request = new ChangeShardRequest(4);
@@ -0,0 +1,75 @@
+package team.brown.sharding.master;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import team.brown.sharding.master.controller.RoutingController;
+import team.brown.sharding.master.model.RouteRequest;
+import team.brown.sharding.master.model.RouteResponse;
+import team.brown.sharding.master.routing.RoutingService;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тесты для RoutingController.
+ */
+@WebMvcTest(RoutingController.class)
+public class RoutingControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private RoutingService routingService;
+
+    @Test
+    public void testRoute() throws Exception {
+        when(routingService.route(List.of("user:1"), false)).thenReturn(new RouteResponse(3,
+                List.of(new RouteResponse.KeyRoute("user:1", "10.0.0.1:8080")), null, null));
+
+        mockMvc.perform(post("/route")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\": [\"user:1\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(3))
+                .andExpect(jsonPath("$.routes[0].address").value("10.0.0.1:8080"));
+    }
+
+    @Test
+    public void testNullKeyIsRejected() throws Exception {
+        mockMvc.perform(post("/route")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\": [\"user:1\", null]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(routingService, never()).route(anyList(), anyBoolean());
+    }
+
+    @Test
+    public void testTooManyKeysAreRejected() throws Exception {
+        String keys = IntStream.rangeClosed(0, RouteRequest.MAX_KEYS)
+                .mapToObj(i -> "\"k" + i + "\"")
+                .collect(Collectors.joining(","));
+
+        mockMvc.perform(post("/route")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\": [" + keys + "]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(routingService, never()).route(anyList(), anyBoolean());
+    }
+}
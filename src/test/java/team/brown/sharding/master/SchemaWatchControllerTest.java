@@ -0,0 +1,113 @@
+package team.brown.sharding.master;
+
+import jakarta.servlet.AsyncEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import team.brown.sharding.master.controller.SchemaWatchController;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.migration.MigrationHandoff;
+import team.brown.sharding.master.migration.MigrationJob;
+import team.brown.sharding.master.migration.MigrationTask;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaEncoder;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.SchemaWatchService;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тесты для SchemaWatchController.
+ */
+@WebMvcTest(SchemaWatchController.class)
+@Import(SchemaEncoder.class)
+public class SchemaWatchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private SchemaWatchService schemaWatchService;
+
+    @MockitoBean
+    private MasterNode masterNode;
+
+    @Test
+    public void testWatchReturnsNewSchema() throws Exception {
+        ServerNode node = new ServerNode("10.0.0.1:8080");
+        var ring = new ConsistentHashRing<>(new ConsistentHashRing.MD5HashFunction(), List.of(node), 1);
+        CompletableFuture<SchemaSnapshot> future = new CompletableFuture<>();
+        when(schemaWatchService.watch(4)).thenReturn(future);
+
+        MvcResult result = mockMvc.perform(get("/scheme/watch").param("knownVersion", "4"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        future.complete(new SchemaSnapshot(Set.of(node), ring, 5));
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(5))
+                .andExpect(jsonPath("$.nodes[0].address").value(node.getAddress()));
+    }
+
+    @Test
+    public void testWatchTimesOutWithNotModified() throws Exception {
+        ServerNode node = new ServerNode("10.0.0.1:8080");
+        var ring = new ConsistentHashRing<>(new ConsistentHashRing.MD5HashFunction(), List.of(node), 1);
+        when(masterNode.getSnapshot()).thenReturn(new SchemaSnapshot(Set.of(node), ring, 4));
+        when(schemaWatchService.watch(4)).thenReturn(new CompletableFuture<>());
+
+        MvcResult result = mockMvc.perform(get("/scheme/watch").param("knownVersion", "4").param("timeoutMs", "50"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // MockMvc не запускает таймер асинхронного запроса сам, поэтому вызываем таймаут вручную
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        asyncContext.getListeners().forEach(listener -> {
+            try {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    public void testWatchUsesSchemaETagDuringMigration() throws Exception {
+        ServerNode node1 = new ServerNode("10.0.0.1:8080");
+        ServerNode node2 = new ServerNode("10.0.0.2:8080");
+        var ring = new ConsistentHashRing<>(new ConsistentHashRing.MD5HashFunction(), List.of(node1, node2), 1);
+        MigrationJob job = new MigrationJob(5, List.of(new MigrationTask(node1, node2, List.of(new HashRange(0, 99)))));
+        var snapshot = new SchemaSnapshot(Set.of(node1, node2), ring, 5).withHandoff(new MigrationHandoff(List.of(job)));
+        when(schemaWatchService.watch(4)).thenReturn(CompletableFuture.completedFuture(snapshot));
+
+        MvcResult result = mockMvc.perform(get("/scheme/watch").param("knownVersion", "4"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Тот же тег, что у GET /scheme: его можно передать в If-None-Match любого из них
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5-0\""));
+    }
+}
@@ -0,0 +1,262 @@
+package team.brown.sharding.master.grpc;
+
+import io.grpc.BindableService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.grpc.proto.MigrationAck;
+import team.brown.sharding.master.grpc.proto.MigrationBatch;
+import team.brown.sharding.master.grpc.proto.StorageMigrationGrpc;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.migration.MigrationHandoff;
+import team.brown.sharding.master.migration.MigrationJob;
+import team.brown.sharding.master.migration.MigrationTask;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты gRPC-клиента миграции против in-process сервера, изображающего узел хранения.
+ */
+public class GrpcMigrationClientTest {
+
+    private final ServerNode source = new ServerNode("10.0.0.1:8085");
+    private final ServerNode target = new ServerNode("10.0.0.2:8085");
+    private final List<MigrationBatch> received = new CopyOnWriteArrayList<>();
+    private final List<String> restCalls = new CopyOnWriteArrayList<>();
+    private final RestClient restFallback = (s, t, start, end, version) -> restCalls.add(start + ".." + end);
+    private final List<ManagedChannel> channels = new ArrayList<>();
+    private final ExecutorService acks = Executors.newSingleThreadExecutor();
+    private Server server;
+
+    /**
+     * Узел хранения: подтверждает каждый пакет, отклоняет пакеты с пустым адресом получателя.
+     */
+    private class FakeStorage extends StorageMigrationGrpc.StorageMigrationImplBase {
+        @Override
+        public StreamObserver<MigrationBatch> migrate(StreamObserver<MigrationAck> responseObserver) {
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(MigrationBatch batch) {
+                    received.add(batch);
+                    boolean ok = !batch.getTargetAddress().isEmpty();
+                    responseObserver.onNext(MigrationAck.newBuilder()
+                            .setBatchId(batch.getBatchId())
+                            .setSuccess(ok)
+                            .setError(ok ? "" : "empty target")
+                            .build());
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+    }
+
+    /**
+     * Узел хранения, подтверждающий пакеты по одному с задержкой; при отрицательной задержке не отвечает вовсе.
+     */
+    private class SlowStorage extends StorageMigrationGrpc.StorageMigrationImplBase {
+        private final long delayMillis;
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+
+        SlowStorage(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public StreamObserver<MigrationBatch> migrate(StreamObserver<MigrationAck> responseObserver) {
+            ((ServerCallStreamObserver<MigrationAck>) responseObserver).setOnCancelHandler(cancelled::countDown);
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(MigrationBatch batch) {
+                    received.add(batch);
+                    if (delayMillis >= 0) {
+                        acks.execute(() -> {
+                            sleep(delayMillis);
+                            responseObserver.onNext(MigrationAck.newBuilder()
+                                    .setBatchId(batch.getBatchId())
+                                    .setSuccess(true)
+                                    .build());
+                        });
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    if (delayMillis >= 0) {
+                        acks.execute(responseObserver::onCompleted);
+                    }
+                }
+            };
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private GrpcMigrationClient client(String serverName, boolean withService, int batchSize) throws Exception {
+        return client(serverName, withService ? new FakeStorage() : null, batchSize, 5_000);
+    }
+
+    private GrpcMigrationClient client(String serverName,
+                                       BindableService service,
+                                       int batchSize,
+                                       long ackTimeoutMillis) throws Exception {
+        InProcessServerBuilder builder = InProcessServerBuilder.forName(serverName).directExecutor();
+        if (service != null) {
+            builder.addService(service);
+        }
+        server = builder.build().start();
+        return new GrpcMigrationClient(address -> {
+            ManagedChannel channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+            channels.add(channel);
+            return channel;
+        }, restFallback, batchSize, ackTimeoutMillis, 5_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        acks.shutdownNow();
+        channels.forEach(ManagedChannel::shutdownNow);
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+
+    private static List<HashRange> ranges(int count) {
+        List<HashRange> ranges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ranges.add(new HashRange(i * 100, i * 100 + 50));
+        }
+        return ranges;
+    }
+
+    @Test
+    public void testRangesAreStreamedInBatches() throws Exception {
+        GrpcMigrationClient client = client("storage-batches", true, 4);
+
+        client.migrateRangesDirectly(source, target, ranges(10), 7);
+        client.migrateRangeDirectly(source, target, 5, 6, 7);
+
+        assertThat(received.size(), is(4));
+        assertThat(received.get(0).getRangesCount(), is(4));
+        assertThat(received.get(2).getRangesCount(), is(2));
+        assertThat(received.get(1).getRanges(0).getStart(), is(400));
+        assertThat(received.get(0).getTargetAddress(), is(target.getAddress()));
+        assertThat(received.get(0).getVersion(), is(7));
+        assertThat(received.get(3).getRanges(0).getEnd(), is(6));
+        // Канал к узлу создаётся один раз и переиспользуется
+        assertThat(channels.size(), is(1));
+        assertThat(restCalls.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRejectedBatchFailsMigration() throws Exception {
+        GrpcMigrationClient client = client("storage-reject", true, 4);
+
+        assertThrows(IllegalStateException.class,
+                () -> client.migrateRangesDirectly(source, new ServerNode(""), ranges(3), 7));
+        assertThat(restCalls.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testFallsBackToRestWhenServiceIsMissing() throws Exception {
+        GrpcMigrationClient client = client("storage-legacy", false, 4);
+
+        client.migrateRangesDirectly(source, target, ranges(2), 7);
+
+        assertThat(restCalls, is(List.of("0..50", "100..150")));
+        assertThat(channels.get(0).isShutdown(), is(true));
+
+        // Узел без сервиса запоминается: следующая команда сразу идёт по REST
+        client.migrateRangeDirectly(source, target, 5, 6, 8);
+        assertThat(restCalls.get(2), is("5..6"));
+        assertThat(channels.size(), is(1));
+    }
+
+    @Test
+    public void testChannelIsClosedWhenNodeLeavesSchema() throws Exception {
+        GrpcMigrationClient client = client("storage-leave", true, 4);
+        client.migrateRangesDirectly(source, target, ranges(2), 7);
+        var ring = new ConsistentHashRing<ServerNode>(new ConsistentHashRing.MD5HashFunction(), Set.of(target), 4);
+        var migrating = new SchemaSnapshot(Set.of(target), ring, 8).withHandoff(new MigrationHandoff(List.of(
+                new MigrationJob(8, List.of(new MigrationTask(source, target, List.of(new HashRange(0, 99))))))));
+
+        // Пока данные переезжают с ушедшего узла, канал к нему нужен
+        client.releaseRemovedNodes(migrating);
+        assertThat(client.getChannelCount(), is(1));
+
+        client.releaseRemovedNodes(new SchemaSnapshot(Set.of(target), ring, 9));
+        assertThat(client.getChannelCount(), is(0));
+        assertThat(channels.get(0).isShutdown(), is(true));
+    }
+
+    @Test
+    public void testHungNodeFailsAfterAckTimeout() throws Exception {
+        SlowStorage storage = new SlowStorage(-1);
+        GrpcMigrationClient client = client("storage-hung", storage, 4, 200);
+
+        long started = System.nanoTime();
+        StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                () -> client.migrateRangesDirectly(source, target, ranges(2), 7));
+
+        // Не ждём дедлайна потока (5 секунд), вызов отменяется
+        assertThat(error.getStatus().getCode(), is(Status.Code.DEADLINE_EXCEEDED));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), lessThan(2_000L));
+        assertThat(storage.cancelled.await(1, TimeUnit.SECONDS), is(true));
+        assertThat(restCalls.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testSlowButProgressingNodeIsNotCutOff() throws Exception {
+        GrpcMigrationClient client = client("storage-slow", new SlowStorage(100), 1, 300);
+
+        // Пять подтверждений по 100 мс - дольше таймаута ожидания одного подтверждения
+        client.migrateRangesDirectly(source, target, ranges(5), 7);
+
+        assertThat(received.size(), is(5));
+        assertThat(restCalls.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testGrpcTarget() {
+        assertThat(GrpcMigrationClient.grpcTarget("host.docker.internal:8085", -1000), is("host.docker.internal:7085"));
+        assertThat(GrpcMigrationClient.grpcTarget("http://192.168.1.10:8000", 0), is("192.168.1.10:8000"));
+    }
+}
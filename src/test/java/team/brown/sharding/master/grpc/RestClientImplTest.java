@@ -0,0 +1,157 @@
+package team.brown.sharding.master.grpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.journal.EventJournal;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты JSON-клиента миграции против HTTP-сервера, изображающего узел хранения.
+ */
+public class RestClientImplTest {
+
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final ServerNode target = new ServerNode("10.0.0.2:8085");
+    private HttpServer server;
+    private ServerNode source;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/storage/direct", exchange -> {
+            received.add(exchange.getRequestURI().getPath() + " "
+                    + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/hung/storage/direct", exchange -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/slow/storage/direct", exchange -> {
+            // Заголовки уходят сразу, тело не приходит никогда
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write('{');
+            exchange.getResponseBody().flush();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        source = new ServerNode("127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    private RestClientImpl client(boolean batchRequests, long deadlineMillis) {
+        return client(batchRequests, deadlineMillis, deadlineMillis);
+    }
+
+    private RestClientImpl client(boolean batchRequests, long storageTimeoutMillis, long deadlineMillis) {
+        return new RestClientImpl(httpClient, new ObjectMapper(), batchRequests, storageTimeoutMillis, deadlineMillis,
+                EventJournal.disabled());
+    }
+
+    private static List<HashRange> ranges(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new HashRange(i * 100, i * 100 + 50))
+                .toList();
+    }
+
+    @Test
+    public void testRangesAreSentInOneBatchRequest() {
+        client(true, 5_000).migrateRangesDirectly(source, target, ranges(3), 7);
+
+        assertThat(received.size(), is(1));
+        assertThat(received.get(0), containsString("/storage/direct/batch"));
+        assertThat(received.get(0), containsString("\"targetAddress\":\"10.0.0.2:8085\""));
+        assertThat(received.get(0), containsString("\"version\":7"));
+    }
+
+    @Test
+    public void testRangesAreSentOneByOneWithoutBatching() {
+        client(false, 5_000).migrateRangesDirectlyAsync(source, target, ranges(3), 7).join();
+
+        assertThat(received.size(), is(3));
+        received.forEach(request -> assertThat(request, containsString("/storage/direct ")));
+    }
+
+    @Test
+    public void testErrorStatusFailsMigration() {
+        ServerNode missing = new ServerNode(source.getAddress() + "/missing");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> client(true, 5_000).migrateRangeDirectly(missing, target, 0, 10, 7));
+        assertThat(e.getMessage(), containsString("status=404"));
+    }
+
+    @Test
+    public void testHungNodeFailsAfterDeadline() {
+        ServerNode hung = new ServerNode(source.getAddress() + "/hung");
+        long started = System.nanoTime();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> client(true, 300).migrateRangeDirectly(hung, target, 0, 10, 7));
+        assertThat(e.getMessage(), containsString("timed out"));
+        assertThat(System.nanoTime() - started < 5_000_000_000L, is(true));
+    }
+
+    @Test
+    public void testHungNodeFailsAfterStorageTimeout() {
+        ServerNode hung = new ServerNode(source.getAddress() + "/hung");
+        long started = System.nanoTime();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> client(true, 200, 30_000).migrateRangeDirectly(hung, target, 0, 10, 7));
+        assertThat(e.getMessage(), containsString("timed out"));
+        assertThat(System.nanoTime() - started < 5_000_000_000L, is(true));
+    }
+
+    @Test
+    public void testStalledResponseBodyFailsAtDeadline() {
+        ServerNode slow = new ServerNode(source.getAddress() + "/slow");
+        long started = System.nanoTime();
+
+        // Узел начал отвечать вовремя, но тело не дослал: срок ограничивает весь обмен
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> client(true, 5_000, 300).migrateRangeDirectly(slow, target, 0, 10, 7));
+        assertThat(e.getMessage(), containsString("timed out"));
+        assertThat(System.nanoTime() - started < 5_000_000_000L, is(true));
+    }
+}
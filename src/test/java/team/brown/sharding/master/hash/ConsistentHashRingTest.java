@@ -0,0 +1,149 @@
+package team.brown.sharding.master.hash;
+
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Тесты для ConsistentHashRing.
+ */
+public class ConsistentHashRingTest {
+
+    private final ConsistentHashRing.HashFunction hashFunction = new ConsistentHashRing.MD5HashFunction();
+
+    private static List<ServerNode> nodes(int count) {
+        List<ServerNode> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(new ServerNode("10.0.0." + i + ":8080"));
+        }
+        return nodes;
+    }
+
+    /**
+     * Эталонный поиск владельца по отсортированной карте, как в прежней реализации на TreeMap.
+     */
+    private static ServerNode expectedOwner(SortedMap<Integer, ServerNode> circle, int hash) {
+        SortedMap<Integer, ServerNode> tailMap = circle.tailMap(hash);
+        return tailMap.isEmpty() ? circle.get(circle.firstKey()) : tailMap.get(tailMap.firstKey());
+    }
+
+    @Test
+    public void testEmptyRing() {
+        var ring = new ConsistentHashRing<ServerNode>(hashFunction, List.of(), 16);
+
+        assertThat(ring.size(), is(0));
+        assertThat(ring.getNodeForHash(42), nullValue());
+        assertThat(ring.getNodeByHash(42), nullValue());
+        assertThat(ring.getHashRanges(new ServerNode("a")).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testOwnershipCoversWholeHashSpace() {
+        var ring = new ConsistentHashRing<>(hashFunction, nodes(5), 64);
+        Map<ServerNode, Double> ownership = ring.getOwnership();
+
+        assertThat(ownership.size(), is(5));
+        assertThat(ownership.values().stream().mapToDouble(Double::doubleValue).sum(), closeTo(1.0, 1e-9));
+        ownership.values().forEach(share -> assertThat(share, closeTo(0.2, 0.1)));
+
+        var single = new ConsistentHashRing<>(hashFunction, nodes(1), 1);
+        assertThat(single.getOwnership(), is(Map.of(nodes(1).get(0), 1.0)));
+    }
+
+    @Test
+    public void testLookupMatchesSortedMap() {
+        var ring = new ConsistentHashRing<>(hashFunction, nodes(20), 64);
+        SortedMap<Integer, ServerNode> circle = ring.getCircle();
+        assertThat(ring.size(), is(20 * 64));
+
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            int hash = random.nextInt();
+            assertThat(ring.getNodeForHash(hash), is(expectedOwner(circle, hash)));
+        }
+        for (Integer hash : circle.keySet()) {
+            assertThat(ring.getNodeForHash(hash), is(circle.get(hash)));
+        }
+        assertThat(ring.getNodeForHash(Integer.MAX_VALUE), is(expectedOwner(circle, Integer.MAX_VALUE)));
+        assertThat(ring.getNodeForHash(Integer.MIN_VALUE), is(expectedOwner(circle, Integer.MIN_VALUE)));
+    }
+
+    @Test
+    public void testRemoveNodeKeepsOthers() {
+        List<ServerNode> nodes = nodes(5);
+        var ring = new ConsistentHashRing<>(hashFunction, nodes, 32);
+        ServerNode removed = nodes.get(2);
+
+        ring.removeNode(removed);
+
+        assertThat(ring.size(), is(4 * 32));
+        assertThat(ring.getNodes().contains(removed), is(false));
+        var expected = new ConsistentHashRing<>(hashFunction, List.of(nodes.get(0), nodes.get(1), nodes.get(3), nodes.get(4)), 32);
+        assertThat(ring.getCircle(), is(expected.getCircle()));
+    }
+
+    @Test
+    public void testCloneIsIndependent() {
+        List<ServerNode> nodes = nodes(3);
+        var ring = new ConsistentHashRing<>(hashFunction, nodes, 8);
+        var cloned = ring.clone();
+
+        cloned.addNode(new ServerNode("10.0.1.1:8080"));
+        cloned.removeNode(nodes.get(0));
+
+        assertThat(ring.size(), is(3 * 8));
+        assertThat(ring.getNodes().contains(nodes.get(0)), is(true));
+        assertThat(cloned.size(), is(3 * 8));
+    }
+
+    @Test
+    public void testWeightScalesVirtualNodes() {
+        var ring = new ConsistentHashRing<ServerNode>(hashFunction, List.of(), 10);
+
+        assertThat(ring.virtualNodesOf(new ServerNode("a")), is(10));
+        assertThat(ring.virtualNodesOf(new ServerNode("a", 250)), is(25));
+        assertThat(ring.virtualNodesOf(new ServerNode("a", 1)), is(1));
+        assertThat(ring.virtualNodesOf(new ServerNode("a", 0)), is(0));
+
+        ring.addNode(new ServerNode("10.0.0.1:8080", 300));
+        assertThat(ring.size(), is(30));
+    }
+
+    @Test
+    public void testUpdateNodeChangesOnlyItsTrailingVirtualNodes() {
+        List<ServerNode> nodes = nodes(5);
+        var ring = new ConsistentHashRing<>(hashFunction, nodes, 16);
+        SortedMap<Integer, ServerNode> before = ring.getCircle();
+        ServerNode heavier = new ServerNode(nodes.get(2), 200);
+
+        ring.updateNode(heavier);
+
+        assertThat(ring.size(), is(6 * 16));
+        SortedMap<Integer, ServerNode> grown = ring.getCircle();
+        before.forEach((hash, owner) -> assertThat(grown.get(hash), is(owner)));
+        assertThat(grown.values().stream().filter(node -> node == heavier).count(), is(32L));
+        // Та же схема получается и построением с нуля
+        var rebuilt = new ConsistentHashRing<>(hashFunction,
+                List.of(nodes.get(0), nodes.get(1), new ServerNode(nodes.get(2), 200), nodes.get(3), nodes.get(4)), 16);
+        assertThat(ring.getCircle(), is(rebuilt.getCircle()));
+
+        ServerNode lighter = new ServerNode(heavier, 50);
+        ring.updateNode(lighter);
+
+        assertThat(ring.size(), is(4 * 16 + 8));
+        SortedMap<Integer, ServerNode> shrunk = ring.getCircle();
+        shrunk.forEach((hash, owner) -> assertThat(grown.get(hash).getAddress(), is(owner.getAddress())));
+        assertThat(ring.getNodeTable().get(2), is(lighter));
+        assertThat(lighter.getSalts().keySet().stream().allMatch(i -> i < 8), is(true));
+    }
+}
@@ -0,0 +1,78 @@
+package team.brown.sharding.master.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Тесты встроенных хеш-функций.
+ */
+public class HashFunctionTest {
+
+    private static final List<String> KEYS = List.of(
+            "", "a", "abc", "10.0.0.1:8080-0", "10.0.0.1:8080-salty0",
+            "ключ", "日本語", "emoji 😀", "lone \uD800 surrogate",
+            "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef!"
+    );
+
+    /**
+     * Прежняя реализация MD5: MessageDigest на каждый вызов и BigInteger.
+     */
+    private static int legacyMd5(String key) throws Exception {
+        byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+        return new BigInteger(1, digest).intValue();
+    }
+
+    @Test
+    public void testMd5KeepsPlacement() throws Exception {
+        var md5 = new ConsistentHashRing.MD5HashFunction();
+        for (String key : KEYS) {
+            assertThat(key, md5.hash(key), is(legacyMd5(key)));
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000; i++) {
+            char[] chars = new char[random.nextInt(40)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) random.nextInt(Character.MAX_VALUE + 1);
+            }
+            String key = new String(chars);
+            assertThat(md5.hash(key), is(legacyMd5(key)));
+        }
+    }
+
+    @Test
+    public void testMurmur3ReferenceValues() {
+        var murmur3 = new Murmur3HashFunction();
+        assertThat(murmur3.hash(""), is(0));
+        assertThat(murmur3.hash("hello"), is(0x248bfa47));
+        assertThat(murmur3.hash("The quick brown fox jumps over the lazy dog"), is(0x2e4ff723));
+    }
+
+    @Test
+    public void testXxHash64ReferenceValues() {
+        byte[] empty = new byte[0];
+        byte[] abc = "abc".getBytes(StandardCharsets.UTF_8);
+        byte[] fox = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(XxHash64HashFunction.hash64(empty, 0), is(0xEF46DB3751D8E999L));
+        assertThat(XxHash64HashFunction.hash64(abc, abc.length), is(0x44BC2CF5AD770999L));
+        assertThat(XxHash64HashFunction.hash64(fox, fox.length), is(0x0B242D361FDA71BCL));
+
+        long h = 0x44BC2CF5AD770999L;
+        assertThat(new XxHash64HashFunction().hash("abc"), is((int) (h ^ (h >>> 32))));
+    }
+
+    @Test
+    public void testTypeLookup() {
+        assertThat(HashFunctionType.fromName("MD5").create().name(), is("md5"));
+        assertThat(HashFunctionType.fromName("murmur3").create().name(), is("murmur3"));
+        assertThat(HashFunctionType.fromName("xxhash64").create().name(), is("xxhash64"));
+    }
+}
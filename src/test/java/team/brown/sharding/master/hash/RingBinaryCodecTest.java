@@ -0,0 +1,68 @@
+package team.brown.sharding.master.hash;
+
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты для RingBinaryCodec.
+ */
+public class RingBinaryCodecTest {
+
+    private final ConsistentHashRing.HashFunction hashFunction = new Murmur3HashFunction();
+
+    @Test
+    public void testRoundTripWithWideOwnerIndex() {
+        List<ServerNode> nodes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            nodes.add(new ServerNode("10.0." + i / 256 + "." + i % 256 + ":8080"));
+        }
+        var ring = new ConsistentHashRing<>(hashFunction, nodes, 4);
+
+        var table = RingBinaryCodec.decode(RingBinaryCodec.encode(ring, 42));
+
+        assertThat(table.schemaVersion(), is(42));
+        assertThat(table.hashFunction(), is("murmur3"));
+        assertThat(table.nodes().size(), is(300));
+        assertThat(table.hashes().length, is(ring.size()));
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            int hash = random.nextInt();
+            assertThat(table.ownerOf(hash), is(ring.getNodeForHash(hash).getAddress()));
+        }
+        assertThat(table.ownerOf(ring.getHashAt(0)), is(ring.getNodeAt(0).getAddress()));
+    }
+
+    @Test
+    public void testEmptyRing() {
+        var ring = new ConsistentHashRing<ServerNode>(hashFunction, List.of(), 4);
+
+        var table = RingBinaryCodec.decode(RingBinaryCodec.encode(ring, 1));
+
+        assertThat(table.nodes().isEmpty(), is(true));
+        assertThat(table.ownerOf(123), nullValue());
+    }
+
+    @Test
+    public void testRejectsCorruptedData() {
+        var ring = new ConsistentHashRing<>(hashFunction, List.of(new ServerNode("10.0.0.1:8080")), 4);
+        byte[] data = RingBinaryCodec.encode(ring, 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> RingBinaryCodec.decode(Arrays.copyOf(data, data.length - 1)));
+        byte[] otherFormat = data.clone();
+        otherFormat[4] = RingBinaryCodec.FORMAT_VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> RingBinaryCodec.decode(otherFormat));
+        data[0] = 0;
+        assertThrows(IllegalArgumentException.class, () -> RingBinaryCodec.decode(data));
+    }
+}
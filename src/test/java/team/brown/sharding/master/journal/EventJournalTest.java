@@ -0,0 +1,86 @@
+package team.brown.sharding.master.journal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Тесты для EventJournal.
+ */
+public class EventJournalTest {
+
+    @Test
+    public void testOldestEventsAreOverwritten() {
+        EventJournal journal = new EventJournal(4, 1);
+        for (int i = 0; i < 10; i++) {
+            journal.record("route", "10.0.0.1:8080", i, i * 10L);
+        }
+
+        List<EventJournal.Event> events = journal.dump(100);
+        assertThat(events.stream().map(EventJournal.Event::value1).toList(), is(List.of(6L, 7L, 8L, 9L)));
+        assertThat(events.get(0).sequence(), is(6L));
+        assertThat(events.get(3).value2(), is(90L));
+        assertThat(events.get(3).subject(), is("10.0.0.1:8080"));
+        assertThat(journal.dump(2).stream().map(EventJournal.Event::value1).toList(), is(List.of(8L, 9L)));
+        assertThat(journal.getRecorded(), is(10L));
+    }
+
+    @Test
+    public void testEventsAreSampled() {
+        EventJournal journal = new EventJournal(100_000, 10);
+        IntStream.range(0, 100_000).parallel().forEach(i -> journal.sample("route", null, i, 0));
+
+        // В среднем сохраняется каждое десятое событие
+        assertThat(journal.getRecorded(), greaterThan(8_000L));
+        assertThat(journal.getRecorded(), lessThan(12_000L));
+        assertThat(journal.dump(100_000).size(), is((int) journal.getRecorded()));
+    }
+
+    @Test
+    public void testConcurrentWritersNeverMixEvents() {
+        EventJournal journal = new EventJournal(4, 1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            long base = writer * 1_000_000_000L;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (long i = base; i < base + 200_000; i++) {
+                    journal.record("route", String.valueOf(i), i, i * 3);
+                }
+            }));
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(writers.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, error) -> done.set(true));
+
+        long checked = 0;
+        while (!done.get()) {
+            for (EventJournal.Event event : journal.dump(4)) {
+                // Все поля события должны принадлежать одному писателю
+                assertThat(event.value2(), is(event.value1() * 3));
+                assertThat(event.subject(), is(String.valueOf(event.value1())));
+                checked++;
+            }
+        }
+        all.join();
+        assertThat(checked, greaterThan(0L));
+    }
+
+    @Test
+    public void testDisabledJournalKeepsNothing() {
+        EventJournal journal = EventJournal.disabled();
+        journal.record("route", null, 1, 2);
+        journal.sample("route", null, 1, 2);
+
+        assertThat(journal.getRecorded(), is(0L));
+        assertThat(journal.dump(10).isEmpty(), is(true));
+    }
+}
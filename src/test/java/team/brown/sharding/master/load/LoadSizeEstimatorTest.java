@@ -0,0 +1,46 @@
+package team.brown.sharding.master.load;
+
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.migration.MigrationTask;
+import team.brown.sharding.master.model.LoadReport;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Тесты для LoadSizeEstimator.
+ */
+public class LoadSizeEstimatorTest {
+
+    @Test
+    public void testEstimatesOverlapProportionally() {
+        LoadReport report = new LoadReport("10.0.0.1:8080", List.of(
+                new LoadReport.RangeLoad(0, 99, 10, 1_000, 0),
+                new LoadReport.RangeLoad(200, 299, 10, 4_000, 0),
+                // Переходит через ноль кольца: по 100 хешей с каждой стороны
+                new LoadReport.RangeLoad(Integer.MAX_VALUE - 99, Integer.MIN_VALUE + 99, 10, 2_000, 0)));
+
+        assertThat(LoadSizeEstimator.estimate(report, List.of(new HashRange(50, 249))), closeTo(2_500, 0.001));
+        assertThat(LoadSizeEstimator.estimate(report, List.of(
+                new HashRange(Integer.MIN_VALUE, Integer.MIN_VALUE + 49),
+                new HashRange(0, 9),
+                new HashRange(Integer.MAX_VALUE - 99, Integer.MAX_VALUE))), closeTo(1_600, 0.001));
+    }
+
+    @Test
+    public void testUnknownSourceIsNotEstimated() {
+        LoadMap loadMap = new LoadMap(1_000, () -> 0);
+        LoadSizeEstimator estimator = new LoadSizeEstimator(loadMap);
+        MigrationTask task = new MigrationTask(new ServerNode("10.0.0.1:8080"), new ServerNode("10.0.0.2:8080"),
+                List.of(new HashRange(0, 99)));
+
+        assertThat(estimator.estimateBytes(task), is(0L));
+        loadMap.report(new LoadReport("10.0.0.1:8080", List.of(new LoadReport.RangeLoad(0, 199, 1, 400, 0))));
+        assertThat(estimator.estimateBytes(task), is(200L));
+    }
+}
@@ -0,0 +1,164 @@
+package team.brown.sharding.master.load;
+
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.grpc.RestClient;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.migration.MigrationExecutor;
+import team.brown.sharding.master.model.LoadReport;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaVersionConflictException;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты для Rebalancer, LoadCollector и LoadMap против заглушки узлов хранения.
+ */
+public class RebalancerTest {
+
+    private final ConsistentHashRing.HashFunction hashFunction = new ConsistentHashRing.MD5HashFunction();
+    private final RestClient restClient = (source, target, start, end, version) -> { };
+    private final ServerNode hot = new ServerNode("10.0.0.1:8080");
+    private final List<ServerNode> nodes = List.of(
+            hot, new ServerNode("10.0.0.2:8080"), new ServerNode("10.0.0.3:8080"), new ServerNode("10.0.0.4:8080"));
+
+    private MasterNode masterNode() {
+        MasterNode masterNode = new MasterNode(nodes, hashFunction, new MigrationExecutor(restClient, 4, 4));
+        masterNode.updateShardCount(64);
+        return masterNode;
+    }
+
+    /**
+     * Узел хранения: отчитывается о своих диапазонах, горячий узел получает вчетверо больше запросов.
+     */
+    private LoadReport storageStats(MasterNode masterNode, ServerNode node) {
+        List<LoadReport.RangeLoad> ranges = masterNode.getSnapshot().getRing().getHashRanges(node).stream()
+                .map(range -> rangeLoad(range, node.equals(hot) ? 40 : 10))
+                .toList();
+        return new LoadReport("storage-" + node.getAddress(), ranges);
+    }
+
+    private static LoadReport.RangeLoad rangeLoad(HashRange range, double requestsPerSecond) {
+        return new LoadReport.RangeLoad(range.getStart(), range.getEnd(), 100, 1024, requestsPerSecond);
+    }
+
+    @Test
+    public void testCollectorReportsUnderSchemaAddress() {
+        MasterNode masterNode = masterNode();
+        LoadMap loadMap = new LoadMap(60_000);
+        LoadCollector collector = new LoadCollector(masterNode, loadMap, node -> {
+            if (node.getAddress().endsWith(".4:8080")) {
+                throw new IllegalStateException("connection refused");
+            }
+            return storageStats(masterNode, node);
+        }, 0);
+
+        collector.collect();
+
+        List<LoadMap.NodeLoad> loads = loadMap.nodeLoads();
+        assertThat(loads.size(), is(3));
+        assertThat(loads.get(0).address(), is(hot.getAddress()));
+        assertThat(loads.get(0).requestsPerSecond(), closeTo(40.0 * loads.get(0).ranges(), 1e-9));
+    }
+
+    @Test
+    public void testStaleReportsAreIgnored() {
+        AtomicLong now = new AtomicLong(1_000);
+        LoadMap loadMap = new LoadMap(500, now::get);
+
+        loadMap.report(new LoadReport("a:1", List.of()));
+        now.addAndGet(400);
+        loadMap.report(new LoadReport("b:1", List.of()));
+        now.addAndGet(200);
+
+        assertThat(loadMap.current().size(), is(1));
+        assertThat(loadMap.current().get(0).address(), is("b:1"));
+    }
+
+    @Test
+    public void testEstimateSplitsWrappingRange() {
+        MasterNode masterNode = masterNode();
+        LoadReport report = new LoadReport("a:1", List.of(
+                new LoadReport.RangeLoad(Integer.MAX_VALUE - 99, Integer.MIN_VALUE + 99, 0, 0, 200)));
+
+        Map<String, Double> loads = Rebalancer.estimate(masterNode.getSnapshot().getRing(), List.of(report),
+                LoadMetric.REQUESTS);
+
+        assertThat(loads.values().stream().mapToDouble(Double::doubleValue).sum(), closeTo(200, 1e-6));
+    }
+
+    @Test
+    public void testRebalanceEvensOutHotNode() {
+        MasterNode masterNode = masterNode();
+        LoadMap loadMap = new LoadMap(60_000);
+        new LoadCollector(masterNode, loadMap, node -> storageStats(masterNode, node), 0).collect();
+        Rebalancer rebalancer = new Rebalancer(masterNode, loadMap, "requests", 20, 8);
+
+        RebalancePlan plan = rebalancer.propose();
+        assertThat(plan.version(), is(masterNode.getVersion()));
+        assertThat(plan.balanced(), is(true));
+        assertThat(plan.projectedMax(), lessThan(plan.currentMax()));
+        assertThat(plan.projectedMax() <= plan.mean() * 1.2, is(true));
+        RebalancePlan.WeightChange hotChange = plan.changes().stream()
+                .filter(change -> change.address().equals(hot.getAddress()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(hotChange.newWeight(), lessThan(ServerNode.DEFAULT_WEIGHT));
+
+        int version = masterNode.getVersion();
+        rebalancer.rebalance();
+
+        // Все изменения весов - одна версия в состоянии миграции и одна после её завершения
+        assertThat(plan.changes().size() > 1, is(true));
+        assertThat(masterNode.getVersion(), is(version + 2));
+        ServerNode updated = masterNode.getNodes().stream()
+                .filter(node -> node.equals(hot))
+                .findFirst()
+                .orElseThrow();
+        assertThat(updated.getWeight(), is(hotChange.newWeight()));
+        Map<String, Integer> weights = masterNode.getNodes().stream()
+                .collect(Collectors.toMap(ServerNode::getAddress, ServerNode::getWeight));
+        plan.changes().forEach(change -> assertThat(weights.get(change.address()), is(change.newWeight())));
+    }
+
+    @Test
+    public void testStalePlanIsRejected() {
+        MasterNode masterNode = masterNode();
+        LoadMap loadMap = new LoadMap(60_000);
+        new LoadCollector(masterNode, loadMap, node -> storageStats(masterNode, node), 0).collect();
+        Rebalancer rebalancer = new Rebalancer(masterNode, loadMap, "requests", 20, 8);
+        RebalancePlan plan = rebalancer.propose();
+
+        masterNode.addServer(new ServerNode("10.0.0.5:8080"));
+        int version = masterNode.getVersion();
+
+        assertThrows(SchemaVersionConflictException.class, () -> rebalancer.apply(plan));
+        assertThat(masterNode.getVersion(), is(version));
+        assertThat(masterNode.getNodes().stream().allMatch(node -> node.getWeight() == ServerNode.DEFAULT_WEIGHT),
+                is(true));
+    }
+
+    @Test
+    public void testBalancedLoadNeedsNoChanges() {
+        MasterNode masterNode = masterNode();
+        LoadMap loadMap = new LoadMap(60_000);
+        // Одинаковая плотность запросов на всём кольце
+        loadMap.report(new LoadReport("a:1", List.of(
+                new LoadReport.RangeLoad(Integer.MIN_VALUE, Integer.MAX_VALUE, 0, 0, 1000))));
+
+        RebalancePlan plan = new Rebalancer(masterNode, loadMap, "requests", 50, 8).propose();
+
+        assertThat(plan.balanced(), is(true));
+        assertThat(plan.changes().isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,229 @@
+package team.brown.sharding.master.migration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.grpc.RestClient;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты для MigrationExecutor.
+ */
+public class MigrationExecutorTest {
+
+    private static final long TRANSFER_MILLIS = 200;
+
+    private final ServerNode target = new ServerNode("10.0.0.100:8080");
+
+    private static List<MigrationTask> tasksFromSources(int sources, int rangesPerSource, ServerNode target) {
+        List<MigrationTask> tasks = new ArrayList<>();
+        for (int s = 0; s < sources; s++) {
+            ServerNode source = new ServerNode("10.0.0." + s + ":8080");
+            for (int r = 0; r < rangesPerSource; r++) {
+                int start = s * 1000 + r * 10;
+                tasks.add(new MigrationTask(source, target, List.of(new HashRange(start, start + 9))));
+            }
+        }
+        return tasks;
+    }
+
+    @Test
+    public void testTransfersRunConcurrently() {
+        RestClient restClient = (source, target, start, end, version) -> sleep(TRANSFER_MILLIS);
+        MigrationExecutor executor = new MigrationExecutor(restClient, 4, 64);
+
+        long started = System.nanoTime();
+        executor.execute(tasksFromSources(20, 1, target), 2);
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // Последовательно это заняло бы 20 * 200 мс
+        assertThat(elapsedMillis, lessThan(TRANSFER_MILLIS * 5));
+        List<MigrationProgress.NodeProgress> progress = executor.getProgress().snapshot();
+        assertThat(progress.size(), is(21));
+        assertThat(executor.getProgress().getVersion(), is(2));
+        progress.forEach(p -> {
+            assertThat(p.inFlight(), is(0));
+            assertThat(p.completed(), is(p.total()));
+        });
+    }
+
+    @Test
+    public void testPerNodeLimitsAreRespected() {
+        Map<ServerNode, AtomicInteger> bySource = new ConcurrentHashMap<>();
+        AtomicInteger toTarget = new AtomicInteger();
+        AtomicInteger maxPerSource = new AtomicInteger();
+        AtomicInteger maxToTarget = new AtomicInteger();
+        RestClient restClient = (source, target, start, end, version) -> {
+            AtomicInteger sourceCounter = bySource.computeIfAbsent(source, k -> new AtomicInteger());
+            maxPerSource.accumulateAndGet(sourceCounter.incrementAndGet(), Math::max);
+            maxToTarget.accumulateAndGet(toTarget.incrementAndGet(), Math::max);
+            sleep(20);
+            sourceCounter.decrementAndGet();
+            toTarget.decrementAndGet();
+        };
+        MigrationExecutor executor = new MigrationExecutor(restClient, 2, 3);
+
+        executor.execute(tasksFromSources(4, 6, target), 2);
+
+        assertThat(maxPerSource.get(), lessThanOrEqualTo(2));
+        assertThat(maxToTarget.get(), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    public void testFailureIsReportedAfterAllTransfers() {
+        AtomicInteger calls = new AtomicInteger();
+        RestClient restClient = (source, target, start, end, version) -> {
+            calls.incrementAndGet();
+            if (start == 0) {
+                throw new IllegalStateException("storage is down");
+            }
+        };
+        MigrationExecutor executor = new MigrationExecutor(restClient, 1, 1);
+
+        MigrationException e = assertThrows(MigrationException.class,
+                () -> executor.execute(tasksFromSources(3, 2, target), 5));
+
+        assertThat(e.getCause().getMessage(), is("storage is down"));
+        assertThat(calls.get(), is(6));
+        int failed = executor.getProgress().snapshot().stream()
+                .filter(p -> p.address().equals(target.getAddress()))
+                .mapToInt(MigrationProgress.NodeProgress::failed)
+                .sum();
+        assertThat(failed, is(1));
+    }
+
+    @Test
+    public void testFailedTransferIsRetriedWithSameVersion() {
+        Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        List<Integer> versions = new CopyOnWriteArrayList<>();
+        RestClient restClient = (source, target, start, end, version) -> {
+            versions.add(version);
+            if (attempts.computeIfAbsent(start, k -> new AtomicInteger()).incrementAndGet() < 3) {
+                throw new IllegalStateException("timeout");
+            }
+        };
+        MigrationExecutor executor = new MigrationExecutor(restClient, 4, 4, MigrationThrottle.unlimited(),
+                MigrationJobStore.NONE, new MigrationRetry(3, 1, 5));
+
+        executor.execute(tasksFromSources(2, 2, target), 7);
+
+        assertThat(attempts.size(), is(4));
+        attempts.values().forEach(count -> assertThat(count.get(), is(3)));
+        assertThat(versions.stream().distinct().toList(), is(List.of(7)));
+        assertThat(executor.hasUnfinishedJobs(), is(false));
+    }
+
+    @Test
+    public void testTransfersAreMetered() {
+        AtomicInteger failures = new AtomicInteger(1);
+        RestClient restClient = (source, target, start, end, version) -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("timeout");
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MigrationExecutor executor = new MigrationExecutor(restClient, 1, 1, MigrationThrottle.unlimited(),
+                MigrationJobStore.NONE, new MigrationRetry(3, 1, 5), registry);
+
+        executor.execute(tasksFromSources(1, 3, target), 2);
+
+        assertThat(registry.get("master.migration.ranges.moved").counter().count(), is(3.0));
+        assertThat(registry.get("master.migration.retries").counter().count(), is(1.0));
+        assertThat(registry.get("master.migration.transfer").tag("outcome", "success").timer().count(), is(3L));
+        assertThat(registry.get("master.migration.transfer").tag("outcome", "failure").timer().count(), is(1L));
+        assertThat(registry.get("master.migration.ranges.remaining").gauge().value(), is(0.0));
+    }
+
+    @Test
+    public void testUnfinishedJobRunsBeforeNextVersion() {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        AtomicInteger failures = new AtomicInteger(1);
+        RestClient restClient = (source, target, start, end, version) -> {
+            if (start == 1000 && failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("storage is down");
+            }
+            calls.add(version + ":" + start);
+        };
+        MigrationExecutor executor = new MigrationExecutor(restClient, 1, 1);
+
+        assertThrows(MigrationException.class, () -> executor.execute(tasksFromSources(2, 1, target), 2));
+        MigrationJob.Summary summary = executor.getJobs().get(0);
+        assertThat(summary.version(), is(2));
+        assertThat(summary.done(), is(1));
+        assertThat(summary.failed(), is(1));
+
+        calls.clear();
+        ServerNode other = new ServerNode("10.0.0.200:8080");
+        executor.execute(List.of(new MigrationTask(target, other, List.of(new HashRange(1000, 1009)))), 3);
+
+        // Сначала довозится перенос версии 2, и только потом данные уходят дальше
+        assertThat(calls, is(List.of("2:1000", "3:1000")));
+        assertThat(executor.getJobs().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRecoveryTakesNodeSlotsBeforeRebalance() {
+        ServerNode source = new ServerNode("10.0.0.1:8080");
+        List<MigrationTask> tasks = new ArrayList<>();
+        // Порядок запуска виртуальных потоков не гарантирован; здесь перераспределение нарочно идёт первым
+        for (int i = 0; i < 8; i++) {
+            tasks.add(new MigrationTask(source, target, List.of(new HashRange(i * 10, i * 10 + 9)),
+                    i < 4 ? MigrationPriority.REBALANCE : MigrationPriority.RECOVERY));
+        }
+        MigrationJobStore store = new MigrationJobStore() {
+            @Override
+            public List<MigrationJob> load() {
+                return List.of(new MigrationJob(5, tasks));
+            }
+
+            @Override
+            public void begin(MigrationJob job) {
+            }
+
+            @Override
+            public void completed(MigrationJob job, int task) {
+            }
+
+            @Override
+            public void finish(MigrationJob job) {
+            }
+        };
+        List<MigrationPriority> calls = new CopyOnWriteArrayList<>();
+        RestClient restClient = (s, t, start, end, version) -> {
+            // Первый перенос держит единственный слот источника, пока остальные встают в очередь
+            if (calls.isEmpty()) {
+                sleep(TRANSFER_MILLIS);
+            }
+            calls.add(start < 40 ? MigrationPriority.REBALANCE : MigrationPriority.RECOVERY);
+        };
+        MigrationExecutor executor = new MigrationExecutor(restClient, 1, 64, MigrationThrottle.unlimited(),
+                store, MigrationRetry.NONE);
+
+        executor.resume();
+
+        List<MigrationPriority> queued = calls.subList(1, calls.size());
+        assertThat(queued.size(), is(7));
+        assertThat(queued, is(queued.stream().sorted().toList()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package team.brown.sharding.master.migration;
+
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Тесты для MigrationHandoff.
+ */
+public class MigrationHandoffTest {
+
+    private final ServerNode x = new ServerNode("10.0.0.1:8080");
+    private final ServerNode y = new ServerNode("10.0.0.2:8080");
+    private final ServerNode z = new ServerNode("10.0.0.3:8080");
+
+    @Test
+    public void testOwnerFollowsConfirmedTransfers() {
+        MigrationJob first = new MigrationJob(5, List.of(
+                new MigrationTask(x, y, List.of(new HashRange(0, 99))),
+                new MigrationTask(x, z, List.of(new HashRange(-100, -1), new HashRange(300, 399)))));
+        MigrationJob second = new MigrationJob(6, List.of(
+                new MigrationTask(y, z, List.of(new HashRange(50, 149)))));
+        MigrationHandoff handoff = new MigrationHandoff(List.of(first, second));
+
+        assertThat(handoff.getStableVersion(), is(4));
+        assertThat(handoff.ownerOf(60), is(x));
+        assertThat(handoff.ownerOf(-1), is(x));
+        assertThat(handoff.ownerOf(350), is(x));
+        assertThat(handoff.ownerOf(120), is(y));
+        assertThat(handoff.ownerOf(200), nullValue());
+        assertThat(handoff.inFlight().size(), is(4));
+
+        // Диапазон доехал до y, но следующая версия ещё не перенесла его на z
+        first.completed(0);
+        assertThat(handoff.ownerOf(60), is(y));
+        assertThat(handoff.ownerOf(10), nullValue());
+
+        first.completed(1);
+        second.completed(0);
+        assertThat(handoff.ownerOf(60), nullValue());
+        assertThat(handoff.isComplete(), is(true));
+        assertThat(handoff.inFlight().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testRestoreFromInFlightRanges() {
+        MigrationJob first = new MigrationJob(5, List.of(
+                new MigrationTask(x, y, List.of(new HashRange(0, 99))),
+                new MigrationTask(x, z, List.of(new HashRange(-100, -1), new HashRange(300, 399)))));
+        MigrationJob second = new MigrationJob(6, List.of(
+                new MigrationTask(y, z, List.of(new HashRange(50, 149)))));
+        MigrationHandoff handoff = new MigrationHandoff(List.of(first, second));
+        first.completed(1);
+
+        MigrationHandoff restored = MigrationHandoff.restore(handoff.getStableVersion(), handoff.inFlight(),
+                Map.of(y.getAddress(), y, z.getAddress(), z));
+
+        assertThat(restored.getStableVersion(), is(4));
+        assertThat(restored.inFlight(), is(handoff.inFlight()));
+        for (int hash : new int[]{-50, 0, 60, 120, 350, 500}) {
+            assertThat(restored.ownerOf(hash), is(handoff.ownerOf(hash)));
+        }
+        // Задания версии 5 уже выполнены, но стабильной остаётся версия 4
+        first.completed(0);
+        assertThat(MigrationHandoff.restore(4, handoff.inFlight(), Map.of()).getStableVersion(), is(4));
+    }
+}
@@ -0,0 +1,65 @@
+package team.brown.sharding.master.migration;
+
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Тесты для MigrationPlan и нормализации диапазонов.
+ */
+public class MigrationPlanTest {
+
+    private final ServerNode node1 = new ServerNode("10.0.0.1:8080");
+    private final ServerNode node2 = new ServerNode("10.0.0.2:8080");
+    private final ServerNode node3 = new ServerNode("10.0.0.3:8080");
+
+    @Test
+    public void testCoalesceMergesDuplicatesOverlapsAndNeighbours() {
+        List<HashRange> ranges = HashRange.coalesce(List.of(
+                new HashRange(10, 20),
+                new HashRange(10, 20),
+                new HashRange(15, 30),
+                new HashRange(31, 40),
+                new HashRange(50, 60)
+        ));
+
+        assertThat(ranges, is(List.of(new HashRange(10, 40), new HashRange(50, 60))));
+    }
+
+    @Test
+    public void testCoalesceSplitsWrappedRange() {
+        List<HashRange> ranges = HashRange.coalesce(List.of(
+                new HashRange(Integer.MAX_VALUE - 10, Integer.MIN_VALUE + 10),
+                new HashRange(Integer.MIN_VALUE + 11, Integer.MIN_VALUE + 20)
+        ));
+
+        assertThat(ranges, is(List.of(
+                new HashRange(Integer.MIN_VALUE, Integer.MIN_VALUE + 20),
+                new HashRange(Integer.MAX_VALUE - 10, Integer.MAX_VALUE)
+        )));
+    }
+
+    @Test
+    public void testPlanGroupsBySourceAndTarget() {
+        MigrationPlan plan = new MigrationPlan()
+                .add(node1, node3, new HashRange(0, 9))
+                .add(node1, node3, new HashRange(10, 19))
+                .add(node2, node3, new HashRange(30, 39))
+                .add(node1, node3, new HashRange(5, 12))
+                .add(node3, node3, new HashRange(40, 49))
+                .add(null, node3, new HashRange(50, 59));
+
+        List<MigrationTask> tasks = plan.toTasks();
+
+        assertThat(plan.rangeCount(), is(4));
+        assertThat(tasks, is(List.of(
+                new MigrationTask(node1, node3, List.of(new HashRange(0, 19))),
+                new MigrationTask(node2, node3, List.of(new HashRange(30, 39)))
+        )));
+    }
+}
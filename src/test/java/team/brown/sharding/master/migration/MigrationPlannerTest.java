@@ -0,0 +1,190 @@
+package team.brown.sharding.master.migration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Свойства линейного планировщика миграции на случайных кольцах.
+ * Результат сверяется с прямым поиском владельца и с прежним планировщиком на getHashRanges.
+ */
+public class MigrationPlannerTest {
+
+    private final ConsistentHashRing.HashFunction hashFunction = new ConsistentHashRing.MD5HashFunction();
+
+    private record Scenario(ConsistentHashRing<ServerNode> oldRing, ConsistentHashRing<ServerNode> newRing) {
+    }
+
+    /**
+     * Случайное кольцо и случайное изменение: добавление, удаление узла или смена числа виртуальных узлов.
+     */
+    private Scenario randomScenario(Random random) {
+        int nodeCount = 1 + random.nextInt(12);
+        int virtualNodes = 1 + random.nextInt(24);
+        List<ServerNode> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new ServerNode("10.0." + random.nextInt(256) + "." + i + ":8080"));
+        }
+        var oldRing = new ConsistentHashRing<>(hashFunction, nodes, virtualNodes);
+        var newRing = oldRing.clone();
+        switch (random.nextInt(3)) {
+            case 0 -> newRing.addNode(new ServerNode("10.1.0." + random.nextInt(256) + ":8080"));
+            case 1 -> newRing.removeNode(nodes.get(random.nextInt(nodeCount)));
+            default -> newRing = new ConsistentHashRing<>(hashFunction, nodes, 1 + random.nextInt(24));
+        }
+        return new Scenario(oldRing, newRing);
+    }
+
+    /**
+     * Точки проверки: границы колец, соседние с ними значения, края пространства и случайные хеши.
+     */
+    private static List<Integer> probes(Scenario scenario, Random random) {
+        List<Integer> probes = new ArrayList<>(List.of(Integer.MIN_VALUE, Integer.MAX_VALUE, 0));
+        for (var ring : List.of(scenario.oldRing(), scenario.newRing())) {
+            for (int i = 0; i < ring.size(); i++) {
+                int hash = ring.getHashAt(i);
+                probes.add(hash);
+                probes.add(hash - 1);
+                probes.add(hash + 1);
+            }
+        }
+        for (int i = 0; i < 2_000; i++) {
+            probes.add(random.nextInt());
+        }
+        return probes;
+    }
+
+    private static MigrationPlanner.OwnershipChange find(List<MigrationPlanner.OwnershipChange> changes, int hash) {
+        for (var change : changes) {
+            if (change.range().contains(hash)) {
+                return change;
+            }
+        }
+        return null;
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 5, 8, 13, 21, 34, 55, 89, 144, 233, 377, 610, 987, 1597})
+    public void testDiffMatchesDirectLookup(long seed) {
+        Random random = new Random(seed);
+        Scenario scenario = randomScenario(random);
+        List<MigrationPlanner.OwnershipChange> changes = MigrationPlanner.diff(scenario.oldRing(), scenario.newRing());
+
+        // Участки не пересекаются, отсортированы и не заворачиваются через конец кольца
+        for (int i = 0; i < changes.size(); i++) {
+            HashRange range = changes.get(i).range();
+            assertThat(range.getStart() <= range.getEnd(), is(true));
+            if (i > 0) {
+                assertThat(changes.get(i - 1).range().getEnd(), lessThan(range.getStart()));
+            }
+        }
+
+        for (int hash : probes(scenario, random)) {
+            ServerNode oldOwner = scenario.oldRing().getNodeForHash(hash);
+            ServerNode newOwner = scenario.newRing().getNodeForHash(hash);
+            var change = find(changes, hash);
+            if (oldOwner.equals(newOwner)) {
+                assertThat("hash " + hash + " must not move", change, nullValue());
+            } else {
+                assertThat("hash " + hash + " must move", change == null, is(false));
+                assertThat(change.oldOwner(), is(oldOwner));
+                assertThat(change.newOwner(), is(newOwner));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {4, 6, 9, 10, 14, 15, 22, 35, 56, 90, 145, 234})
+    public void testDiffCoversLegacyPlan(long seed) {
+        Random random = new Random(seed);
+        Scenario scenario = randomScenario(random);
+        List<MigrationPlanner.OwnershipChange> changes = MigrationPlanner.diff(scenario.oldRing(), scenario.newRing());
+        Map<ServerNode, List<HashRange>> legacy = legacyPlan(scenario.oldRing(), scenario.newRing());
+
+        // Всё, что прежний планировщик переносил верно, новый переносит туда же
+        for (var entry : legacy.entrySet()) {
+            ServerNode target = entry.getKey();
+            for (HashRange range : entry.getValue()) {
+                if (target == null || range.isWrapped()) {
+                    continue;
+                }
+                for (int hash : List.of(range.getStart(), range.getEnd())) {
+                    ServerNode oldOwner = scenario.oldRing().getNodeForHash(hash);
+                    if (!target.equals(scenario.newRing().getNodeForHash(hash)) || target.equals(oldOwner)) {
+                        continue;
+                    }
+                    var change = find(changes, hash);
+                    assertThat(change == null, is(false));
+                    assertThat(change.newOwner(), is(target));
+                    assertThat(change.oldOwner(), is(oldOwner));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyRingsProduceNoChanges() {
+        var empty = new ConsistentHashRing<ServerNode>(hashFunction, List.of(), 4);
+        var ring = new ConsistentHashRing<>(hashFunction, List.of(new ServerNode("10.0.0.1:8080")), 4);
+
+        assertThat(MigrationPlanner.diff(empty, ring).isEmpty(), is(true));
+        assertThat(MigrationPlanner.diff(ring, empty).isEmpty(), is(true));
+        assertThat(MigrationPlanner.diff(ring, ring.clone()).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testAddingNodeMovesOnlyToNewNode() {
+        List<ServerNode> nodes = List.of(new ServerNode("10.0.0.1:8080"), new ServerNode("10.0.0.2:8080"));
+        var oldRing = new ConsistentHashRing<>(hashFunction, nodes, 16);
+        var newRing = oldRing.clone();
+        ServerNode added = new ServerNode("10.0.0.3:8080");
+        newRing.addNode(added);
+
+        List<MigrationTask> tasks = MigrationPlanner.plan(oldRing, newRing).toTasks();
+
+        assertThat(tasks.size(), is(2));
+        tasks.forEach(task -> assertThat(task.target(), is(added)));
+    }
+
+    /**
+     * Прежний планировщик MasterNode.calculateMigrationRanges, оставлен как эталон для сравнения.
+     */
+    private static Map<ServerNode, List<HashRange>> legacyPlan(ConsistentHashRing<ServerNode> oldRing,
+                                                              ConsistentHashRing<ServerNode> newRing) {
+        Map<ServerNode, List<HashRange>> migrationPlan = new HashMap<>();
+        for (ServerNode node : newRing.getNodes()) {
+            List<HashRange> newRanges = newRing.getNodes().size() == 1
+                    ? List.of(new HashRange(Integer.MIN_VALUE, Integer.MAX_VALUE))
+                    : newRing.getHashRanges(node);
+            for (HashRange range : newRanges) {
+                ServerNode oldOwner = oldRing.getNodeByHash(range.getStart());
+                if (oldOwner == null || !oldOwner.equals(node)) {
+                    migrationPlan.computeIfAbsent(node, k -> new ArrayList<>()).add(range);
+                }
+            }
+        }
+        for (ServerNode oldNode : oldRing.getNodes()) {
+            for (HashRange oldRange : oldRing.getHashRanges(oldNode)) {
+                ServerNode newOwner = newRing.getNodeByHash(oldRange.getStart());
+                if (newOwner == null || !newOwner.equals(oldNode)) {
+                    migrationPlan.computeIfAbsent(newOwner, k -> new ArrayList<>()).add(oldRange);
+                }
+            }
+        }
+        return migrationPlan;
+    }
+}
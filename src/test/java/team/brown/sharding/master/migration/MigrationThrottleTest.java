@@ -0,0 +1,131 @@
+package team.brown.sharding.master.migration;
+
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.grpc.RestClient;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Тесты для MigrationThrottle.
+ */
+public class MigrationThrottleTest {
+
+    private final ServerNode source = new ServerNode("10.0.0.1:8080");
+    private final ServerNode target = new ServerNode("10.0.0.2:8080");
+
+    private static MigrationThrottle throttle(MigrationLimits limits) {
+        return new MigrationThrottle(limits, MigrationSizeEstimator.NONE, 4, System::nanoTime);
+    }
+
+    private static List<HashRange> ranges(int count, int offset) {
+        List<HashRange> ranges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ranges.add(new HashRange(offset + i * 10, offset + i * 10 + 9));
+        }
+        return ranges;
+    }
+
+    private List<MigrationTask> singleRangeTasks(int count) {
+        List<MigrationTask> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(new MigrationTask(source, target, ranges(1, i * 100)));
+        }
+        return tasks;
+    }
+
+    @Test
+    public void testRangeRateLimitsMigration() {
+        MigrationThrottle throttle = throttle(new MigrationLimits(10, 0, 0, 0));
+        MigrationExecutor executor = new MigrationExecutor((s, t, start, end, version) -> { }, 64, 64, throttle);
+
+        long started = System.nanoTime();
+        executor.execute(singleRangeTasks(20), 3);
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // Первые 10 диапазонов идут сразу, остальные 10 - со скоростью 10 в секунду
+        assertThat(elapsedMillis, greaterThanOrEqualTo(900L));
+        assertThat(elapsedMillis, lessThan(3_000L));
+    }
+
+    @Test
+    public void testPerNodeByteRateUsesEstimates() {
+        MigrationThrottle throttle = new MigrationThrottle(new MigrationLimits(0, 0, 0, 1_000),
+                task -> 500L * task.ranges().size(), 4, System::nanoTime);
+        MigrationExecutor executor = new MigrationExecutor((s, t, start, end, version) -> { }, 64, 64, throttle);
+
+        long started = System.nanoTime();
+        // 4 переноса по 500 байт при 1000 байт в секунду на узел
+        executor.execute(singleRangeTasks(4), 3);
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(elapsedMillis, greaterThanOrEqualTo(900L));
+    }
+
+    @Test
+    public void testScheduleSplitsLimitedTasksAndOrdersByPriority() {
+        MigrationTask rebalance = new MigrationTask(source, target, ranges(10, 0));
+        MigrationTask recovery = new MigrationTask(target, source, ranges(3, 1000), MigrationPriority.RECOVERY);
+
+        List<MigrationTask> limited = throttle(new MigrationLimits(100, 0, 0, 0)).schedule(List.of(rebalance, recovery));
+        List<MigrationTask> unlimited = throttle(MigrationLimits.UNLIMITED).schedule(List.of(rebalance, recovery));
+
+        assertThat(limited.stream().map(task -> task.ranges().size()).toList(), is(List.of(3, 4, 4, 2)));
+        assertThat(limited.get(0), is(recovery));
+        assertThat(limited.get(1).ranges(), is(rebalance.ranges().subList(0, 4)));
+        assertThat(unlimited, is(List.of(recovery, rebalance)));
+    }
+
+    @Test
+    public void testWaitingRecoveryGoesBeforeRebalance() throws Exception {
+        MigrationThrottle throttle = throttle(new MigrationLimits(10, 0, 0, 0));
+        List<MigrationPriority> order = new CopyOnWriteArrayList<>();
+        // Выбираем все токены
+        throttle.acquire(new MigrationTask(source, target, ranges(10, 0)));
+
+        Thread recovery = Thread.ofVirtual().start(() -> acquire(throttle,
+                new MigrationTask(source, target, ranges(5, 1000), MigrationPriority.RECOVERY), order));
+        Thread.sleep(100);
+        Thread rebalance = Thread.ofVirtual().start(() -> acquire(throttle,
+                new MigrationTask(source, target, ranges(1, 2000)), order));
+        recovery.join();
+        rebalance.join();
+
+        assertThat(order, is(List.of(MigrationPriority.RECOVERY, MigrationPriority.REBALANCE)));
+    }
+
+    @Test
+    public void testLimitsCanBeRaisedDuringMigration() throws Exception {
+        MigrationThrottle throttle = throttle(new MigrationLimits(1, 0, 0, 0));
+        RestClient restClient = (s, t, start, end, version) -> { };
+        MigrationExecutor executor = new MigrationExecutor(restClient, 64, 64, throttle);
+
+        long started = System.nanoTime();
+        Thread migration = Thread.ofVirtual().start(() -> executor.execute(singleRangeTasks(10), 4));
+        Thread.sleep(300);
+        throttle.setLimits(MigrationLimits.UNLIMITED);
+        migration.join();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // При одном диапазоне в секунду миграция заняла бы 9 секунд
+        assertThat(elapsedMillis, lessThan(3_000L));
+        assertThat(executor.getProgress().snapshot().get(0).completed(), is(10));
+    }
+
+    private static void acquire(MigrationThrottle throttle, MigrationTask task, List<MigrationPriority> order) {
+        try {
+            throttle.acquire(task);
+            order.add(task.priority());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package team.brown.sharding.master.node;
+
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.grpc.RestClient;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.migration.MigrationException;
+import team.brown.sharding.master.migration.MigrationExecutor;
+import team.brown.sharding.master.migration.MigrationHandoff;
+import team.brown.sharding.master.state.SchemaStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты для MasterNode.
+ */
+public class MasterNodeTest {
+
+    private final ConsistentHashRing.HashFunction hashFunction = new ConsistentHashRing.MD5HashFunction();
+    private final ServerNode node1 = new ServerNode("10.0.0.1:8080");
+    private final ServerNode node2 = new ServerNode("10.0.0.2:8080");
+
+    @Test
+    public void testVersionBumpsOnMembershipChange() {
+        RestClient restClient = (source, target, start, end, version) -> { };
+        MasterNode masterNode = new MasterNode(List.of(node1), hashFunction, new MigrationExecutor(restClient, 4, 4));
+
+        // Изменение публикуется версией в состоянии миграции, её завершение - следующей версией
+        assertThat(masterNode.addServer(node2), is(true));
+        assertThat(masterNode.addServer(node2), is(false));
+        assertThat(masterNode.getVersion(), is(3));
+        assertThat(masterNode.getDelta(1).snapshot().isMigrating(), is(false));
+
+        assertThat(masterNode.removeServer(node2), is(true));
+        assertThat(masterNode.getVersion(), is(5));
+        assertThat(masterNode.getNodes(), is(Set.of(node1)));
+    }
+
+    @Test
+    public void testDeltaSinceVersion() {
+        RestClient restClient = (source, target, start, end, version) -> { };
+        MasterNode masterNode = new MasterNode(List.of(node1), hashFunction, new MigrationExecutor(restClient, 4, 4));
+        ServerNode node3 = new ServerNode("10.0.0.3:8080");
+
+        masterNode.addServer(node2);
+        masterNode.addServer(node3);
+        masterNode.removeServer(node1);
+
+        SchemaDelta delta = masterNode.getDelta(3);
+        assertThat(delta.reset(), is(false));
+        assertThat(delta.snapshot().getVersion(), is(7));
+        assertThat(delta.added(), is(Set.of(node3)));
+        assertThat(delta.removed(), is(Set.of(node1)));
+
+        assertThat(masterNode.getDelta(7).added().isEmpty(), is(true));
+        assertThat(masterNode.getDelta(0).reset(), is(true));
+        assertThat(masterNode.getDelta(0).added(), is(Set.of(node2, node3)));
+
+        masterNode.updateShardCount(3);
+        assertThat(masterNode.getDelta(7).added().isEmpty(), is(true));
+        assertThat(masterNode.getDelta(7).snapshot().getVirtualNodes(), is(3));
+    }
+
+    @Test
+    public void testSchemaReadsDoNotBlockDuringMigration() throws Exception {
+        CountDownLatch migrationStarted = new CountDownLatch(1);
+        CountDownLatch releaseMigration = new CountDownLatch(1);
+        RestClient restClient = (source, target, start, end, version) -> {
+            migrationStarted.countDown();
+            try {
+                releaseMigration.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        MasterNode masterNode = new MasterNode(List.of(node1), hashFunction, new MigrationExecutor(restClient, 4, 4));
+
+        CompletableFuture<Boolean> adding = CompletableFuture.supplyAsync(() -> masterNode.addServer(node2));
+        assertThat(migrationStarted.await(5, TimeUnit.SECONDS), is(true));
+
+        // Снимок уже опубликован, миграция ещё идёт: чтение не ждёт писателя
+        SchemaSnapshot snapshot = CompletableFuture.supplyAsync(masterNode::getSnapshot).get(1, TimeUnit.SECONDS);
+        assertThat(snapshot.getVersion(), is(2));
+        assertThat(snapshot.getNodes().contains(node2), is(true));
+        assertThat(snapshot.getRing().getNodes().contains(node2), is(true));
+
+        releaseMigration.countDown();
+        assertThat(adding.get(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void testReadsGoToPreviousOwnerUntilPromotion() throws Exception {
+        CountDownLatch migrationStarted = new CountDownLatch(1);
+        CountDownLatch releaseMigration = new CountDownLatch(1);
+        RestClient restClient = (source, target, start, end, version) -> {
+            migrationStarted.countDown();
+            try {
+                releaseMigration.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        MasterNode masterNode = new MasterNode(List.of(node1), hashFunction, new MigrationExecutor(restClient, 4, 4));
+
+        CompletableFuture<Boolean> adding = CompletableFuture.supplyAsync(() -> masterNode.addServer(node2));
+        assertThat(migrationStarted.await(5, TimeUnit.SECONDS), is(true));
+
+        SchemaSnapshot migrating = masterNode.getSnapshot();
+        assertThat(migrating.getVersion(), is(2));
+        assertThat(migrating.isMigrating(), is(true));
+        MigrationHandoff.InFlightRange range = migrating.getHandoff().inFlight().get(0);
+        assertThat(range.from(), is(node1.getAddress()));
+        assertThat(range.to(), is(node2.getAddress()));
+        assertThat(migrating.getHandoff().getStableVersion(), is(1));
+        // Новое кольцо уже отдаёт диапазон node2, но читать его нужно с node1
+        assertThat(migrating.getRing().getNodeForHash(range.start()), is(node2));
+        assertThat(migrating.getReadOwner(range.start()), is(node1));
+
+        releaseMigration.countDown();
+        assertThat(adding.get(5, TimeUnit.SECONDS), is(true));
+        SchemaSnapshot promoted = masterNode.getSnapshot();
+        assertThat(promoted.getVersion(), is(3));
+        assertThat(promoted.isMigrating(), is(false));
+        assertThat(promoted.getReadOwner(range.start()), is(node2));
+    }
+
+    @Test
+    public void testFailedMigrationKeepsSchemaMigratingUntilResumed() {
+        AtomicBoolean storageDown = new AtomicBoolean(true);
+        RestClient restClient = (source, target, start, end, version) -> {
+            if (storageDown.get()) {
+                throw new IllegalStateException("storage is down");
+            }
+        };
+        MasterNode masterNode = new MasterNode(List.of(node1), hashFunction, new MigrationExecutor(restClient, 4, 4));
+
+        assertThrows(MigrationException.class, () -> masterNode.addServer(node2));
+        assertThat(masterNode.getVersion(), is(2));
+        assertThat(masterNode.getSnapshot().isMigrating(), is(true));
+        int hash = masterNode.getSnapshot().getHandoff().inFlight().get(0).start();
+        assertThat(masterNode.getSnapshot().getReadOwner(hash), is(node1));
+
+        storageDown.set(false);
+        masterNode.resumeMigrations();
+
+        assertThat(masterNode.getVersion(), is(3));
+        assertThat(masterNode.getSnapshot().isMigrating(), is(false));
+        assertThat(masterNode.getSnapshot().getReadOwner(hash), is(node2));
+    }
+
+    @Test
+    public void testUpdateWeightMigratesOnlyThatNode() {
+        List<String> transfers = new CopyOnWriteArrayList<>();
+        RestClient restClient = (source, target, start, end, version) ->
+                transfers.add(source.getAddress() + "->" + target.getAddress());
+        ServerNode node3 = new ServerNode("10.0.0.3:8080");
+        MasterNode masterNode = new MasterNode(List.of(node1, node2, node3), hashFunction,
+                new MigrationExecutor(restClient, 4, 4));
+        masterNode.updateShardCount(16);
+        transfers.clear();
+
+        assertThat(masterNode.updateWeight(node2.getAddress(), 300), is(true));
+        assertThat(masterNode.updateWeight(node2.getAddress(), 300), is(false));
+        assertThat(masterNode.updateWeight("10.0.0.9:8080", 300), is(false));
+
+        assertThat(masterNode.getSnapshot().getRing().size(), is(16 * 5));
+        assertThat(transfers.isEmpty(), is(false));
+        assertThat(transfers.stream().allMatch(transfer -> transfer.endsWith("->" + node2.getAddress())), is(true));
+
+        transfers.clear();
+        masterNode.updateWeight(node2.getAddress(), 0);
+        assertThat(masterNode.getSnapshot().getRing().size(), is(16 * 2));
+        assertThat(transfers.stream().allMatch(transfer -> transfer.startsWith(node2.getAddress() + "->")), is(true));
+        assertThat(masterNode.getDelta(masterNode.getVersion() - 2).updated().size(), is(1));
+    }
+
+    @Test
+    public void testBatchReshardsOnce() {
+        List<Long> moved = new CopyOnWriteArrayList<>();
+        RestClient restClient = (source, target, start, end, version) -> moved.add((long) end - start + 1);
+        ServerNode node3 = new ServerNode("10.0.0.3:8080");
+        ServerNode node4 = new ServerNode("10.0.0.4:8080");
+        ServerNode node5 = new ServerNode("10.0.0.5:8080");
+
+        MasterNode sequential = new MasterNode(List.of(node1, node2), hashFunction,
+                new MigrationExecutor(restClient, 4, 4));
+        sequential.updateShardCount(16);
+        moved.clear();
+        sequential.addServer(node3);
+        sequential.addServer(node4);
+        sequential.addServer(node5);
+        sequential.removeServer(node1);
+        long sequentialMoved = moved.stream().mapToLong(Long::longValue).sum();
+
+        MasterNode batched = new MasterNode(List.of(node1, node2), hashFunction,
+                new MigrationExecutor(restClient, 4, 4));
+        batched.updateShardCount(16);
+        int version = batched.getVersion();
+        moved.clear();
+        assertThat(batched.applyBatch(List.of(node3, node4, node5), List.of(node1.getAddress()), null), is(true));
+        long batchMoved = moved.stream().mapToLong(Long::longValue).sum();
+
+        assertThat(batched.getVersion(), is(version + 2));
+        assertThat(batched.getNodes(), is(Set.of(node2, node3, node4, node5)));
+        assertThat(batched.getSnapshot().getRing().getCircle(), is(sequential.getSnapshot().getRing().getCircle()));
+        // Диапазоны, которые при последовательных изменениях переезжали дважды, переносятся один раз
+        assertThat(batchMoved < sequentialMoved, is(true));
+
+        assertThat(batched.applyBatch(List.of(node3), List.of("10.0.0.9:8080"), 16), is(false));
+        assertThat(batched.getVersion(), is(version + 2));
+        assertThat(batched.applyBatch(List.of(), List.of(), 32), is(true));
+        assertThat(batched.getSnapshot().getRing().size(), is(32 * 4));
+    }
+
+    @Test
+    public void testFailedLogAppendDiscardsPreparedJob() {
+        SchemaStore failing = new SchemaStore() {
+            @Override
+            public StoredState load(ConsistentHashRing.HashFunction hashFunction) {
+                return null;
+            }
+
+            @Override
+            public void append(SchemaChange change) {
+                throw new UncheckedIOException(new IOException("No space left on device"));
+            }
+
+            @Override
+            public void checkpoint(SchemaSnapshot snapshot) {
+            }
+
+            @Override
+            public void reset(SchemaSnapshot snapshot) {
+            }
+        };
+        MigrationExecutor executor = new MigrationExecutor((source, target, start, end, version) -> { }, 4, 4);
+        MasterNode masterNode = new MasterNode(List.of(node1), hashFunction, executor, failing);
+
+        assertThrows(UncheckedIOException.class, () -> masterNode.addServer(node2));
+
+        // Задание версии, не попавшей в журнал, не остаётся ждать выполнения
+        assertThat(executor.hasUnfinishedJobs(), is(false));
+        assertThat(masterNode.getVersion(), is(1));
+        assertThat(masterNode.getSnapshot().isMigrating(), is(false));
+    }
+}
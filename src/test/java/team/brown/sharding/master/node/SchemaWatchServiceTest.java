@@ -0,0 +1,81 @@
+package team.brown.sharding.master.node;
+
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.migration.MigrationExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Тесты для SchemaWatchService.
+ */
+public class SchemaWatchServiceTest {
+
+    private final MasterNode masterNode = new MasterNode(
+            List.of(new ServerNode("10.0.0.1:8080")),
+            new ConsistentHashRing.MD5HashFunction(),
+            new MigrationExecutor((source, target, start, end, version) -> { }, 4, 4)
+    );
+    private final SchemaWatchService watchService = new SchemaWatchService(masterNode);
+
+    @Test
+    public void testOutdatedVersionCompletesImmediately() {
+        CompletableFuture<SchemaSnapshot> future = watchService.watch(0);
+
+        assertThat(future.isDone(), is(true));
+        assertThat(future.join().getVersion(), is(1));
+        assertThat(watchService.getWatcherCount(), is(0));
+    }
+
+    @Test
+    public void testWatchersAreNotifiedOnPublish() {
+        List<CompletableFuture<SchemaSnapshot>> futures = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            futures.add(watchService.watch(1));
+        }
+        assertThat(watchService.getWatcherCount(), is(1_000));
+        assertThat(futures.get(0).isDone(), is(false));
+
+        masterNode.addServer(new ServerNode("10.0.0.2:8080"));
+
+        futures.forEach(future -> assertThat(future.join().getVersion(), is(2)));
+        assertThat(watchService.getWatcherCount(), is(0));
+    }
+
+    @Test
+    public void testCancelledWatcherIsRemoved() {
+        CompletableFuture<SchemaSnapshot> future = watchService.watch(1);
+        assertThat(watchService.getWatcherCount(), is(1));
+
+        future.cancel(false);
+
+        assertThat(watchService.getWatcherCount(), is(0));
+    }
+
+    @Test
+    public void testWatchersAreCompletedOutsideOfPublish() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Thread> callback = watchService.watch(1).thenApply(snapshot -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Thread.currentThread();
+        });
+
+        // Медленный обработчик наблюдателя не задерживает изменение схемы
+        masterNode.addServer(new ServerNode("10.0.0.2:8080"));
+        assertThat(callback.isDone(), is(false));
+        assertThat(watchService.getWatcherCount(), is(0));
+
+        release.countDown();
+        assertThat(callback.join() == Thread.currentThread(), is(false));
+    }
+}
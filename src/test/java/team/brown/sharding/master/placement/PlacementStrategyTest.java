@@ -0,0 +1,209 @@
+package team.brown.sharding.master.placement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.hash.RingBinaryCodec;
+import team.brown.sharding.master.migration.MigrationExecutor;
+import team.brown.sharding.master.migration.MigrationPlanner;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.ServerNode;
+import team.brown.sharding.master.state.SchemaStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты для стратегий размещения.
+ */
+public class PlacementStrategyTest {
+
+    private static final int SLOTS = 4099;
+    private static final double SPACE = 1L << 32;
+
+    private final ConsistentHashRing.HashFunction hashFunction = new ConsistentHashRing.MD5HashFunction();
+
+    private static List<ServerNode> nodes(int count) {
+        List<ServerNode> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(new ServerNode("10.0.0." + i + ":8080"));
+        }
+        return nodes;
+    }
+
+    private static PlacementStrategy strategy(PlacementType type) {
+        return type.create(SLOTS, 0.25);
+    }
+
+    /**
+     * Доля пространства хешей каждого узла.
+     */
+    private static Map<String, Double> shares(ConsistentHashRing<ServerNode> ring) {
+        Map<String, Double> shares = new HashMap<>();
+        for (ServerNode node : ring.getNodeTable()) {
+            double width = 0;
+            for (HashRange range : ring.getHashRanges(node)) {
+                long size = (long) range.getEnd() - range.getStart();
+                width += (size >= 0 ? size : size + (1L << 32)) + 1;
+            }
+            shares.put(node.getAddress(), width / SPACE);
+        }
+        return shares;
+    }
+
+    private static double moved(ConsistentHashRing<ServerNode> before, ConsistentHashRing<ServerNode> after) {
+        return MigrationPlanner.diff(before, after).stream()
+                .mapToDouble(change -> (double) change.range().getEnd() - change.range().getStart() + 1)
+                .sum() / SPACE;
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PlacementType.class, names = "RING", mode = EnumSource.Mode.EXCLUDE)
+    public void testSlotLookupMatchesRanges(PlacementType type) {
+        var table = strategy(type).build(hashFunction, nodes(7), 16);
+        var ranges = ConsistentHashRing.restore(hashFunction, table.getPlacement(), 0, table.getVirtualNodes(),
+                table.getNodeTable(), rangeHashes(table), rangeOwners(table));
+
+        assertThat(table.getPlacement(), is(type.getName()));
+        assertThat(table.getHashAt(table.size() - 1), is(Integer.MAX_VALUE));
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            int hash = random.nextInt();
+            // Поиск по слоту за O(1) совпадает с бинарным поиском по границам
+            assertThat(table.getNodeForHash(hash), is(ranges.getNodeForHash(hash)));
+        }
+        assertThat(table.getNodeForHash(Integer.MIN_VALUE), is(ranges.getNodeForHash(Integer.MIN_VALUE)));
+    }
+
+    private static int[] rangeHashes(ConsistentHashRing<ServerNode> ring) {
+        int[] hashes = new int[ring.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = ring.getHashAt(i);
+        }
+        return hashes;
+    }
+
+    private static int[] rangeOwners(ConsistentHashRing<ServerNode> ring) {
+        int[] owners = new int[ring.size()];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = ring.getOwnerAt(i);
+        }
+        return owners;
+    }
+
+    @Test
+    public void testSlotBoundaries() {
+        for (int slots : new int[]{1, 3, 4099, 65536}) {
+            assertThat(ConsistentHashRing.slotOf(Integer.MIN_VALUE, slots), is(0));
+            assertThat(ConsistentHashRing.slotOf(Integer.MAX_VALUE, slots), is(slots - 1));
+            assertThat(ConsistentHashRing.slotEnd(slots - 1, slots), is(Integer.MAX_VALUE));
+            for (int slot = 0; slot < Math.min(slots, 50); slot++) {
+                int end = ConsistentHashRing.slotEnd(slot, slots);
+                assertThat(ConsistentHashRing.slotOf(end, slots), is(slot));
+                if (end != Integer.MAX_VALUE) {
+                    assertThat(ConsistentHashRing.slotOf(end + 1, slots), is(slot + 1));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PlacementType.class, names = {"MAGLEV", "RENDEZVOUS", "BOUNDED_LOAD"})
+    public void testBalance(PlacementType type) {
+        var table = strategy(type).build(hashFunction, nodes(10), 1);
+
+        double max = shares(table).values().stream().mapToDouble(Double::doubleValue).max().orElseThrow();
+        // Среднее - 0.1; кольцо с одним виртуальным узлом на сервер таким балансом не обладает
+        assertThat(max, lessThan(type == PlacementType.MAGLEV ? 0.101 : 0.13));
+    }
+
+    @Test
+    public void testWeightsScaleShares() {
+        List<ServerNode> nodes = nodes(4);
+        nodes.set(0, new ServerNode(nodes.get(0).getAddress(), 300));
+        for (PlacementType type : List.of(PlacementType.MAGLEV, PlacementType.RENDEZVOUS, PlacementType.BOUNDED_LOAD)) {
+            Map<String, Double> shares = shares(strategy(type).build(hashFunction, nodes, 32));
+
+            // 300 / (300 + 3 * 100) = 0.5
+            assertThat(type.getName(), Math.abs(shares.get(nodes.get(0).getAddress()) - 0.5) < 0.05, is(true));
+        }
+    }
+
+    @Test
+    public void testRemovalMovesOnlyRemovedNodeForRendezvous() {
+        PlacementStrategy strategy = strategy(PlacementType.RENDEZVOUS);
+        List<ServerNode> nodes = nodes(8);
+        var before = strategy.build(hashFunction, nodes, 1);
+
+        var after = strategy.withoutNode(before, nodes.get(3));
+
+        MigrationPlanner.diff(before, after).forEach(change ->
+                assertThat(change.oldOwner(), is(nodes.get(3))));
+        assertThat(Math.abs(moved(before, after) - shares(before).get(nodes.get(3).getAddress())) < 1e-9, is(true));
+    }
+
+    @Test
+    public void testMaglevMovesLittleOnAdd() {
+        PlacementStrategy strategy = strategy(PlacementType.MAGLEV);
+        List<ServerNode> nodes = nodes(10);
+        var before = strategy.build(hashFunction, nodes, 1);
+
+        var after = strategy.withNode(before, new ServerNode("10.0.0.100:8080"));
+
+        // Идеально - 1/11 пространства; Maglev добавляет небольшую долю лишних перемещений
+        assertThat(moved(before, after), lessThan(0.15));
+    }
+
+    @Test
+    public void testSlotTableCannotBeChangedInPlace() {
+        var table = strategy(PlacementType.MAGLEV).build(hashFunction, nodes(3), 1);
+
+        assertThrows(IllegalStateException.class, () -> table.addNode(new ServerNode("10.0.0.9:8080")));
+    }
+
+    @Test
+    public void testSlotTableSurvivesBinaryExport() {
+        var table = strategy(PlacementType.BOUNDED_LOAD).build(hashFunction, nodes(5), 8);
+        SchemaSnapshot snapshot = new SchemaSnapshot(table.getNodes(), table, 3);
+
+        var decoded = RingBinaryCodec.decode(snapshot.getRingBinary());
+        SchemaSnapshot restored = SchemaSnapshot.restore(snapshot.getNodes(), decoded, hashFunction);
+
+        assertThat(decoded.placement(), is("bounded-load"));
+        assertThat(restored.getRing().getSlots(), is(SLOTS));
+        Random random = new Random(5);
+        for (int i = 0; i < 10_000; i++) {
+            int hash = random.nextInt();
+            assertThat(restored.getRing().getNodeForHash(hash), is(table.getNodeForHash(hash)));
+        }
+    }
+
+    @Test
+    public void testMasterNodeUsesPlacementAndRejectsForeignSchema() {
+        MigrationExecutor executor = new MigrationExecutor((source, target, start, end, version) -> { }, 4, 4);
+        MasterNode masterNode = new MasterNode(nodes(3), hashFunction, strategy(PlacementType.RENDEZVOUS),
+                executor, SchemaStore.NONE);
+
+        masterNode.addServer(new ServerNode("10.0.0.50:8080"));
+        masterNode.updateWeight("10.0.0.0:8080", 0);
+
+        SchemaSnapshot snapshot = masterNode.getSnapshot();
+        assertThat(snapshot.getPlacement(), is("rendezvous"));
+        assertThat(snapshot.getRing().getHashRanges(new ServerNode("10.0.0.0:8080")).isEmpty(), is(true));
+        assertThat(snapshot.getRing().getNodes().size(), is(4));
+
+        MasterNode ringMaster = new MasterNode(List.of(), hashFunction, executor);
+        assertThrows(IllegalStateException.class, () -> ringMaster.resetReplicated(snapshot));
+    }
+}
@@ -0,0 +1,178 @@
+package team.brown.sharding.master.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.migration.MigrationException;
+import team.brown.sharding.master.migration.MigrationExecutor;
+import team.brown.sharding.master.migration.MigrationHandoff;
+import team.brown.sharding.master.model.ReplicationResponse;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.NotLeaderException;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.SchemaWatchService;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты репликации схемы между ведущим и ведомым мастерами в одной JVM.
+ */
+public class FollowerReplicatorTest {
+
+    private final ConsistentHashRing.HashFunction hashFunction = new ConsistentHashRing.MD5HashFunction();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicBoolean storageDown = new AtomicBoolean();
+    private final MasterNode leader = masterNode();
+    private final SchemaWatchService watchService = new SchemaWatchService(leader);
+    private final ReplicationService replicationService = new ReplicationService(leader, watchService);
+    private final List<ReplicationResponse> responses = new ArrayList<>();
+    private final MasterNode follower = masterNode();
+    private final FollowerReplicator replicator = new FollowerReplicator(
+            follower, hashFunction, "http://leader:8080", this::fetch, 50, 10);
+
+    private MasterNode masterNode() {
+        return new MasterNode(List.of(), hashFunction,
+                new MigrationExecutor((source, target, start, end, version) -> {
+                    if (storageDown.get()) {
+                        throw new IllegalStateException("storage is down");
+                    }
+                }, 4, 4));
+    }
+
+    /**
+     * Источник изменений поверх сервиса ведущего; ответ проходит через JSON, как по HTTP.
+     */
+    private ReplicationResponse fetch(int sinceVersion, long timeoutMs) {
+        var future = replicationService.changesSince(sinceVersion);
+        try {
+            ReplicationResponse response = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            response = objectMapper.readValue(objectMapper.writeValueAsBytes(response), ReplicationResponse.class);
+            responses.add(response);
+            return response;
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            return null;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void assertSameSchema(SchemaSnapshot actual, SchemaSnapshot expected) {
+        assertThat(actual.getVersion(), is(expected.getVersion()));
+        Map<String, Map<Integer, String>> expectedSalts = expected.getNodes().stream()
+                .collect(Collectors.toMap(ServerNode::getAddress, ServerNode::getSalts));
+        Map<String, Map<Integer, String>> actualSalts = actual.getNodes().stream()
+                .collect(Collectors.toMap(ServerNode::getAddress, ServerNode::getSalts));
+        assertThat(actualSalts, is(expectedSalts));
+        assertThat(actual.getRing().size(), is(expected.getRing().size()));
+        for (int i = 0; i < expected.getRing().size(); i++) {
+            assertThat(actual.getRing().getHashAt(i), is(expected.getRing().getHashAt(i)));
+            assertThat(actual.getRing().getNodeAt(i).getAddress(), is(expected.getRing().getNodeAt(i).getAddress()));
+        }
+    }
+
+    @Test
+    public void testFollowerCatchesUpWithSnapshotThenChanges() {
+        leader.addServer(new ServerNode("407"));
+        leader.updateShardCount(10);
+        leader.addServer(new ServerNode("13938"));
+
+        assertThat(replicator.pollOnce(), is(true));
+        assertThat(responses.getLast().changes(), nullValue());
+        assertSameSchema(follower.getSnapshot(), leader.getSnapshot());
+
+        leader.addServer(new ServerNode("10.0.0.1:8080"));
+        leader.removeServer(new ServerNode("407"));
+        leader.updateShardCount(12);
+
+        assertThat(replicator.pollOnce(), is(true));
+        // Три изменения и три завершения миграции
+        assertThat(responses.getLast().changes().size(), is(6));
+        assertSameSchema(follower.getSnapshot(), leader.getSnapshot());
+
+        // Новых версий нет: long-poll завершается по таймауту
+        assertThat(replicator.pollOnce(), is(false));
+    }
+
+    @Test
+    public void testWaitingPollReceivesChangesInsteadOfSnapshot() throws Exception {
+        FollowerReplicator waiting = new FollowerReplicator(
+                follower, hashFunction, "http://leader:8080", this::fetch, 5_000, 10);
+        leader.addServer(new ServerNode("407"));
+        assertThat(waiting.pollOnce(), is(true));
+
+        // Ведомый ждёт новую версию до того, как ведущий её зафиксирует
+        CompletableFuture<Boolean> poll = CompletableFuture.supplyAsync(waiting::pollOnce);
+        while (watchService.getWatcherCount() == 0 && !poll.isDone()) {
+            Thread.sleep(1);
+        }
+        leader.addServer(new ServerNode("13938"));
+
+        assertThat(poll.get(5, TimeUnit.SECONDS), is(true));
+        assertThat(responses.getLast().changes().size(), is(1));
+        assertThat(responses.getLast().nodes(), nullValue());
+    }
+
+    @Test
+    public void testSnapshotSyncKeepsLeaderMigration() {
+        leader.addServer(new ServerNode("10.0.0.1:8080"));
+        storageDown.set(true);
+        assertThrows(MigrationException.class, () -> leader.addServer(new ServerNode("10.0.0.2:8080")));
+
+        assertThat(replicator.pollOnce(), is(true));
+        assertThat(responses.getLast().changes(), nullValue());
+        SchemaSnapshot leaderSchema = leader.getSnapshot();
+        SchemaSnapshot followerSchema = follower.getSnapshot();
+        assertThat(followerSchema.isMigrating(), is(true));
+        assertThat(followerSchema.getHandoff().getStableVersion(), is(leaderSchema.getHandoff().getStableVersion()));
+        assertThat(followerSchema.getHandoff().inFlight(), is(leaderSchema.getHandoff().inFlight()));
+        // Ведомый читает ещё не перенесённые диапазоны с прежнего владельца, как и ведущий
+        for (MigrationHandoff.InFlightRange range : leaderSchema.getHandoff().inFlight()) {
+            assertThat(followerSchema.getReadOwner(range.start()).getAddress(), is(range.from()));
+            assertThat(followerSchema.getReadOwner(range.end()).getAddress(), is(range.from()));
+        }
+
+        storageDown.set(false);
+        leader.resumeMigrations();
+        assertThat(replicator.pollOnce(), is(true));
+        assertThat(follower.getSnapshot().isMigrating(), is(false));
+        assertThat(follower.getVersion(), is(leader.getVersion()));
+    }
+
+    @Test
+    public void testFollowerRejectsSchemaChanges() {
+        NotLeaderException e = assertThrows(NotLeaderException.class,
+                () -> follower.addServer(new ServerNode("10.0.0.1:8080")));
+
+        assertThat(e.getLeaderUrl(), is("http://leader:8080"));
+        assertThat(follower.isLeader(), is(false));
+        assertThat(leader.isLeader(), is(true));
+    }
+
+    @Test
+    public void testLeaderFallsBackToSnapshotWhenChangesAreEvicted() {
+        leader.addServer(new ServerNode("10.0.0.1:8080"));
+        for (int i = 0; i < 70; i++) {
+            leader.updateShardCount(1 + i % 3);
+        }
+
+        assertThat(leader.getChangesSince(1), nullValue());
+        assertThat(leader.getChangesSince(leader.getVersion() - 2), notNullValue());
+        assertThat(replicationService.response(1).changes(), nullValue());
+        assertThat(replicationService.response(leader.getVersion() - 2).changes().size(), is(2));
+    }
+}
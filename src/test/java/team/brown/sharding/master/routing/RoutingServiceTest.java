@@ -0,0 +1,84 @@
+package team.brown.sharding.master.routing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.migration.MigrationExecutor;
+import team.brown.sharding.master.model.RouteResponse;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Тесты для RoutingService.
+ */
+public class RoutingServiceTest {
+
+    private final ConsistentHashRing.HashFunction hashFunction = new ConsistentHashRing.MD5HashFunction();
+    private final MasterNode masterNode = new MasterNode(
+            List.of(new ServerNode("10.0.0.1:8080"), new ServerNode("10.0.0.2:8080"), new ServerNode("10.0.0.3:8080")),
+            hashFunction,
+            new MigrationExecutor((source, target, start, end, version) -> { }, 4, 4)
+    );
+    private final RoutingService routingService = new RoutingService(masterNode);
+
+    private static List<String> keys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add("user:" + i);
+        }
+        return keys;
+    }
+
+    @Test
+    public void testRoutesMatchRing() {
+        List<String> keys = keys(RoutingService.PARALLEL_THRESHOLD * 2);
+        var ring = masterNode.getSnapshot().getRing();
+
+        RouteResponse response = routingService.route(keys, false);
+
+        assertThat(response.version(), is(1));
+        assertThat(response.groups(), nullValue());
+        assertThat(response.routes().size(), is(keys.size()));
+        for (int i = 0; i < keys.size(); i++) {
+            var route = response.routes().get(i);
+            assertThat(route.key(), is(keys.get(i)));
+            assertThat(route.address(), is(ring.getNodeForHash(hashFunction.hash(keys.get(i))).getAddress()));
+        }
+    }
+
+    @Test
+    public void testGroupByNode() {
+        List<String> keys = keys(100);
+
+        RouteResponse response = routingService.route(keys, true);
+
+        assertThat(response.routes(), nullValue());
+        assertThat(response.groups().values().stream().mapToInt(List::size).sum(), is(100));
+        var ring = masterNode.getSnapshot().getRing();
+        response.groups().forEach((address, grouped) -> grouped.forEach(key ->
+                assertThat(ring.getNodeForHash(hashFunction.hash(key)).getAddress(), is(address))));
+    }
+
+    @Test
+    public void testGroupByNodeOnEmptyRing() throws Exception {
+        MasterNode empty = new MasterNode(List.of(), hashFunction,
+                new MigrationExecutor((source, target, start, end, version) -> { }, 4, 4));
+        List<String> keys = keys(3);
+
+        RouteResponse response = new RoutingService(empty).route(keys, true);
+
+        assertThat(response.groups(), is(Map.of()));
+        assertThat(response.unrouted(), is(keys));
+        // Ответ сериализуется в JSON: в группах нет ключа null
+        assertThat(new ObjectMapper().writeValueAsString(response).contains("\"unrouted\""), is(true));
+        assertThat(new RoutingService(empty).route(keys, false).routes().get(0).address(), nullValue());
+    }
+}
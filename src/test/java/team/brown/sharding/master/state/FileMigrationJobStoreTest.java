@@ -0,0 +1,105 @@
+package team.brown.sharding.master.state;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.grpc.RestClient;
+import team.brown.sharding.master.migration.MigrationException;
+import team.brown.sharding.master.migration.MigrationExecutor;
+import team.brown.sharding.master.migration.MigrationJob;
+import team.brown.sharding.master.migration.MigrationPriority;
+import team.brown.sharding.master.migration.MigrationRetry;
+import team.brown.sharding.master.migration.MigrationTask;
+import team.brown.sharding.master.migration.MigrationThrottle;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты для FileMigrationJobStore.
+ */
+public class FileMigrationJobStoreTest {
+
+    private final ServerNode target = new ServerNode("10.0.0.100:8080");
+
+    @TempDir
+    private Path directory;
+
+    private List<MigrationTask> tasks(int count) {
+        List<MigrationTask> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(new MigrationTask(new ServerNode("10.0.0." + i + ":8080"), target,
+                    List.of(new HashRange(i * 100, i * 100 + 9), new HashRange(i * 100 + 50, i * 100 + 59)),
+                    i == 0 ? MigrationPriority.RECOVERY : MigrationPriority.REBALANCE));
+        }
+        return tasks;
+    }
+
+    private MigrationExecutor executor(RestClient restClient, FileMigrationJobStore store) {
+        return new MigrationExecutor(restClient, 2, 2, MigrationThrottle.unlimited(), store, new MigrationRetry(2, 0, 0));
+    }
+
+    @Test
+    public void testMigrationResumesAfterRestart() throws IOException {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        RestClient failing = (source, target, start, end, version) -> {
+            if (start == 200 || start == 300) {
+                throw new IllegalStateException("storage is down");
+            }
+            calls.add(version + ":" + start);
+        };
+        try (FileMigrationJobStore store = new FileMigrationJobStore(directory, true)) {
+            assertThrows(MigrationException.class, () -> executor(failing, store).execute(tasks(4), 5));
+        }
+
+        // Рестарт: переносятся только диапазоны, которые не дошли до получателя
+        calls.clear();
+        RestClient healthy = (source, target, start, end, version) -> calls.add(version + ":" + start);
+        try (FileMigrationJobStore store = new FileMigrationJobStore(directory, true)) {
+            MigrationExecutor executor = executor(healthy, store);
+            MigrationJob.Summary summary = executor.getJobs().get(0);
+            assertThat(summary.version(), is(5));
+            assertThat(summary.done(), is(2));
+            assertThat(summary.pending(), is(2));
+            assertThat(summary.rangesRemaining(), is(4));
+
+            executor.resume();
+
+            assertThat(calls.stream().sorted().toList(), is(List.of("5:200", "5:250", "5:300", "5:350")));
+            assertThat(executor.hasUnfinishedJobs(), is(false));
+        }
+        try (var files = Files.list(directory.resolve(FileMigrationJobStore.DIRECTORY))) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+
+    @Test
+    public void testRestoresPlanAndIgnoresTornCheckpoint() throws IOException {
+        MigrationJob job = new MigrationJob(9, tasks(3));
+        try (FileMigrationJobStore store = new FileMigrationJobStore(directory, false)) {
+            store.begin(job);
+            store.completed(job, 1);
+        }
+        Files.write(directory.resolve(FileMigrationJobStore.DIRECTORY).resolve("job-9.bin"),
+                new byte[]{0, 0}, StandardOpenOption.APPEND);
+
+        List<MigrationJob> jobs = new FileMigrationJobStore(directory, false).load();
+
+        assertThat(jobs.size(), is(1));
+        MigrationJob restored = jobs.get(0);
+        assertThat(restored.getTasks(), is(job.getTasks()));
+        assertThat(restored.getTasks().get(0).priority(), is(MigrationPriority.RECOVERY));
+        assertThat(restored.unfinished(), is(List.of(0, 2)));
+        assertThat(restored.getState(1), is(MigrationJob.State.DONE));
+    }
+}
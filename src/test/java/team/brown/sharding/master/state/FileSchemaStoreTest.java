@@ -0,0 +1,195 @@
+package team.brown.sharding.master.state;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.brown.sharding.master.grpc.HashRange;
+import team.brown.sharding.master.hash.ConsistentHashRing;
+import team.brown.sharding.master.hash.Murmur3HashFunction;
+import team.brown.sharding.master.migration.MigrationExecutor;
+import team.brown.sharding.master.migration.MigrationJob;
+import team.brown.sharding.master.migration.MigrationRetry;
+import team.brown.sharding.master.migration.MigrationTask;
+import team.brown.sharding.master.migration.MigrationThrottle;
+import team.brown.sharding.master.node.MasterNode;
+import team.brown.sharding.master.node.SchemaChange;
+import team.brown.sharding.master.node.SchemaSnapshot;
+import team.brown.sharding.master.node.ServerNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты для FileSchemaStore.
+ */
+public class FileSchemaStoreTest {
+
+    private final ConsistentHashRing.HashFunction hashFunction = new ConsistentHashRing.MD5HashFunction();
+
+    @TempDir
+    private Path directory;
+
+    private MasterNode masterNode(SchemaStore store) {
+        return new MasterNode(List.of(), hashFunction,
+                new MigrationExecutor((source, target, start, end, version) -> { }, 4, 4), store);
+    }
+
+    private static void assertSameSchema(SchemaSnapshot actual, SchemaSnapshot expected) {
+        assertThat(actual.getVersion(), is(expected.getVersion()));
+        assertThat(actual.getVirtualNodes(), is(expected.getVirtualNodes()));
+        Map<String, Integer> expectedWeights = expected.getNodes().stream()
+                .collect(Collectors.toMap(ServerNode::getAddress, ServerNode::getWeight));
+        Map<String, Integer> actualWeights = actual.getNodes().stream()
+                .collect(Collectors.toMap(ServerNode::getAddress, ServerNode::getWeight));
+        assertThat(actualWeights, is(expectedWeights));
+        Map<String, Map<Integer, String>> expectedSalts = expected.getNodes().stream()
+                .collect(Collectors.toMap(ServerNode::getAddress, ServerNode::getSalts));
+        Map<String, Map<Integer, String>> actualSalts = actual.getNodes().stream()
+                .collect(Collectors.toMap(ServerNode::getAddress, ServerNode::getSalts));
+        assertThat(actualSalts, is(expectedSalts));
+        var expectedRing = expected.getRing();
+        var actualRing = actual.getRing();
+        assertThat(actualRing.size(), is(expectedRing.size()));
+        for (int i = 0; i < expectedRing.size(); i++) {
+            assertThat(actualRing.getHashAt(i), is(expectedRing.getHashAt(i)));
+            assertThat(actualRing.getNodeAt(i).getAddress(), is(expectedRing.getNodeAt(i).getAddress()));
+        }
+    }
+
+    private SchemaSnapshot restart(int snapshotEvery) throws IOException {
+        try (FileSchemaStore store = new FileSchemaStore(directory, snapshotEvery, true)) {
+            return masterNode(store).getSnapshot();
+        }
+    }
+
+    @Test
+    public void testRestoresExactSchemaFromSnapshotAndLog() throws IOException {
+        SchemaSnapshot expected;
+        try (FileSchemaStore store = new FileSchemaStore(directory, 4, true)) {
+            MasterNode masterNode = masterNode(store);
+            masterNode.addServer(new ServerNode("407"));
+            masterNode.updateShardCount(10);
+            // Хеши "407-5" и "13938-8" совпадают, узел получает соль
+            masterNode.addServer(new ServerNode("13938"));
+            masterNode.addServer(new ServerNode("10.0.0.1:8080"));
+            masterNode.updateWeight("10.0.0.1:8080", 250);
+            masterNode.removeServer(new ServerNode("407"));
+            expected = masterNode.getSnapshot();
+        }
+        assertThat(Files.exists(directory.resolve(FileSchemaStore.SNAPSHOT_FILE)), is(true));
+        assertThat(Files.size(directory.resolve(FileSchemaStore.WAL_FILE)) > 0, is(true));
+
+        SchemaSnapshot restored = restart(4);
+
+        assertSameSchema(restored, expected);
+        Function<SchemaSnapshot, String> salt = snapshot -> snapshot.getNodes().stream()
+                .filter(node -> node.getAddress().equals("13938"))
+                .findFirst().orElseThrow().getSaltedByIdx(8);
+        assertThat(salt.apply(restored), is("salty0"));
+    }
+
+    @Test
+    public void testRestoresBatch() throws IOException {
+        SchemaSnapshot expected;
+        try (FileSchemaStore store = new FileSchemaStore(directory, 100, true)) {
+            MasterNode masterNode = masterNode(store);
+            masterNode.addServer(new ServerNode("10.0.0.1:8080"));
+            masterNode.applyBatch(
+                    List.of(new ServerNode("10.0.0.2:8080", 200), new ServerNode("10.0.0.3:8080")),
+                    List.of("10.0.0.1:8080"),
+                    8);
+            expected = masterNode.getSnapshot();
+        }
+
+        SchemaSnapshot restored = restart(100);
+
+        // Пакет переносит данные, поэтому за ним следует версия завершения миграции
+        assertThat(restored.getVersion(), is(4));
+        assertSameSchema(restored, expected);
+    }
+
+    @Test
+    public void testRestoredMasterContinuesVersions() throws IOException {
+        try (FileSchemaStore store = new FileSchemaStore(directory, 100, false)) {
+            MasterNode masterNode = masterNode(store);
+            masterNode.addServer(new ServerNode("10.0.0.1:8080"));
+            masterNode.addServer(new ServerNode("10.0.0.2:8080"));
+        }
+        SchemaSnapshot expected;
+        try (FileSchemaStore store = new FileSchemaStore(directory, 100, false)) {
+            MasterNode masterNode = masterNode(store);
+            assertThat(masterNode.getVersion(), is(4));
+            masterNode.addServer(new ServerNode("10.0.0.3:8080"));
+            expected = masterNode.getSnapshot();
+        }
+
+        assertSameSchema(restart(100), expected);
+    }
+
+    @Test
+    public void testJobOfUnrecordedVersionIsDiscarded() throws IOException {
+        int recorded;
+        try (FileSchemaStore store = new FileSchemaStore(directory, 100, true)) {
+            MasterNode masterNode = masterNode(store);
+            masterNode.addServer(new ServerNode("10.0.0.1:8080"));
+            recorded = masterNode.getVersion();
+        }
+        // Сбой после записи задания следующей версии, но до записи самого изменения
+        try (FileMigrationJobStore jobStore = new FileMigrationJobStore(directory, true)) {
+            jobStore.begin(new MigrationJob(recorded + 1, List.of(new MigrationTask(
+                    new ServerNode("10.0.0.1:8080"), new ServerNode("10.0.0.2:8080"), List.of(new HashRange(0, 99))))));
+        }
+
+        try (FileSchemaStore store = new FileSchemaStore(directory, 100, true);
+             FileMigrationJobStore jobStore = new FileMigrationJobStore(directory, true)) {
+            MigrationExecutor executor = new MigrationExecutor((source, target, start, end, version) -> { }, 4, 4,
+                    MigrationThrottle.unlimited(), jobStore, MigrationRetry.NONE);
+            MasterNode masterNode = new MasterNode(List.of(), hashFunction, executor, store);
+
+            assertThat(masterNode.getVersion(), is(recorded));
+            assertThat(masterNode.getSnapshot().isMigrating(), is(false));
+            assertThat(executor.hasUnfinishedJobs(), is(false));
+            assertThat(jobStore.load().isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void testDiscardsTornLogTail() throws IOException {
+        try (FileSchemaStore store = new FileSchemaStore(directory, 100, true)) {
+            store.load(hashFunction);
+            store.append(SchemaChange.addServer(2, "10.0.0.1:8080"));
+            store.append(SchemaChange.updateShardCount(3, 8));
+        }
+        Path wal = directory.resolve(FileSchemaStore.WAL_FILE);
+        long valid = Files.size(wal);
+        Files.write(wal, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (FileSchemaStore store = new FileSchemaStore(directory, 100, true)) {
+            var state = store.load(hashFunction);
+            assertThat(state.changes(), is(List.of(
+                    SchemaChange.addServer(2, "10.0.0.1:8080"),
+                    SchemaChange.updateShardCount(3, 8))));
+        }
+        assertThat(Files.size(wal), is(valid));
+    }
+
+    @Test
+    public void testRejectsSnapshotOfAnotherHashFunction() throws IOException {
+        try (FileSchemaStore store = new FileSchemaStore(directory, 1, true)) {
+            masterNode(store).addServer(new ServerNode("10.0.0.1:8080"));
+        }
+
+        try (FileSchemaStore store = new FileSchemaStore(directory, 1, true)) {
+            assertThrows(IllegalStateException.class, () -> store.load(new Murmur3HashFunction()));
+        }
+    }
+}